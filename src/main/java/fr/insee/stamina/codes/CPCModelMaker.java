@@ -1,8 +1,14 @@
 package fr.insee.stamina.codes;
 
 import com.healthmarketscience.jackcess.*;
+import fr.insee.stamina.index.CodeReferenceExtractor;
+import fr.insee.stamina.index.CorrespondenceStore;
+import fr.insee.stamina.index.HierarchyClosure;
 import fr.insee.stamina.utils.AccessSpecification;
+import fr.insee.stamina.utils.LabelPack;
+import fr.insee.stamina.utils.ModelWriter;
 import fr.insee.stamina.utils.Names;
+import fr.insee.stamina.utils.NoteRenderer;
 import fr.insee.stamina.utils.XKOS;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
@@ -10,8 +16,6 @@ import org.apache.commons.csv.CSVRecord;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Resource;
-import org.apache.jena.riot.RDFDataMgr;
-import org.apache.jena.riot.RDFFormat;
 import org.apache.jena.vocabulary.RDFS;
 import org.apache.jena.vocabulary.SKOS;
 import org.apache.logging.log4j.LogManager;
@@ -19,6 +23,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.*;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 
@@ -58,13 +63,13 @@ public class CPCModelMaker {
 		logger.debug("New CPCModelMaker instance created");
 		Model cpcModel = modelMaker.createClassificationModel("2.1", true);
 		if (cpcModel != null) {
-			RDFDataMgr.write(new FileOutputStream(OUTPUT_FOLDER + "cpc21.ttl"), cpcModel, RDFFormat.TURTLE);
+			ModelWriter.write(cpcModel, OUTPUT_FOLDER + "cpc21.ttl");
 			cpcModel.close();
 		}
 		cpcModel = modelMaker.createClassificationModel("2", true);
 		if (cpcModel != null) {
-			cpcModel.add(modelMaker.createLabelsModel(INPUT_FOLDER + "CPCv2_Spanish_structure.txt", "2", "es"));
-			RDFDataMgr.write(new FileOutputStream(OUTPUT_FOLDER + "cpc2.ttl"), cpcModel, RDFFormat.TURTLE);
+			LabelPack.addLabels(cpcModel, LABEL_PACKS.get("2"), code -> Names.getItemURI(code, "CPC", "2"));
+			ModelWriter.write(cpcModel, OUTPUT_FOLDER + "cpc2.ttl");
 			cpcModel.close();
 		}
 		if (cpcModel != null) cpcModel.close();
@@ -75,10 +80,11 @@ public class CPCModelMaker {
 
 		CPCModelMaker modelMaker = new CPCModelMaker();
 		logger.debug("Creating correspondences: new CPCModelMaker instance initialized");
-		Model cpcModel = modelMaker.createCorrespondenceModel("1.1", "2");
-		if (cpcModel != null) {
-			RDFDataMgr.write(new FileOutputStream(OUTPUT_FOLDER + "cpc11-cpc2.ttl"), cpcModel, RDFFormat.TURTLE);
-			cpcModel.close();
+		CorrespondenceStore store = modelMaker.createCorrespondenceStore("1.1", "2");
+		if (store != null) {
+			Model tableModel = modelMaker.createCorrespondenceModel("1.1", "2");
+			store.write(tableModel, OUTPUT_FOLDER + "cpc11-cpc2.ttl");
+			tableModel.close();
 		}
 		logger.debug("Program terminated");
 	}
@@ -121,8 +127,10 @@ public class CPCModelMaker {
 			Cursor cursor = CursorBuilder.createCursor(table);
 			logger.debug("Cursor defined on table " + tableName);
 			Resource itemResource, parentResource;
+			List<String> itemCodes = new ArrayList<>();
 			for (Row row : cursor.newIterable()) {
 				final String itemCode = row.getString(codeColumnName);
+				itemCodes.add(itemCode);
 				final String parentCode = getParentCode(itemCode);
 				itemResource = cpcModel.createResource(Names.getItemURI(itemCode, "CPC", version), SKOS.Concept);
 				itemResource.addProperty(SKOS.notation, cpcModel.createLiteral(itemCode));
@@ -148,6 +156,14 @@ public class CPCModelMaker {
 				levels.get(itemCode.length()).addProperty(SKOS.member, itemResource);
 			}
 			logger.debug("Finished reading table " + tableName);
+			// Explicit links for the codes referenced in the notes, and notes shared between items and versions
+			if (withNotes) {
+				CodeReferenceExtractor extractor = new CodeReferenceExtractor(itemCodes);
+				extractor.addLinks(cpcModel, code -> Names.getItemURI(code, "CPC", version));
+				new NoteRenderer(extractor).shareNotes(cpcModel);
+			}
+			// Optional precomputed closure of the hierarchy
+			if (HierarchyClosure.isEnabled()) new HierarchyClosure(itemCodes, CPCModelMaker::getParentCode).addTo(cpcModel, code -> Names.getItemURI(code, "CPC", version));
 		} catch (Exception e) {
 			logger.error("Exception raised while constructing the model", e);
 			return null;
@@ -156,59 +172,46 @@ public class CPCModelMaker {
 	}
 
 	/**
-	 * Reads labels in a CSV file and returns a Jena model for specified version and language.
-	 * Expected character set for the CSV file is CP-1252).
+	 * Creates the model describing a correspondence table between CPC versions, without the concept associations.
 	 *
-	 * @param filePath The path of the CSV file.
-	 * @param version The version of the CPC classification.
-	 * @param language The tag representing the language of the labels ("fr", "es", etc.).
-	 * @return A Jena model containing the labels linked to their classification items.
+	 * @param sourceVersion Version of the source classification ("1.1", "2", "2.1").
+	 * @param targetVersion Version of the target classification ("1.1", "2", "2.1").
+	 * @return A Jena model containing the RDF representation of the correspondence table resource.
 	 */
-	private Model createLabelsModel(String filePath, String version, String language) {
+	private Model createCorrespondenceModel(String sourceVersion, String targetVersion) {
 
-		logger.debug("Preparing to create additional labels for version " + version + " and language '" + language + "'");
-		Model labelModel = ModelFactory.createDefaultModel();
-		try {
-			Reader reader = new InputStreamReader(new FileInputStream(filePath), "Cp1252");
-			CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT.withHeader());
-			for (CSVRecord record : parser) {
-				String itemCode = record.get(0);
-				Resource itemResource = labelModel.createResource(Names.getItemURI(itemCode, "CPC", version));
-				itemResource.addProperty(SKOS.prefLabel, labelModel.createLiteral(record.get(1), language));
-			}
-			parser.close();
-			reader.close();
-		} catch (Exception e) {
-			logger.error("Error adding labels from " + filePath, e);
-		}
-		return labelModel;
+		Model tableModel = ModelFactory.createDefaultModel();
+		tableModel.setNsPrefix("rdfs", RDFS.getURI());
+		tableModel.setNsPrefix("skos", SKOS.getURI());
+		tableModel.setNsPrefix("xkos", XKOS.getURI());
+		// Creation of the correspondence table resource
+		Resource table = tableModel.createResource(Names.getCorrespondenceURI("CPC", sourceVersion, "CPC", targetVersion), XKOS.Correspondence);
+		table.addProperty(SKOS.definition, "Correspondence between versions " + sourceVersion + " and " + targetVersion + " of the CPC");
+		table.addProperty(XKOS.compares, createScheme(tableModel, sourceVersion));
+		table.addProperty(XKOS.compares, createScheme(tableModel, targetVersion));
+
+		return tableModel;
 	}
 
 	/**
-	 * Creates the models for correspondences between CPC Ver.1.1, CPC Ver.2 and CPC Ver.2.1.
+	 * Reads the concept associations between CPC Ver.1.1, CPC Ver.2 and CPC Ver.2.1 in a correspondence store.
 	 * Requested versions should be adjacent, e.g. no correspondence is defined between CPC Ver.1.1 and CPC Ver.2.1.
 	 *
 	 * @param sourceVersion Version of the source classification ("1.1", "2", "2.1").
 	 * @param targetVersion Version of the target classification ("1.1", "2", "2.1").
-	 * @return A Jena model containing the RDF representation of the requested table.
+	 * @return A store containing the associations of the requested table, or <code>null</code> if the versions are invalid.
 	 */
-	private Model createCorrespondenceModel(String sourceVersion, String targetVersion) {
+	private CorrespondenceStore createCorrespondenceStore(String sourceVersion, String targetVersion) {
 
 		final String tableURL = TABLE_URLS.get(sourceVersion + targetVersion);
 		if (tableURL == null) {
 			logger.error("Invalid version numbers: (" + sourceVersion + ", " + targetVersion + ")");
 			return null;
 		}
-		logger.debug("Preparing to create model for the correspondences between CPC Ver." + sourceVersion + " and CPC Ver." + targetVersion);
-		Model tableModel = ModelFactory.createDefaultModel();
-		tableModel.setNsPrefix("rdfs", RDFS.getURI());
-		tableModel.setNsPrefix("skos", SKOS.getURI());
-		tableModel.setNsPrefix("xkos", XKOS.getURI());
-		// Creation of the correspondence table resource
-		Resource table = tableModel.createResource(Names.getCorrespondenceURI("CPC", "1.1", "CPC", "2"), XKOS.Correspondence);
-		table.addProperty(SKOS.definition, "Correspondence between versions " + sourceVersion + " and " + targetVersion + " of the CPC");
-		table.addProperty(XKOS.compares, createScheme(tableModel, sourceVersion));
-		table.addProperty(XKOS.compares, createScheme(tableModel, targetVersion));
+		logger.debug("Preparing to read the correspondences between CPC Ver." + sourceVersion + " and CPC Ver." + targetVersion);
+		CorrespondenceStore store = new CorrespondenceStore("CPC", sourceVersion, "CPC", targetVersion);
+		store.setLabeler((sourceCode, targetCode, flags) -> "CPC Ver." + sourceVersion + " " + sourceCode + (((flags & CorrespondenceStore.SOURCE_PARTIAL) != 0) ? "(p)" : "")
+				+ " to CPC Ver." + targetVersion + " " + targetCode + (((flags & CorrespondenceStore.TARGET_PARTIAL) != 0) ? "(p)" : ""), "en");
 
 		try {
 			logger.debug("Preparing to read correspondence data from " + tableURL);
@@ -220,20 +223,12 @@ public class CPCModelMaker {
 				boolean targetPartial = Boolean.parseBoolean(record.get(3));
 				// Cases where one code is "n/a" (correspondences between versions 1.1 and 2): no association is created (TODO This should be reconsidered)
 				if (!(Character.isDigit(sourceCode.charAt(0)) && Character.isDigit(targetCode.charAt(0)))) continue;
-				Resource association = tableModel.createResource(Names.getAssociationURI(sourceCode, "CPC",  sourceVersion, targetCode, "CPC", targetVersion), XKOS.ConceptAssociation);
-				StringBuilder labelBuilder = new StringBuilder("CPC Ver.").append(sourceVersion).append(' ').append(sourceCode);
-				if (sourcePartial) labelBuilder.append("(p)");
-				labelBuilder.append(" to CPC Ver.").append(targetVersion).append(' ').append(targetCode);
-				if (targetPartial) labelBuilder.append("(p)");
-				association.addProperty(RDFS.label, tableModel.createLiteral(labelBuilder.toString(), "en"));
-				association.addProperty(XKOS.sourceConcept, tableModel.createResource(Names.getItemURI(sourceCode, "CPC", sourceVersion)));
-				association.addProperty(XKOS.targetConcept, tableModel.createResource(Names.getItemURI(targetCode, "CPC", targetVersion)));
-				table.addProperty(XKOS.madeOf, association);
+				store.add(sourceCode, targetCode, (sourcePartial ? CorrespondenceStore.SOURCE_PARTIAL : 0) | (targetPartial ? CorrespondenceStore.TARGET_PARTIAL : 0));
 			}
 		} catch (Exception e) {
 			logger.error("Problem while creating the correspondence table: " + e.getMessage());
 		}
-		return tableModel;
+		return store;
 	}
 
 	/**
@@ -262,10 +257,10 @@ public class CPCModelMaker {
 	private Map<Integer, Resource> createLevels(Model cpcModel, String version) {
 
 		Map<Integer, Resource> levels = new HashMap<>();
-		int numberOfLevels = Naming.LEVEL_NAMES.size();
+		int numberOfLevels = Names.getLevelNames("CPC", version).size();
 		for (int depth = 1; depth <= numberOfLevels; depth++) {
 			Resource level = cpcModel.createResource(Naming.getClassificationLevelURI(depth, version), XKOS.ClassificationLevel);
-			level.addProperty(SKOS.prefLabel, cpcModel.createLiteral(Naming.LEVEL_NAMES.get(depth - 1), "en"));
+			level.addProperty(SKOS.prefLabel, cpcModel.createLiteral(Naming.getClassificationLevelLabel(depth, version), "en"));
 			level.addProperty(XKOS.depth, cpcModel.createTypedLiteral(depth));
 			levels.put(getItemLength(depth), level);
 		}
@@ -316,6 +311,11 @@ public class CPCModelMaker {
 		logger.debug("Initialized Access information:\n" + ACCESS_INFO);
 	}
 
+	/** Label packs containing the labels in other languages than English */
+	static final Map<String, List<LabelPack>> LABEL_PACKS = new HashMap<String, List<LabelPack>>() {{
+		put("2", Arrays.asList(new LabelPack(INPUT_FOLDER + "CPCv2_Spanish_structure.txt", "es", Charset.forName("Cp1252"), CSVFormat.DEFAULT.withHeader())));
+	}};
+
 	/** for some reason, the naming of the files containing the tables is not coherent */
 	static final String TABLE_URL_BASE = "https://unstats.un.org/unsd/classifications/Econ/tables/CPC/";
 	static final Map<String, String> TABLE_URLS = new HashMap<String, String>() {{
@@ -326,30 +326,34 @@ public class CPCModelMaker {
 	}};
 
 	/**
-	 * Constants and methods for the naming of HS resources.
+	 * Methods for the naming of CPC resources: the naming rules of the classification come from <code>Names</code>, only the paths of the
+	 * levels and items are specific to this maker.
 	 */
 	private static class Naming {
 
-		final static List<String> LEVEL_NAMES = Arrays.asList("Sections", "Divisions", "Groups", "Classes", "Subclasses");
-
 		static String getNamingContext(String version) {
-			return Names.CLASSIFICATION_BASE_URI + "cpcv" + version.replaceAll("\\.", "") + "/";
+			return Names.getCSBaseURI("CPC", version);
 		}
 
 		static String getClassificationURI(String version) {
-			return getNamingContext(version) + "cpc";
+			return Names.getCSURI("CPC", version);
 		}
 
 		static String getClassificationLabel(String version) {
-			return String.format("Central Product Classification, Ver.%s", version);
+			return Names.getCSLabel("CPC", version);
 		}
 
 		static String getClassificationNotation(String version) {
-			return String.format("CPC Ver.%s", version);
+			return Names.getCSShortName("CPC", version);
+		}
+
+		static String getClassificationLevelLabel(int depth, String version) {
+			String levelName = Names.getLevelPluralName(Names.getLevelNames("CPC", version).get(depth - 1));
+			return levelName.substring(0, 1).toUpperCase() + levelName.substring(1);
 		}
 
 		static String getClassificationLevelURI(int depth, String version) {
-			return getNamingContext(version) + "level/" + LEVEL_NAMES.get(depth - 1).toLowerCase();
+			return getNamingContext(version) + "level/" + Names.getLevelPluralName(Names.getLevelNames("CPC", version).get(depth - 1));
 		}
 
 		static String getClassificationItemURI(String itemId, String version) {
@@ -0,0 +1,286 @@
+package fr.insee.stamina.codes;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The <code>HSDelta</code> class computes the changes between two consecutive revisions of the Harmonized System.
+ *
+ * The codes deleted from the source revision and the codes added to the target revision are grouped by parent code (the heading for
+ * subheadings, the chapter for headings). A group is resolved only when the parent has no kept children (codes present in both
+ * revisions), so that the content of the deleted codes can only have gone to the added codes: one deleted code and one added code are
+ * then a recoding, one deleted code and several added codes a split, several deleted codes and one added code a merge, and deleted or
+ * added codes without counterpart are simply deleted or added. When the parent also has kept children, these may have given or received
+ * part of the content, so neither the changed codes nor the kept ones can be matched from the codes only. These groups, as well as the
+ * groups with several codes on both sides, are reported as unresolved (see <code>writeUnresolvedCSV</code>) and produce no associations.
+ * Codes present in both revisions are published as unchanged only when no sibling was deleted or added.
+ *
+ * @author Franck Cotton
+ * @version 0.1.0, 19 Oct 2026
+ */
+public class HSDelta {
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(HSDelta.class);
+
+	/** Types of changes between revisions */
+	public enum ChangeType {
+		UNCHANGED, RECODED, SPLIT, MERGED;
+
+		/**
+		 * @return <code>true</code> if the source item corresponds only partially to the target item.
+		 */
+		public boolean isSourcePartial() {
+			return this == SPLIT;
+		}
+
+		/**
+		 * @return <code>true</code> if the target item corresponds only partially to the source item.
+		 */
+		public boolean isTargetPartial() {
+			return this == MERGED;
+		}
+	}
+
+	/**
+	 * An association between an item of the source revision and an item of the target revision.
+	 */
+	public static class Association {
+
+		private final String sourceCode;
+		private final String targetCode;
+		private final ChangeType type;
+
+		Association(String sourceCode, String targetCode, ChangeType type) {
+			this.sourceCode = sourceCode;
+			this.targetCode = targetCode;
+			this.type = type;
+		}
+
+		public String getSourceCode() {
+			return sourceCode;
+		}
+
+		public String getTargetCode() {
+			return targetCode;
+		}
+
+		public ChangeType getType() {
+			return type;
+		}
+
+		@Override
+		public String toString() {
+			return sourceCode + " -> " + targetCode + " (" + type + ")";
+		}
+	}
+
+	/**
+	 * A group of deleted, added and kept codes under the same parent for which no association can be inferred.
+	 */
+	public static class UnresolvedGroup {
+
+		private final String parentCode;
+		private final List<String> deletedCodes;
+		private final List<String> addedCodes;
+		private final List<String> keptCodes;
+
+		UnresolvedGroup(String parentCode, List<String> deletedCodes, List<String> addedCodes, List<String> keptCodes) {
+			this.parentCode = parentCode;
+			this.deletedCodes = Collections.unmodifiableList(deletedCodes);
+			this.addedCodes = Collections.unmodifiableList(addedCodes);
+			this.keptCodes = Collections.unmodifiableList(keptCodes);
+		}
+
+		public String getParentCode() {
+			return parentCode;
+		}
+
+		public List<String> getDeletedCodes() {
+			return deletedCodes;
+		}
+
+		public List<String> getAddedCodes() {
+			return addedCodes;
+		}
+
+		/**
+		 * @return The codes present in both revisions under the parent, whose content may have changed.
+		 */
+		public List<String> getKeptCodes() {
+			return keptCodes;
+		}
+
+		@Override
+		public String toString() {
+			return parentCode + ": " + deletedCodes + " -> " + addedCodes + ", kept " + keptCodes;
+		}
+	}
+
+	private final HSRevision source;
+	private final HSRevision target;
+
+	private final List<Association> associations = new ArrayList<>();
+	private final List<UnresolvedGroup> unresolved = new ArrayList<>();
+	private final List<String> added = new ArrayList<>();
+	private final List<String> deleted = new ArrayList<>();
+
+	private HSDelta(HSRevision source, HSRevision target) {
+		this.source = source;
+		this.target = target;
+	}
+
+	/**
+	 * Computes the changes between two revisions of the HS.
+	 *
+	 * @param source The source (older) revision.
+	 * @param target The target (newer) revision.
+	 * @return The delta between the revisions.
+	 */
+	public static HSDelta compute(HSRevision source, HSRevision target) {
+
+		HSDelta delta = new HSDelta(source, target);
+
+		// Deleted, added and kept codes are grouped by parent code (top items have no parent and cannot be matched)
+		Map<String, List<String>> deletedByParent = new LinkedHashMap<>();
+		Map<String, List<String>> addedByParent = new LinkedHashMap<>();
+		Map<String, List<String>> keptByParent = new HashMap<>();
+		for (String code : source.getCodes()) {
+			String parentCode = source.getParentCode(code);
+			if (target.contains(code)) {
+				String targetParentCode = target.getParentCode(code);
+				if (parentCode != null) keptByParent.computeIfAbsent(parentCode, key -> new ArrayList<>()).add(code);
+				if ((targetParentCode != null) && !targetParentCode.equals(parentCode)) keptByParent.computeIfAbsent(targetParentCode, key -> new ArrayList<>()).add(code);
+			}
+			else if (parentCode == null) delta.deleted.add(code);
+			else deletedByParent.computeIfAbsent(parentCode, key -> new ArrayList<>()).add(code);
+		}
+		for (String code : target.getCodes()) {
+			if (source.contains(code)) continue;
+			String parentCode = target.getParentCode(code);
+			if (parentCode == null) delta.added.add(code);
+			else addedByParent.computeIfAbsent(parentCode, key -> new ArrayList<>()).add(code);
+		}
+
+		// Parents with deleted or added children
+		Set<String> changedParents = new LinkedHashSet<>(deletedByParent.keySet());
+		changedParents.addAll(addedByParent.keySet());
+		for (String parentCode : changedParents) {
+			List<String> deletedCodes = deletedByParent.getOrDefault(parentCode, Collections.emptyList());
+			List<String> addedCodes = addedByParent.getOrDefault(parentCode, Collections.emptyList());
+			List<String> keptCodes = keptByParent.getOrDefault(parentCode, Collections.emptyList());
+			if (!keptCodes.isEmpty() || ((deletedCodes.size() > 1) && (addedCodes.size() > 1))) {
+				delta.unresolved.add(new UnresolvedGroup(parentCode, deletedCodes, addedCodes, keptCodes));
+				continue;
+			}
+			if (addedCodes.isEmpty()) delta.deleted.addAll(deletedCodes);
+			else if (deletedCodes.isEmpty()) delta.added.addAll(addedCodes);
+			else {
+				ChangeType type;
+				if (deletedCodes.size() == 1) type = (addedCodes.size() == 1) ? ChangeType.RECODED : ChangeType.SPLIT;
+				else type = ChangeType.MERGED;
+				for (String deletedCode : deletedCodes)
+					for (String addedCode : addedCodes) delta.associations.add(new Association(deletedCode, addedCode, type));
+			}
+		}
+
+		// Kept codes are unchanged only if their siblings are unchanged in both revisions
+		for (String code : source.getCodes()) {
+			if (!target.contains(code) || changedParents.contains(source.getParentCode(code)) || changedParents.contains(target.getParentCode(code))) continue;
+			delta.associations.add(new Association(code, code, ChangeType.UNCHANGED));
+		}
+
+		logger.info("Delta between HS " + source.getVersion() + " and HS " + target.getVersion() + ": " + delta.added.size() + " codes added, "
+				+ delta.deleted.size() + " codes deleted, " + delta.count(ChangeType.SPLIT) + " split associations, " + delta.count(ChangeType.MERGED)
+				+ " merge associations, " + delta.count(ChangeType.RECODED) + " recodings, " + delta.unresolved.size() + " unresolved groups");
+		for (UnresolvedGroup group : delta.unresolved) logger.debug("Unresolved group under " + group);
+
+		return delta;
+	}
+
+	/**
+	 * Returns the number of associations of a given type.
+	 *
+	 * @param type The type of change.
+	 * @return The number of associations of this type.
+	 */
+	public int count(ChangeType type) {
+
+		int count = 0;
+		for (Association association : associations) if (association.type == type) count++;
+		return count;
+	}
+
+	/**
+	 * @return The source revision.
+	 */
+	public HSRevision getSource() {
+		return source;
+	}
+
+	/**
+	 * @return The target revision.
+	 */
+	public HSRevision getTarget() {
+		return target;
+	}
+
+	/**
+	 * @return The associations between source and target items, including unchanged items.
+	 */
+	public List<Association> getAssociations() {
+		return Collections.unmodifiableList(associations);
+	}
+
+	/**
+	 * @return The groups of deleted and added codes for which no association could be inferred.
+	 */
+	public List<UnresolvedGroup> getUnresolved() {
+		return Collections.unmodifiableList(unresolved);
+	}
+
+	/**
+	 * Writes the unresolved groups in a CSV file with columns parent code, deleted codes, added codes and kept codes (codes separated by spaces),
+	 * for manual review.
+	 *
+	 * @param fileName The name of the CSV file.
+	 * @throws IOException In case of problem writing the file.
+	 */
+	public void writeUnresolvedCSV(String fileName) throws IOException {
+
+		try (Writer writer = new FileWriter(fileName); CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT)) {
+			printer.printRecord("Parent", "Deleted codes", "Added codes", "Kept codes");
+			for (UnresolvedGroup group : unresolved)
+				printer.printRecord(group.parentCode, String.join(" ", group.deletedCodes), String.join(" ", group.addedCodes), String.join(" ", group.keptCodes));
+		}
+		logger.debug("Unresolved groups written to " + fileName);
+	}
+
+	/**
+	 * @return The codes of the target revision that have no counterpart in the source revision.
+	 */
+	public List<String> getAdded() {
+		return Collections.unmodifiableList(added);
+	}
+
+	/**
+	 * @return The codes of the source revision that have no counterpart in the target revision.
+	 */
+	public List<String> getDeleted() {
+		return Collections.unmodifiableList(deleted);
+	}
+}
@@ -0,0 +1,104 @@
+package fr.insee.stamina.codes;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The <code>HSJsonReader</code> reads the items of the Harmonized System from the JSON files published by UN Comtrade.
+ *
+ * The JSON document is read token by token with a Jackson streaming parser: the items of the 'results' array are handed to the
+ * handler one at a time, so the memory used does not depend on the size of the file.
+ *
+ * @author Franck Cotton
+ * @version 0.1.0, 19 Oct 2026
+ */
+public class HSJsonReader {
+
+	/** Jackson factory used to create the parsers (thread-safe) */
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(HSJsonReader.class);
+
+	/**
+	 * Handler receiving the HS items read.
+	 */
+	@FunctionalInterface
+	public interface ItemHandler {
+
+		/**
+		 * Receives an item of the classification.
+		 *
+		 * @param code The code of the item.
+		 * @param parentCode The code of the parent item, or <code>null</code> if the item is at the top of the hierarchy.
+		 * @param label The English label of the item.
+		 */
+		void item(String code, String parentCode, String label);
+	}
+
+	/**
+	 * Reads a HS JSON file and sends the classification items to a handler.
+	 * Entries of the 'results' array whose identifier does not start with a digit (aggregates, totals) are not classification items and are skipped.
+	 *
+	 * @param jsonFile The HS JSON file.
+	 * @param handler The handler receiving the items, in document order.
+	 * @return The number of items read.
+	 * @throws IOException In case of problem reading the file or if its structure is invalid.
+	 */
+	public static int read(File jsonFile, ItemHandler handler) throws IOException {
+
+		logger.debug("Reading HS items from " + jsonFile);
+		int count = 0;
+		try (JsonParser parser = JSON_FACTORY.createParser(jsonFile)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) throw new IOException("Invalid structure for JSON data: root is not an object");
+			// Look for the 'results' field at the top level, skipping the others
+			boolean resultsFound = false;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String fieldName = parser.getCurrentName();
+				JsonToken valueToken = parser.nextToken();
+				if (!"results".equals(fieldName)) {
+					parser.skipChildren();
+					continue;
+				}
+				if (valueToken != JsonToken.START_ARRAY) throw new IOException("Invalid structure for JSON data: 'results' node is not an array");
+				resultsFound = true;
+				while (parser.nextToken() == JsonToken.START_OBJECT) {
+					if (readResult(parser, handler)) count++;
+				}
+			}
+			if (!resultsFound) throw new IOException("Invalid structure for JSON data: 'results' node absent");
+		}
+		logger.debug(count + " HS items read from " + jsonFile);
+		return count;
+	}
+
+	/**
+	 * Reads an object of the 'results' array, the parser being positioned on its start token.
+	 *
+	 * @return <code>true</code> if the object is a classification item, <code>false</code> otherwise.
+	 */
+	private static boolean readResult(JsonParser parser, ItemHandler handler) throws IOException {
+
+		String id = null, parentId = null, text = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = parser.getCurrentName();
+			parser.nextToken();
+			if ("id".equals(fieldName)) id = parser.getValueAsString();
+			else if ("parent".equals(fieldName)) parentId = parser.getValueAsString();
+			else if ("text".equals(fieldName)) text = parser.getValueAsString();
+			else parser.skipChildren();
+		}
+		if ((id == null) || (id.length() == 0) || !Character.isDigit(id.charAt(0))) return false;
+		if ((parentId != null) && ((parentId.length() == 0) || !Character.isDigit(parentId.charAt(0)))) parentId = null;
+		// To get the label, remove the '{code} - ' part from the 'text' node
+		String label = ((text != null) && (text.length() > id.length() + 3)) ? text.substring(id.length() + 3) : text;
+		handler.item(id, parentId, label);
+		return true;
+	}
+}
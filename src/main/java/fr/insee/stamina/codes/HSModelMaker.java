@@ -1,14 +1,18 @@
 package fr.insee.stamina.codes;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.insee.stamina.utils.ModelWriter;
 import fr.insee.stamina.utils.Names;
 import fr.insee.stamina.utils.XKOS;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Resource;
-import org.apache.jena.riot.RDFDataMgr;
-import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.riot.system.StreamRDFOps;
+import org.apache.jena.vocabulary.RDFS;
 import org.apache.jena.vocabulary.SKOS;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -19,12 +23,15 @@ import java.util.*;
 /**
  * The <code>HSModelMaker</code> creates and saves Jena models corresponding to the Harmonized System classification.
  * 
- * HS 2017 is considered here.
+ * HS 2012, 2017 and 2022 are considered here.
  * The original data used is:
- *  - JSON file giving the codes and English labels: https://comtrade.un.org/data/cache/classificationH5.json
+ *  - JSON files giving the codes and English labels: https://comtrade.un.org/data/cache/classificationH4.json (H5, H6 for later revisions)
+ * The JSON files are read with a streaming parser into a compact structure, from which the triples are streamed directly to the output file.
+ * The correspondences between consecutive revisions are derived from the differences between the sets of codes (see <code>HSDelta</code>);
+ * the groups of codes for which no correspondence can be inferred are written in a CSV file for manual review.
  * 
  * @author Franck Cotton
- * @version 0.1.0, 1 May 2021
+ * @version 0.2.0, 19 Oct 2026
  */
 public class HSModelMaker {
 
@@ -33,11 +40,13 @@ public class HSModelMaker {
 	/** Directory for output files */
 	private static final String OUTPUT_FOLDER = "src/main/resources/data/out/";
 	
-	/** JSON file containing the codes and English labels */
-	private static final String HS_2017_BASE_JSON = INPUT_FOLDER + "classificationH5.json";
-
-	/** Turtle file containing the model */
-	private static final String HS_2017_TURTLE = OUTPUT_FOLDER + "hs2017.ttl";
+	/** JSON files containing the codes and English labels, by version in chronological order */
+	private static final Map<String, String> BASE_JSON = new LinkedHashMap<>();
+	static {
+		BASE_JSON.put("2012", INPUT_FOLDER + "classificationH4.json");
+		BASE_JSON.put("2017", INPUT_FOLDER + "classificationH5.json");
+		BASE_JSON.put("2022", INPUT_FOLDER + "classificationH6.json");
+	}
 
 	/** Log4J2 logger */
 	private static final Logger logger = LogManager.getLogger(HSModelMaker.class);
@@ -52,10 +61,27 @@ public class HSModelMaker {
 
 		HSModelMaker modelMaker = new HSModelMaker();
 		logger.debug("New HSModelMaker instance created");
-		Model hsModel = modelMaker.createHSModel("2017", true);
-		if (hsModel != null) {
-			RDFDataMgr.write(new FileOutputStream(HS_2017_TURTLE), hsModel, RDFFormat.TURTLE);
-			hsModel.close();
+		HSRevision previousRevision = null;
+		for (String version : BASE_JSON.keySet()) {
+			File jsonFile = new File(BASE_JSON.get(version));
+			if (!jsonFile.exists()) {
+				logger.warn("No data for HS version " + version + ": file " + jsonFile + " not found");
+				continue;
+			}
+			HSRevision revision = HSRevision.read(version, jsonFile);
+			// The items are streamed directly from the compact structure to the Turtle file
+			try (OutputStream output = new FileOutputStream(ModelWriter.getFileName(OUTPUT_FOLDER + "hs" + version + ".ttl"))) {
+				modelMaker.streamHS(revision, ModelWriter.getStream(output));
+			}
+			if (previousRevision != null) {
+				HSDelta delta = HSDelta.compute(previousRevision, revision);
+				Model correspondenceModel = modelMaker.createCorrespondenceModel(delta);
+				ModelWriter.write(correspondenceModel, OUTPUT_FOLDER + "hs" + previousRevision.getVersion() + "-hs" + version + ".ttl");
+				correspondenceModel.close();
+				// Groups of codes that cannot be matched automatically are left for manual review
+				if (!delta.getUnresolved().isEmpty()) delta.writeUnresolvedCSV(OUTPUT_FOLDER + "hs" + previousRevision.getVersion() + "-hs" + version + "-unresolved.csv");
+			}
+			previousRevision = revision;
 		}
 		logger.debug("Program terminated");
 	}
@@ -63,58 +89,20 @@ public class HSModelMaker {
 	/**
 	 * Returns a Jena model corresponding to the Harmonized System classification.
 	 * 
-	 * @param version The version of the classification (for now "2017").
+	 * @param version The version of the classification ("2012", "2017" or "2022").
+	 * @return The Jena model, or <code>null</code> in case of problem.
 	 */
-	private Model createHSModel(String version, boolean withNotes) {
+	public Model createHSModel(String version) {
 
 		logger.debug("Construction of the Jena model for HS version " + version);
 
-		// Create and init the Jena model for the given version of the classification
+		if (!BASE_JSON.containsKey(version)) {
+			logger.error("Invalid version number: " + version);
+			return null;
+		}
 		Model hsModel = ModelFactory.createDefaultModel();
-		hsModel.setNsPrefix("skos", SKOS.getURI());
-		hsModel.setNsPrefix("xkos", XKOS.getURI());
-		// Create the resources corresponding to the concept scheme and the levels
-		Resource scheme = createScheme(hsModel, version);
-		Map<Integer, Resource> levels = createLevels(hsModel, version);
-		scheme.addProperty(XKOS.levels, hsModel.createList(levels.values().toArray(new Resource[0])));
-
 		try {
-			// Create object mapper instance
-			ObjectMapper mapper = new ObjectMapper();
-			final JsonNode jsonNode = mapper.readTree(new File(HS_2017_BASE_JSON));
-			// The 'results' node is an array that contains the interesting stuff
-			final JsonNode resultsNode = jsonNode.get("results");
-			if ((resultsNode == null) || !resultsNode.isArray()) {
-				logger.fatal("Invalid structure for JSON data: 'results' node absent or not an array");
-				return null;
-			}
-			// Loop through the results, skipping the nodes that are not items
-			Resource itemResource, parentResource;
-			for (final JsonNode resultNode : resultsNode) {
-				final String id = resultNode.get("id").textValue();
-				final String parentId = resultNode.get("parent").textValue();
-				if (Character.isDigit(id.charAt(0))) {
-					// That's a classification item: create corresponding resource and add it to the scheme
-					itemResource = hsModel.createResource(Naming.getClassificationItemURI(id, version));
-					itemResource.addProperty(SKOS.notation, id);
-					itemResource.addProperty(SKOS.inScheme, scheme);
-					// To get the label, remove the '{code} - ' part from the 'text' node
-					final String itemLabel = resultNode.get("text").textValue().substring(id.length() + 3);
-					itemResource.addProperty(SKOS.prefLabel, hsModel.createLiteral(itemLabel, "en"));
-					// Attach the item to its level (will throw a NPE if code length not in map keys
-					levels.get(id.length()).addProperty(SKOS.member, itemResource);
-					// The parent resource should be in the model already: add broader/narrower links
-					if (Character.isDigit(parentId.charAt(0))) {
-						parentResource = hsModel.createResource(Naming.getClassificationItemURI(parentId, version));
-						itemResource.addProperty(SKOS.broader, parentResource);
-						parentResource.addProperty(SKOS.narrower, itemResource);
-					} else {
-						// No parent: item is a top concept
-						itemResource.addProperty(SKOS.topConceptOf, scheme);
-						scheme.addProperty(SKOS.hasTopConcept, itemResource);
-					}
-				}
-			}
+			streamHS(version, new File(BASE_JSON.get(version)), StreamRDFLib.graph(hsModel.getGraph()));
 		} catch (Exception e) {
 			logger.error("Exception raised while constructing the model", e);
 			return null;
@@ -122,6 +110,122 @@ public class HSModelMaker {
 		return hsModel;
 	}
 
+	/**
+	 * Reads the Harmonized System classification from a JSON file and sends the corresponding triples to a RDF stream.
+	 * The scheme and levels are sent first, then the triples of each item as soon as it is read.
+	 * 
+	 * @param version The version of the classification.
+	 * @param jsonFile The JSON file containing the codes and English labels.
+	 * @param stream The RDF stream receiving the triples.
+	 * @throws IOException In case of problem reading the JSON file.
+	 */
+	public void streamHS(String version, File jsonFile, StreamRDF stream) throws IOException {
+
+		logger.debug("Streaming HS version " + version + " from " + jsonFile);
+		streamHS(version, handler -> HSJsonReader.read(jsonFile, handler), stream);
+	}
+
+	/**
+	 * Sends the triples corresponding to a revision of the Harmonized System to a RDF stream.
+	 * 
+	 * @param revision The HS revision.
+	 * @param stream The RDF stream receiving the triples.
+	 */
+	public void streamHS(HSRevision revision, StreamRDF stream) {
+
+		logger.debug("Streaming HS version " + revision.getVersion() + " from memory");
+		try {
+			streamHS(revision.getVersion(), revision::forEach, stream);
+		} catch (IOException e) {
+			// Cannot happen, the revision is in memory
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Source of HS items.
+	 */
+	@FunctionalInterface
+	private interface ItemSource {
+		void send(HSJsonReader.ItemHandler handler) throws IOException;
+	}
+
+	private void streamHS(String version, ItemSource source, StreamRDF stream) throws IOException {
+
+		// Create the resources corresponding to the concept scheme and the levels in a small header model
+		Model headerModel = ModelFactory.createDefaultModel();
+		headerModel.setNsPrefix("skos", SKOS.getURI());
+		headerModel.setNsPrefix("xkos", XKOS.getURI());
+		Resource scheme = createScheme(headerModel, version);
+		Map<Integer, Resource> levels = createLevels(headerModel, version);
+		scheme.addProperty(XKOS.levels, headerModel.createList(levels.values().toArray(new Resource[0])));
+
+		stream.start();
+		StreamRDFOps.sendGraphToStream(headerModel.getGraph(), stream);
+
+		final Node schemeNode = scheme.asNode();
+		source.send((id, parentId, itemLabel) -> {
+			// That's a classification item: create corresponding resource and add it to the scheme
+			Node itemNode = NodeFactory.createURI(Naming.getClassificationItemURI(id, version));
+			stream.triple(Triple.create(itemNode, SKOS.notation.asNode(), NodeFactory.createLiteral(id)));
+			stream.triple(Triple.create(itemNode, SKOS.inScheme.asNode(), schemeNode));
+			stream.triple(Triple.create(itemNode, SKOS.prefLabel.asNode(), NodeFactory.createLiteral(itemLabel, "en")));
+			// Attach the item to its level (will throw a NPE if code length not in map keys
+			stream.triple(Triple.create(levels.get(id.length()).asNode(), SKOS.member.asNode(), itemNode));
+			if (parentId != null) {
+				// Add broader/narrower links
+				Node parentNode = NodeFactory.createURI(Naming.getClassificationItemURI(parentId, version));
+				stream.triple(Triple.create(itemNode, SKOS.broader.asNode(), parentNode));
+				stream.triple(Triple.create(parentNode, SKOS.narrower.asNode(), itemNode));
+			} else {
+				// No parent: item is a top concept
+				stream.triple(Triple.create(itemNode, SKOS.topConceptOf.asNode(), schemeNode));
+				stream.triple(Triple.create(schemeNode, SKOS.hasTopConcept.asNode(), itemNode));
+			}
+		});
+		stream.finish();
+		headerModel.close();
+	}
+
+	/**
+	 * Creates a Jena model corresponding to the correspondence table between two revisions of the HS.
+	 * Partial correspondences (splits, merges) are flagged with '(p)' in the association labels. Unresolved groups of the delta produce no associations.
+	 * 
+	 * @param delta The delta between the source and the target revisions.
+	 * @return A Jena model containing the correspondence table.
+	 */
+	public Model createCorrespondenceModel(HSDelta delta) {
+
+		final String sourceVersion = delta.getSource().getVersion();
+		final String targetVersion = delta.getTarget().getVersion();
+		logger.debug("Preparing to create model for the correspondences between HS " + sourceVersion + " and HS " + targetVersion);
+
+		Model tableModel = ModelFactory.createDefaultModel();
+		tableModel.setNsPrefix("rdfs", RDFS.getURI());
+		tableModel.setNsPrefix("skos", SKOS.getURI());
+		tableModel.setNsPrefix("xkos", XKOS.getURI());
+		// Creation of the correspondence table resource
+		Resource table = tableModel.createResource(Naming.getCorrespondenceURI(sourceVersion, targetVersion), XKOS.Correspondence);
+		table.addProperty(SKOS.definition, "Correspondence between versions " + sourceVersion + " and " + targetVersion + " of the HS");
+		table.addProperty(XKOS.compares, createScheme(tableModel, sourceVersion));
+		table.addProperty(XKOS.compares, createScheme(tableModel, targetVersion));
+
+		for (HSDelta.Association deltaAssociation : delta.getAssociations()) {
+			String sourceCode = deltaAssociation.getSourceCode();
+			String targetCode = deltaAssociation.getTargetCode();
+			Resource association = tableModel.createResource(Naming.getAssociationURI(sourceCode, sourceVersion, targetCode, targetVersion), XKOS.ConceptAssociation);
+			StringBuilder labelBuilder = new StringBuilder("HS ").append(sourceVersion).append(' ').append(sourceCode);
+			if (deltaAssociation.getType().isSourcePartial()) labelBuilder.append("(p)");
+			labelBuilder.append(" to HS ").append(targetVersion).append(' ').append(targetCode);
+			if (deltaAssociation.getType().isTargetPartial()) labelBuilder.append("(p)");
+			association.addProperty(RDFS.label, tableModel.createLiteral(labelBuilder.toString(), "en"));
+			association.addProperty(XKOS.sourceConcept, tableModel.createResource(Naming.getClassificationItemURI(sourceCode, sourceVersion)));
+			association.addProperty(XKOS.targetConcept, tableModel.createResource(Naming.getClassificationItemURI(targetCode, targetVersion)));
+			table.addProperty(XKOS.madeOf, association);
+		}
+		return tableModel;
+	}
+
 	/**
 	 * Creates the resource corresponding to the concept scheme and its different properties.
 	 *
@@ -132,8 +236,8 @@ public class HSModelMaker {
 	private Resource createScheme(Model hsModel, String version) {
 
 		Resource scheme = hsModel.createResource(Naming.getClassificationURI(version), SKOS.ConceptScheme);
-		scheme.addProperty(SKOS.prefLabel, hsModel.createLiteral(Naming.getClassificationLabel(version, false), "en"));
-		scheme.addProperty(SKOS.altLabel, hsModel.createLiteral(Naming.getClassificationLabel(version, true), "en"));
+		scheme.addProperty(SKOS.prefLabel, hsModel.createLiteral(Names.getDescriptor("HS").getLabel(version, false), "en"));
+		scheme.addProperty(SKOS.altLabel, hsModel.createLiteral(Names.getDescriptor("HS").getLabel(version, true), "en"));
 		scheme.addProperty(SKOS.notation, Naming.getClassificationNotation(version));
 
 		return scheme;
@@ -149,10 +253,10 @@ public class HSModelMaker {
 	private Map<Integer, Resource> createLevels(Model hsModel, String version) {
 
 		Map<Integer, Resource> levels = new HashMap<>();
-		int numberOfLevels = Naming.LEVEL_NAMES.size();
+		int numberOfLevels = Names.getLevelNames("HS", version).size();
 		for (int depth = 1; depth <= numberOfLevels; depth++) {
 			Resource level = hsModel.createResource(Naming.getClassificationLevelURI(depth, version), XKOS.ClassificationLevel);
-			level.addProperty(SKOS.prefLabel, hsModel.createLiteral(Naming.LEVEL_NAMES.get(depth - 1), "en"));
+			level.addProperty(SKOS.prefLabel, hsModel.createLiteral(Naming.getClassificationLevelLabel(depth, version), "en"));
 			level.addProperty(SKOS.notation, hsModel.createLiteral(Naming.LEVEL_NOTATIONS.get(depth - 1)));
 			level.addProperty(XKOS.depth, hsModel.createTypedLiteral(depth));
 			levels.put(getItemLength(depth), level);
@@ -171,28 +275,28 @@ public class HSModelMaker {
 	}
 
 	/**
-	 * Constants and methods for the naming of HS resources.
+	 * Constants and methods for the naming of HS resources: the naming rules of the classification come from <code>Names</code>, only the
+	 * paths and notations of the levels and the paths of the items are specific to this maker.
 	 */
 	private static class Naming {
 
 		final static List<String> LEVEL_NOTATIONS = Arrays.asList("AG2", "AG4", "AG6");
-		final static List<String> LEVEL_NAMES = Arrays.asList("Chapters", "Headings", "Subheadings");
 
 		static String getNamingContext(String version) {
-			return Names.CLASSIFICATION_BASE_URI + "hs" + version + "/";
+			return Names.getCSBaseURI("HS", version);
 		}
 
 		static String getClassificationURI(String version) {
-			return getNamingContext(version) + "hs";
+			return Names.getCSURI("HS", version);
 		}
 
-		static String getClassificationLabel(String version, boolean alternative) {
-			String label = alternative ? "Harmonized System" : "Harmonized Commodity Description and Coding System";
-			return label + ", version " + version;
+		static String getClassificationNotation(String version) {
+			return Names.getCSShortName("HS", version);
 		}
 
-		static String getClassificationNotation(String version) {
-			return "HS" + version;
+		static String getClassificationLevelLabel(int depth, String version) {
+			String levelName = Names.getLevelPluralName(Names.getLevelNames("HS", version).get(depth - 1));
+			return levelName.substring(0, 1).toUpperCase() + levelName.substring(1);
 		}
 
 		static String getClassificationLevelURI(int depth, String version) {
@@ -202,5 +306,13 @@ public class HSModelMaker {
 		static String getClassificationItemURI(String itemId, String version) {
 			return getNamingContext(version) + "/item/" + itemId;
 		}
+
+		static String getCorrespondenceURI(String sourceVersion, String targetVersion) {
+			return Names.getCorrespondenceURI("HS", sourceVersion, "HS", targetVersion);
+		}
+
+		static String getAssociationURI(String sourceCode, String sourceVersion, String targetCode, String targetVersion) {
+			return Names.getAssociationURI(sourceCode, "HS", sourceVersion, targetCode, "HS", targetVersion);
+		}
 	}
 }
@@ -0,0 +1,141 @@
+package fr.insee.stamina.codes;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The <code>HSRevision</code> class is a compact in-memory representation of a revision of the Harmonized System.
+ *
+ * Items are stored in parallel arrays in the order of the source file, the parent of each item being recorded as an index in the arrays.
+ * A hash index gives the position of an item from its code, so that revisions can be compared with set operations on codes.
+ *
+ * @author Franck Cotton
+ * @version 0.1.0, 19 Oct 2026
+ */
+public class HSRevision {
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(HSRevision.class);
+
+	/** Version of the HS (e.g. "2017") */
+	private final String version;
+
+	/** Codes of the items */
+	private final String[] codes;
+
+	/** English labels of the items */
+	private final String[] labels;
+
+	/** Index of the parent of each item, -1 for top items */
+	private final int[] parents;
+
+	/** Index of the items by code */
+	private final Map<String, Integer> index;
+
+	private HSRevision(String version, List<String> codes, List<String> labels, List<String> parentCodes) {
+
+		this.version = version;
+		int size = codes.size();
+		this.codes = codes.toArray(new String[size]);
+		this.labels = labels.toArray(new String[size]);
+		this.index = new HashMap<>(size * 4 / 3 + 1);
+		for (int item = 0; item < size; item++) index.put(this.codes[item], item);
+		this.parents = new int[size];
+		for (int item = 0; item < size; item++) {
+			String parentCode = parentCodes.get(item);
+			Integer parent = (parentCode == null) ? null : index.get(parentCode);
+			if ((parentCode != null) && (parent == null)) logger.warn("Parent " + parentCode + " of item " + this.codes[item] + " not found in HS " + version);
+			this.parents[item] = (parent == null) ? -1 : parent;
+		}
+	}
+
+	/**
+	 * Reads a HS revision from the JSON file published by UN Comtrade.
+	 *
+	 * @param version The version of the HS.
+	 * @param jsonFile The JSON file containing the codes and English labels.
+	 * @return The HS revision.
+	 * @throws IOException In case of problem reading the file.
+	 */
+	public static HSRevision read(String version, File jsonFile) throws IOException {
+
+		List<String> codes = new ArrayList<>();
+		List<String> labels = new ArrayList<>();
+		List<String> parentCodes = new ArrayList<>();
+		HSJsonReader.read(jsonFile, (code, parentCode, label) -> {
+			codes.add(code);
+			labels.add(label);
+			parentCodes.add(parentCode);
+		});
+		HSRevision revision = new HSRevision(version, codes, labels, parentCodes);
+		logger.debug("HS " + version + " loaded with " + revision.size() + " items");
+
+		return revision;
+	}
+
+	/**
+	 * Sends all the items of the revision to a handler, in the order of the source file.
+	 *
+	 * @param handler The handler receiving the items.
+	 */
+	public void forEach(HSJsonReader.ItemHandler handler) {
+
+		for (int item = 0; item < codes.length; item++) handler.item(codes[item], (parents[item] < 0) ? null : codes[parents[item]], labels[item]);
+	}
+
+	/**
+	 * @return The version of the HS.
+	 */
+	public String getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return The number of items in the revision.
+	 */
+	public int size() {
+		return codes.length;
+	}
+
+	/**
+	 * @param code An item code.
+	 * @return <code>true</code> if the revision contains an item with this code.
+	 */
+	public boolean contains(String code) {
+		return index.containsKey(code);
+	}
+
+	/**
+	 * @param code An item code.
+	 * @return The label of the item, or <code>null</code> if the code is not in the revision.
+	 */
+	public String getLabel(String code) {
+		Integer item = index.get(code);
+		return (item == null) ? null : labels[item];
+	}
+
+	/**
+	 * @param code An item code.
+	 * @return The code of the parent of the item, or <code>null</code> if the item is at the top of the hierarchy or not in the revision.
+	 */
+	public String getParentCode(String code) {
+		Integer item = index.get(code);
+		return ((item == null) || (parents[item] < 0)) ? null : codes[parents[item]];
+	}
+
+	/**
+	 * @return The codes of the items, in the order of the source file.
+	 */
+	public List<String> getCodes() {
+		return Collections.unmodifiableList(Arrays.asList(codes));
+	}
+}
@@ -3,11 +3,9 @@ package fr.insee.stamina.eurostat;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -35,7 +33,11 @@ import org.apache.jena.vocabulary.SKOS;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import fr.insee.stamina.index.CorrespondenceStore;
+import fr.insee.stamina.utils.BuildManifest;
+import fr.insee.stamina.utils.ModelWriter;
 import fr.insee.stamina.utils.Names;
+import fr.insee.stamina.utils.TextSource;
 import fr.insee.stamina.utils.XKOS;
 
 /**
@@ -68,6 +70,11 @@ public class NACECPAModelMaker {
 	/** XSL transformation file for CPA */
 	public static String CPA_XSL_FILE = LOCAL_FOLDER + "cpa-to-xkos.xsl";
 
+	/** Template of the labels of the concept associations, null to omit the labels (see <code>CorrespondenceStore</code>) */
+	public static String ASSOCIATION_LABEL_TEMPLATE = "{sourceName} {source} - {targetName} {target}";
+	/** Indicates if concept associations are identified by URIs, blank nodes being used otherwise */
+	public static boolean ASSOCIATION_URIS = true;
+
 	/** Log4J2 logger */ // This must be before the configuration initialization
 	private static final Logger logger = LogManager.getLogger(NACECPAModelMaker.class);
 
@@ -147,9 +154,10 @@ public class NACECPAModelMaker {
 		// Convert RDF/XML format to Turtle with Jena
 		this.initializeModel();
 		model.read(rdfFileName, "RDF/XML");
-		model.write(new FileOutputStream(specification.getOutputFile()), "TTL");
+		ModelWriter.write(model, specification.getOutputFile());
 		model.close();
 		logger.info("The XKOS data for " + Names.getCSShortName(classification, version) + " has been written to Turtle file " + specification.getOutputFile());
+		BuildManifest.register(classification, version, ModelWriter.getFileName(specification.getOutputFile()));
 		// Delete intermediary input file
 		try {
 			Files.delete(Paths.get(inputFileName));
@@ -171,8 +179,6 @@ public class NACECPAModelMaker {
 	public void createHistoricalCorrespondenceModel(String filePath, String classification, String sourceVersion, String targetVersion) throws Exception {
 
 		// Get a local copy of useful naming elements to avoid repeated calls to the naming authority
-		String sourceBaseURI = Names.getCSBaseURI(classification, sourceVersion);
-		String targetBaseURI = Names.getCSBaseURI(classification, targetVersion);
 		String tableBaseURI = Names.getCorrespondenceBaseURI(classification, sourceVersion, classification, targetVersion);
 		String sourceCSShortName = Names.getCSShortName(classification, sourceVersion);
 		String targetCSShortName = Names.getCSShortName(classification, targetVersion);
@@ -198,28 +204,18 @@ public class NACECPAModelMaker {
 		// Ramon CSV files have two headers, so we have to strip the first line
 		List<Integer> ramonCSVLines = Collections.singletonList(1);
 		String inputFilePath = removeLines(filePath, ramonCSVLines);
-		Reader reader = new FileReader(inputFilePath);
+		Reader reader = TextSource.newReader(inputFilePath);
 
 		logger.debug("Preparing to read CSV file " + inputFilePath);
-		int associationCount = 0;
+		// Only the codes are kept while reading: URIs and labels are generated when the model is written
+		CorrespondenceStore store = createCorrespondenceStore(classification, sourceVersion, classification, targetVersion);
 		CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT.withHeader());
-		for (CSVRecord record : parser) {
-			String sourceItemURI = sourceBaseURI + Names.getItemPathInContext(record.get("Source"), classification, sourceVersion);
-			String targetItemURI = targetBaseURI + Names.getItemPathInContext(record.get("Target"), classification, targetVersion);
-			String associationURI = tableBaseURI + Names.getAssociationPathInContext(record.get("Source"), record.get("Target"));
-			Resource association = model.createResource(associationURI, XKOS.ConceptAssociation);
-			association.addProperty(XKOS.sourceConcept, model.createResource(sourceItemURI));
-			association.addProperty(XKOS.targetConcept, model.createResource(targetItemURI));
-			String associationLabel = sourceCSShortName + " " + record.get("Source") + " - " + targetCSShortName + " " + record.get("Target");
-			association.addProperty(RDFS.label, model.createLiteral(associationLabel));
-			table.addProperty(XKOS.madeOf, association);
-			associationCount++;
-		}
+		for (CSVRecord record : parser) store.add(record.get("Source"), record.get("Target"), 0);
 		parser.close();
 
 		String turtleFilePath = getTurtleFilePath(classification, sourceVersion, classification, targetVersion);
-		logger.info(associationCount + " associations created - writing model to " + turtleFilePath);
-		model.write(new FileOutputStream(turtleFilePath), "TTL");
+		logger.info(store.size() + " associations created (" + store.getRejectedCount() + " rejected for invalid codes) - writing model to " + turtleFilePath);
+		store.write(model, turtleFilePath);
 		model.close();
 
 		// Delete copy of input file
@@ -252,8 +248,6 @@ public class NACECPAModelMaker {
 		}
 
 		// Get a local copy of useful naming elements to avoid repeated calls to the naming authority
-		String naceBaseURI = Names.getCSBaseURI("NACE", naceVersion);
-		String cpaBaseURI = Names.getCSBaseURI("CPA", cpaVersion);
 		String tableBaseURI = Names.getCorrespondenceBaseURI("NACE", naceVersion, "CPA", cpaVersion);
 		String naceShortName = Names.getCSShortName("NACE", naceVersion);
 		String cpaShortName = Names.getCSShortName("CPA", cpaVersion);
@@ -278,32 +272,24 @@ public class NACECPAModelMaker {
 		// Ramon CSV files have two headers, so we have to strip the first line
 		List<Integer> ramonCSVLines = Collections.singletonList(1);
 		String inputFilePath = removeLines(filePath, ramonCSVLines);
-		Reader reader = new FileReader(inputFilePath);
+		Reader reader = TextSource.newReader(inputFilePath);
 
 		logger.debug("Preparing to read CSV file " + inputFilePath);
-		int associationCount = 0;
+		// Only the codes are kept while reading: URIs and labels are generated when the model is written
+		CorrespondenceStore store = createCorrespondenceStore("NACE", naceVersion, "CPA", cpaVersion);
 		CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT.withHeader());
 		for (CSVRecord record : parser) {
 			String cpaCode = record.get(columnIndex);
-			String cpaItemURI = cpaBaseURI + Names.getItemPathInContext(cpaCode, "CPA", cpaVersion);
 			// If only the most detailed level is considered, we retain only codes of length 8 (nn.nn.nn)
 			if ((!allLevels) && (cpaCode.length() != 8)) continue;
 			String naceCode = (cpaCode.length() <= 5) ? cpaCode : cpaCode.substring(0, 5);
-			String naceItemURI = naceBaseURI + Names.getItemPathInContext(naceCode, "NACE", naceVersion);
-			String associationURI = tableBaseURI + Names.getAssociationPathInContext(naceCode, cpaCode);
-			Resource association = model.createResource(associationURI, XKOS.ConceptAssociation);
-			association.addProperty(XKOS.sourceConcept, model.createResource(naceItemURI));
-			association.addProperty(XKOS.targetConcept, model.createResource(cpaItemURI));
-			String associationLabel = naceShortName + " " + naceCode + " - " + cpaShortName + " " + cpaCode;
-			association.addProperty(RDFS.label, model.createLiteral(associationLabel));
-			table.addProperty(XKOS.madeOf, association);
-			associationCount++;
+			store.add(naceCode, cpaCode, 0);
 		}
 		parser.close();
 
 		String turtleFilePath = getTurtleFilePath("NACE", naceVersion, "CPA", cpaVersion);
-		logger.info(associationCount + " associations created - writing model to " + turtleFilePath);
-		model.write(new FileOutputStream(turtleFilePath), "TTL");
+		logger.info(store.size() + " associations created (" + store.getRejectedCount() + " rejected for invalid codes) - writing model to " + turtleFilePath);
+		store.write(model, turtleFilePath);
 		model.close();
 
 		// Delete copy of input file
@@ -350,48 +336,49 @@ public class NACECPAModelMaker {
 		table.addProperty(XKOS.compares, model.createResource(Names.getCSURI("ISIC", isicVersion)));
 		table.addProperty(XKOS.compares, model.createResource(Names.getCSURI("NACE", naceVersion)));
 
+		// The associations are kept in a compact store and converted to RDF only when the file is written
+		CorrespondenceStore store = createCorrespondenceStore("ISIC", isicVersion, "NACE", naceVersion);
+		// NACE is a refinement of ISIC, so we can also create skos:exactMatch and skos:broadMatch/skos:narrowMatch properties if requested
+		store.setWithMatches(skosProperties);
+
 		// Since we don't go through the file matching operation here, LOCAL_FOLDER must be added explicitely
 		logger.debug("Preparing to read CSV file " + LOCAL_FOLDER + inputFilePath);
-		Reader reader = new FileReader(LOCAL_FOLDER + inputFilePath);
-		int associationCount = 0;
+		Reader reader = TextSource.newReader(LOCAL_FOLDER + inputFilePath);
 		CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT.withHeader());
 		for (CSVRecord record : parser) {
 			String isicCode = record.get("ISIC4code");
-			String isicItemURI = Names.getItemURI(isicCode, "ISIC", isicVersion);
 			// If only the most detailed level is considered, we retain only ISIC codes of length 4 (nnnn)
 			if ((!allLevels) && (isicCode.length() != 4)) continue;
 			String naceCode = record.get("NACE2code");
-			String naceItemURI = Names.getItemURI(naceCode, "NACE", naceVersion);
-			String associationURI = tableBaseURI + Names.getAssociationPathInContext(isicCode, naceCode);
-			Resource association = model.createResource(associationURI, XKOS.ConceptAssociation);
-			association.addProperty(XKOS.sourceConcept, model.createResource(isicItemURI));
-			association.addProperty(XKOS.targetConcept, model.createResource(naceItemURI));
-			String associationLabel = isicShortName + " " + isicCode + " - " + naceShortName + " " + naceCode;
-			association.addProperty(RDFS.label, model.createLiteral(associationLabel));
-			table.addProperty(XKOS.madeOf, association);
-			associationCount++;
-			// NACE is a refinement of ISIC, so we can also create skos:exactMatch and skos:broadMatch/skos:narrowMatch properties if requested
-			if (skosProperties) {
-				Resource isicItemResource = model.createResource(isicItemURI);
-				Resource naceItemResource = model.createResource(naceItemURI);
-				if (record.get("ISIC4part").equals("0")) {
-					isicItemResource.addProperty(SKOS.exactMatch, naceItemResource);
-					naceItemResource.addProperty(SKOS.exactMatch, isicItemResource);
-				}
-				else {
-					isicItemResource.addProperty(SKOS.narrowMatch, naceItemResource);
-					naceItemResource.addProperty(SKOS.broadMatch, isicItemResource);
-				}
-			}
+			// 'ISIC4part' is 0 when the ISIC item corresponds exactly to the NACE item
+			store.add(isicCode, naceCode, record.get("ISIC4part").equals("0") ? 0 : CorrespondenceStore.SOURCE_PARTIAL);
 		}
 		parser.close();
 
 		String turtleFilePath = getTurtleFilePath("ISIC", isicVersion, "NACE", naceVersion);
-		logger.info(associationCount + " associations created - writing model to " + turtleFilePath);
-		model.write(new FileOutputStream(turtleFilePath), "TTL");
+		logger.info(store.size() + " associations created (" + store.getRejectedCount() + " rejected for invalid codes) - writing model to " + turtleFilePath);
+		store.write(model, turtleFilePath);
 		model.close();
 	}
 
+	/**
+	 * Creates an empty correspondence store configured with the association label template and URI option.
+	 *
+	 * @param sourceClassification The source classification.
+	 * @param sourceVersion The source version.
+	 * @param targetClassification The target classification.
+	 * @param targetVersion The target version.
+	 * @return The correspondence store.
+	 */
+	private static CorrespondenceStore createCorrespondenceStore(String sourceClassification, String sourceVersion, String targetClassification, String targetVersion) {
+
+		CorrespondenceStore store = new CorrespondenceStore(sourceClassification, sourceVersion, targetClassification, targetVersion);
+		store.setLabelTemplate(ASSOCIATION_LABEL_TEMPLATE, null);
+		if (!ASSOCIATION_URIS) store.setAssociationURITemplate(null);
+
+		return store;
+	}
+
 	/**
 	 * Initializes the Jena model and adds standard prefixes.
 	 * 
@@ -426,8 +413,8 @@ public class NACECPAModelMaker {
 		String outputFileName = fileName + ".copy";
 
 		logger.debug("Copying " + fileName + " to " + outputFileName + " skipping lines " + linesToRemove);
-		BufferedReader reader = new BufferedReader(new FileReader(fileName));
-		BufferedWriter writer = new BufferedWriter(new FileWriter(outputFileName));
+		BufferedReader reader = TextSource.newReader(fileName);
+		BufferedWriter writer = Files.newBufferedWriter(Paths.get(outputFileName), StandardCharsets.UTF_8);
 
 		String line;
 		int lineNumber = 0;
@@ -1,7 +1,6 @@
 package fr.insee.stamina.gamso;
 
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -18,6 +17,8 @@ import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFParagraph;
 
 import fr.insee.stamina.utils.CSPAOnto;
+import fr.insee.stamina.utils.DocumentSegmenter;
+import fr.insee.stamina.utils.ModelWriter;
 
 /**
  * Creates a SKOS concept scheme by reading the Word document describing the GAMSO and saves it in a Turtle file.
@@ -69,7 +70,7 @@ public class GAMSOModelMaker {
 
 		try {
 			reader.readGAMSODocument();
-			reader.gamsoModel.write(new FileOutputStream(GAMSO_TTL), "TTL");
+			ModelWriter.write(reader.gamsoModel, GAMSO_TTL);
 		} catch (IOException e) {
 			logger.fatal("Error executing the program", e);
 		}
@@ -87,14 +88,25 @@ public class GAMSOModelMaker {
 		List<XWPFParagraph> paragraphs = document.getParagraphs();
 
 		int paragraphNumber = 0;
-		int paragraphStylingNumber;
-		int[] currentNumber = {0,0,0};
-		List<String> currentDescription = null;
-		String currentLabel = null;
+		int[] currentNumber = {0,0};
 
 		// Creation of the concept scheme resource.
 		gamsoCS = gamsoModel.createResource(GAMSO_BASE_URI + "gamso", SKOS.ConceptScheme);
 
+		// Headings start new activities, other paragraphs are part of the description of the current activity
+		// The first level 1 headings are in the introduction (no number styling): we skip those
+		DocumentSegmenter<XWPFParagraph, XWPFParagraph> segmenter = new DocumentSegmenter<>(
+				paragraph -> (LEVEL1_STYLING.equals(paragraph.getStyle()) || LEVEL2_STYLING.equals(paragraph.getStyle())) ? paragraph : null,
+				paragraph -> LEVEL1_STYLING.equals(paragraph.getStyle()) && (getStylingNumber(paragraph) == 0),
+				segment -> {
+					if (LEVEL1_STYLING.equals(segment.getHeader().getStyle())) {
+						// New level 1 activity
+						currentNumber[0]++;
+						currentNumber[1] = 0;
+					} else currentNumber[1]++; // New level 2 activity
+					this.addActivityToModel(currentNumber, segment.getHeader(), segment.getBody());
+				});
+
 		// Iteration through the document paragraphs
 		logger.debug("Document read from " + GAMSO_DOCX + ", starting to iterate through the paragraphs.");
 		for (XWPFParagraph paragraph : paragraphs) {
@@ -102,9 +114,6 @@ public class GAMSOModelMaker {
 			if (paragraph.getParagraphText() == null) continue; // skipping empty paragraphs
 			paragraphNumber++;
 
-			// Styling number will be strictly positive for headings and list elements (eg. bullet points)
-			paragraphStylingNumber = (paragraph.getNumID() == null) ? 0 : paragraph.getNumID().intValue();
-
 			// Add the paragraph text to the CS description if its number corresponds
 			if (descriptionIndexes.contains(paragraphNumber)) {
 				// TODO normalize white spaces
@@ -112,41 +121,10 @@ public class GAMSOModelMaker {
 				else gamsoDescription += " " + paragraph.getParagraphText();
 			}
 
-			if (LEVEL1_STYLING.equals(paragraph.getStyle())) {
-				// The first headings are in the introduction: we skip those
-				if (paragraphStylingNumber == 0) continue;
-				// If paragraph has a number styling, we have a new level 1 activity
-				currentNumber[2] = 0; // Because third number may have been modified by level 3 operations
-				if (currentDescription != null) {
-					// Previous description is complete: record in the model
-					this.addActivityToModel(currentNumber, currentLabel, currentDescription);
-				}
-				currentNumber[0]++;
-				currentNumber[1] = 0;
-				currentDescription = new ArrayList<>();
-				currentLabel = normalizeActivityName(paragraph);
-			} else if (LEVEL2_STYLING.equals(paragraph.getStyle())) {
-				// Start of a new level 2 activity
-				currentNumber[2] = 0;
-				// Record previous description (which exists since we are at level 2) in the model
-				this.addActivityToModel(currentNumber, currentLabel, currentDescription);
-				currentNumber[1]++;
-				currentDescription = new ArrayList<>();
-				currentLabel = normalizeActivityName(paragraph); // Strip code for 3.x activities
-			} else {
-				if (currentNumber[0] == 0) continue; // Skip paragraphs that are before the first activity
-				// Not a heading, so part of a description
-				String descriptionPart = normalizeDescriptionItem(paragraph, paragraphStylingNumber);
-				if (descriptionPart.length() > 0) currentDescription.add(descriptionPart);
-				// Transform bullet points of level 2 activities into level 3 activities
-				if ((paragraphStylingNumber > 0) && (currentNumber[1] > 0)) {
-					currentNumber[2]++;
-					this.addActivityToModel(currentNumber, paragraph.getParagraphText().trim(), null);
-				}
-			}
+			segmenter.accept(paragraph);
 		}
 		// The last activity read has not been added to the model yet: we do it here
-		this.addActivityToModel(currentNumber, currentLabel, currentDescription);
+		segmenter.finish();
 
 		document.close();
 
@@ -159,6 +137,32 @@ public class GAMSOModelMaker {
 
 	}
 
+	/**
+	 * Adds a GAMSO activity read from the Word document to the Jena model.
+	 * The paragraphs that follow the heading make up the description, and the bullet points of level 2 activities are transformed into level 3 activities.
+	 * 
+	 * @param activityNumber An array of integers with the level 1 and level 2 components of the activity code.
+	 * @param heading The heading paragraph of the activity.
+	 * @param paragraphs The paragraphs following the heading of the activity.
+	 */
+	private void addActivityToModel(int[] activityNumber, XWPFParagraph heading, List<XWPFParagraph> paragraphs) {
+
+		int[] currentNumber = {activityNumber[0], activityNumber[1], 0};
+		List<String> currentDescription = new ArrayList<>();
+		for (XWPFParagraph paragraph : paragraphs) {
+			int paragraphStylingNumber = getStylingNumber(paragraph);
+			String descriptionPart = normalizeDescriptionItem(paragraph, paragraphStylingNumber);
+			if (descriptionPart.length() > 0) currentDescription.add(descriptionPart);
+			// Transform bullet points of level 2 activities into level 3 activities
+			if ((paragraphStylingNumber > 0) && (currentNumber[1] > 0)) {
+				currentNumber[2]++;
+				this.addActivityToModel(currentNumber, paragraph.getParagraphText().trim(), null);
+			}
+		}
+		currentNumber[2] = 0;
+		this.addActivityToModel(currentNumber, normalizeActivityName(heading), currentDescription); // Strip code for 3.x activities
+	}
+
 	/**
 	 * Adds a GAMSO activity to the Jena model.
 	 * 
@@ -248,6 +252,17 @@ public class GAMSOModelMaker {
 		return trimmedText;
 	}
 
+	/**
+	 * Returns the styling number of a paragraph, which is strictly positive for headings and list elements (eg. bullet points).
+	 * 
+	 * @param paragraph The paragraph.
+	 * @return The styling number of the paragraph, or 0 if the paragraph has no number styling.
+	 */
+	public static int getStylingNumber(XWPFParagraph paragraph) {
+
+		return (paragraph.getNumID() == null) ? 0 : paragraph.getNumID().intValue();
+	}
+
 	public static String getNote(List<String> activityDescription) {
 
 		// For now we just concatenate the strings
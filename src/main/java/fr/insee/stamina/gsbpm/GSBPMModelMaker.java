@@ -2,15 +2,17 @@ package fr.insee.stamina.gsbpm;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.List;
 
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.vocabulary.SKOS;
 
+import fr.insee.stamina.utils.DocumentSegmenter;
+import fr.insee.stamina.utils.GSBPM;
+import fr.insee.stamina.utils.ModelWriter;
+
 /**
  * The <code>GSBPMModelMaker</code> class creates and saves the Jena models corresponding to the GSBPM.
  * Individual GSBPM phases and sub-processes are added to the resources already in the ontology.
@@ -30,8 +32,6 @@ public class GSBPMModelMaker {
 	static String GSBPM_TTL = "src/main/resources/data/gsbpm.ttl";
 	/** Base URI for the GSBPM individuals */
 	static String BASE_URI = "http://id.unece.org/models/gsbpm/";
-	/** Base URI for the GSBPM ontology */
-	static String ONTO_BASE_URI = "http://rdf.unece.org/models/gsbpm#";
 
 	static Model gsbpmModel = null;
 
@@ -41,35 +41,41 @@ public class GSBPMModelMaker {
 		gsbpmModel = ModelFactory.createDefaultModel();
 		gsbpmModel.read(new FileInputStream(GSBPM_ONTO), null, "TTL");
 
-		// Read the GSBPM entries in the text file and add them to the model
-		GSBPMReader reader = new GSBPMReader();
-		List<GSBPMEntry> gsbpmEntries = reader.read(new File(GSBPM_TXT));
-
-		// Create useful resources for the ConceptScheme and the main classes (all are already in the ontology)
+		// Create useful resource for the ConceptScheme (the main classes are in the GSBPM vocabulary class)
 		Resource gsbpmCS = gsbpmModel.createResource(BASE_URI + "GSBPM");
-		Resource phase = gsbpmModel.createResource(ONTO_BASE_URI + "Phase");
-		Resource subProcess = gsbpmModel.createResource(ONTO_BASE_URI + "SubProcess");
 
-		// Iterate through GSBPM entries to create the associated resources
-		for (GSBPMEntry entry : gsbpmEntries) {
-			Resource activity;
-			if (entry.isPhase()) activity = gsbpmModel.createResource(BASE_URI + entry.getCode(), phase);
-			else activity = gsbpmModel.createResource(BASE_URI + entry.getCode(), subProcess);
-			activity.addProperty(SKOS.notation, gsbpmModel.createLiteral(entry.getCode()));
-			activity.addProperty(SKOS.prefLabel, gsbpmModel.createLiteral(entry.getLabel(), "en"));
-			activity.addProperty(SKOS.inScheme, gsbpmCS);
-			if (entry.getCode().length() == 1) {
-				activity.addProperty(SKOS.topConceptOf, gsbpmCS);
-				gsbpmCS.addProperty(SKOS.hasTopConcept, activity);
-			} else {
-				Resource parent = gsbpmModel.getResource(BASE_URI + entry.getCode().charAt(0));
-				activity.addProperty(SKOS.broader, parent);
-				parent.addProperty(SKOS.narrower, activity);
-			}
-			activity.addProperty(SKOS.definition, gsbpmModel.createLiteral(entry.getDescription(), "en"));
+		// Read the GSBPM entries in the text file and add them to the model while reading goes on
+		GSBPMReader reader = new GSBPMReader();
+		try (DocumentSegmenter.AsynchronousConsumer<GSBPMEntry> modelFeeder = new DocumentSegmenter.AsynchronousConsumer<>(entry -> addEntry(entry, gsbpmCS))) {
+			reader.read(new File(GSBPM_TXT), modelFeeder);
 		}
 
 		// Write the whole model in the output file
-		gsbpmModel.write(new FileOutputStream(GSBPM_TTL), "TTL");
+		ModelWriter.write(gsbpmModel, GSBPM_TTL);
+	}
+
+	/**
+	 * Creates the resources associated to a GSBPM entry.
+	 *
+	 * @param entry The GSBPM entry.
+	 * @param gsbpmCS The resource representing the GSBPM concept scheme.
+	 */
+	private static void addEntry(GSBPMEntry entry, Resource gsbpmCS) {
+
+		Resource activity;
+		if (entry.isPhase()) activity = gsbpmModel.createResource(BASE_URI + entry.getCode(), GSBPM.Phase);
+		else activity = gsbpmModel.createResource(BASE_URI + entry.getCode(), GSBPM.SubProcess);
+		activity.addProperty(SKOS.notation, gsbpmModel.createLiteral(entry.getCode()));
+		activity.addProperty(SKOS.prefLabel, gsbpmModel.createLiteral(entry.getLabel(), "en"));
+		activity.addProperty(SKOS.inScheme, gsbpmCS);
+		if (entry.getCode().length() == 1) {
+			activity.addProperty(SKOS.topConceptOf, gsbpmCS);
+			gsbpmCS.addProperty(SKOS.hasTopConcept, activity);
+		} else {
+			Resource parent = gsbpmModel.getResource(BASE_URI + entry.getCode().charAt(0));
+			activity.addProperty(SKOS.broader, parent);
+			parent.addProperty(SKOS.narrower, activity);
+		}
+		activity.addProperty(SKOS.definition, gsbpmModel.createLiteral(entry.getDescription(), "en"));
 	}
 }
@@ -2,66 +2,98 @@ package fr.insee.stamina.gsbpm;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
+import fr.insee.stamina.utils.DocumentSegmenter;
+import fr.insee.stamina.utils.TextSource;
+
 public class GSBPMReader {
 
 	private static final Logger logger = LogManager.getLogger(GSBPMReader.class);
 
 	public GSBPMReader() {}
 
+	/**
+	 * Reads the GSBPM text file and returns the list of entries.
+	 *
+	 * @param file The GSBPM text file.
+	 * @return The list of GSBPM entries in document order.
+	 * @throws IOException In case of problem reading the file.
+	 */
 	public List<GSBPMEntry> read(File file) throws IOException {
 
-		BufferedReader gsbpmInput  = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
-		String gsbpmLine;
-		StringBuilder currentNote = new StringBuilder();
-		GSBPMEntry currentEntry = null;
-
 		List<GSBPMEntry> GSBPMEntries = new ArrayList<>();
+		read(file, GSBPMEntries::add);
 
-		while ((gsbpmLine = gsbpmInput.readLine()) != null) {
-
-			String trimmedLine = gsbpmLine.trim();
-			if ((trimmedLine.length() == 0)) continue;
-
-			if (Character.isDigit(trimmedLine.charAt(0))) {
-				// First entry line contains the code and label
-				String[] codeLabel = trimmedLine.split("\t");
-				if (codeLabel.length != 2) {
-					logger.error("Invalid code/label line: " + trimmedLine);
-					break;
-				}
-				// Save current entry to the list
-				if (currentEntry != null) {
-					logger.debug("Adding new entry with code " + currentEntry.getCode() + " to the list");
-					currentEntry.setDescription(currentNote.toString());
-					currentNote = new StringBuilder();
-					GSBPMEntries.add(currentEntry);
-				}
-				// Start new entry
-				currentEntry = new GSBPMEntry(codeLabel[0], codeLabel[1]);
-				logger.debug("Starting new entry with code " + currentEntry.getCode());
-			} else {
-				// Current line is added to the entry description
-				currentNote.append(trimmedLine).append("\n");
-			}
-		}
-		gsbpmInput.close();
+		return GSBPMEntries;
+	}
 
-		// Save last entry to the list
-		if (currentEntry != null) {
-			logger.debug("Adding last entry with code " + currentEntry.getCode() + " to the list");
-			currentEntry.setDescription(currentNote.toString());
-			GSBPMEntries.add(currentEntry);
+	/**
+	 * Reads the GSBPM text file and hands each entry to a consumer as soon as it is complete.
+	 * Reading stops at the first invalid code/label line, the entries read so far being kept.
+	 *
+	 * @param file The GSBPM text file.
+	 * @param consumer The consumer of the GSBPM entries.
+	 * @throws IOException In case of problem reading the file.
+	 */
+	public void read(File file, Consumer<GSBPMEntry> consumer) throws IOException {
+
+		try (BufferedReader gsbpmInput = TextSource.newReader(file.toPath(), StandardCharsets.UTF_8)) {
+			DocumentSegmenter.segmentLines(gsbpmInput, GSBPMReader::entryStart, GSBPMReader::skip, GSBPMReader::invalid, segment -> {
+				// Current lines are added to the entry description
+				GSBPMEntry entry = segment.getHeader();
+				StringBuilder currentNote = new StringBuilder();
+				for (String line : segment.getBody()) currentNote.append(line.trim()).append("\n");
+				entry.setDescription(currentNote.toString());
+				logger.debug("Adding new entry with code " + entry.getCode() + " to the list");
+				consumer.accept(entry);
+			});
 		}
+	}
 
-		return GSBPMEntries;
+	/**
+	 * First entry line contains the code and label: returns the corresponding entry, or <code>null</code> if the line does not start an entry.
+	 */
+	private static GSBPMEntry entryStart(String line) {
+
+		String[] codeLabel = getCodeLabel(line);
+		if (codeLabel == null) return null;
+		logger.debug("Starting new entry with code " + codeLabel[0]);
+		return new GSBPMEntry(codeLabel[0], codeLabel[1]);
+	}
+
+	/**
+	 * Invalid code/label lines end the document: the description lines that follow cannot be attributed to an entry.
+	 */
+	private static boolean invalid(String line) {
+
+		String[] codeLabel = getCodeLabel(line);
+		if ((codeLabel == null) || (codeLabel.length == 2)) return false;
+		logger.error("Invalid code/label line: " + line.trim());
+		return true;
+	}
+
+	/**
+	 * Returns the fields of a line starting with a code, or <code>null</code> if the line does not start with a code.
+	 */
+	private static String[] getCodeLabel(String line) {
+
+		String trimmedLine = line.trim();
+		return Character.isDigit(trimmedLine.charAt(0)) ? trimmedLine.split("\t") : null;
+	}
+
+	/**
+	 * Empty lines are ignored.
+	 */
+	private static boolean skip(String line) {
+
+		return line.trim().length() == 0;
 	}
 }
@@ -0,0 +1,387 @@
+package fr.insee.stamina.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.insee.stamina.utils.TextSource;
+
+/**
+ * The <code>AutoCoder</code> class assigns codes of a classification version to free-text descriptions (e.g. the activity descriptions
+ * of a business register).
+ *
+ * The coder indexes the word n-grams (unigrams to <code>NGRAM_SIZE</code>-grams) of the labels and explanatory notes of the items, as
+ * produced by the language analyzer of <code>TextIndex</code>. Labels have the highest weight, inclusion notes and the labels of the
+ * ancestors a lower one, and n-grams of exclusion notes have a negative weight, so that descriptions matching an exclusion are pushed
+ * towards the right code. Weights are multiplied by the inverse item frequency of the n-gram and normalized per item, and stored in
+ * packed postings (one array of items and one array of weights for all the n-grams).
+ *
+ * Descriptions are scored by summing the postings of their n-grams into an accumulator owned by the worker thread, which is reset
+ * sparsely, and the best codes are selected with a bounded heap. Lists or files of descriptions are processed in batches on a pool of
+ * threads.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class AutoCoder {
+
+	/** Maximum length of the n-grams */
+	public static int NGRAM_SIZE = 2;
+	/** Weight of the n-grams of the labels of the item */
+	public static float LABEL_WEIGHT = 1.0f;
+	/** Weight of the n-grams of the inclusion and other explanatory notes */
+	public static float INCLUSION_WEIGHT = 0.5f;
+	/** Weight of the n-grams of the labels of the ancestors */
+	public static float ANCESTOR_WEIGHT = 0.3f;
+	/** Weight (subtracted) of the n-grams of the exclusion notes */
+	public static float EXCLUSION_WEIGHT = 0.5f;
+	/** Number of descriptions processed by a thread at a time */
+	public static int BATCH_SIZE = 2048;
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(AutoCoder.class);
+
+	private TextIndex.Analyzer analyzer;
+	/** Codes of the candidate items, the index in the array is the candidate identifier */
+	private String[] codes;
+	/** Identifiers of the n-grams */
+	private Map<String, Integer> features = new HashMap<>();
+	/** Inverse item frequency of each n-gram */
+	private float[] idf;
+	/** Postings of the n-grams: candidates and weights of n-gram i are between offsets i and i + 1 */
+	private int[] offsets;
+	private int[] items;
+	private float[] weights;
+
+	/** Scoring state of the current thread */
+	private final ThreadLocal<Accumulator> accumulators = ThreadLocal.withInitial(() -> new Accumulator(codes.length));
+
+	/**
+	 * Score accumulator reused for all the descriptions scored by a thread.
+	 */
+	private static class Accumulator {
+
+		float[] scores;
+		int[] touched;
+		int touchedCount = 0;
+
+		Accumulator(int size) {
+			scores = new float[size];
+			touched = new int[size];
+		}
+
+		void add(int item, float value) {
+
+			if (scores[item] == 0) touched[touchedCount++] = item;
+			scores[item] += value;
+			// An exact cancellation must not let the item be recorded twice
+			if (scores[item] == 0) scores[item] = Float.MIN_VALUE;
+		}
+
+		void reset() {
+
+			for (int index = 0; index < touchedCount; index++) scores[touched[index]] = 0;
+			touchedCount = 0;
+		}
+	}
+
+	/**
+	 * Codes a file of descriptions against a classification version read from a RDF file.
+	 *
+	 * @param args RDF file of the classification version, classification, version, language, file of descriptions, output CSV file and
+	 * optionally the number of codes returned (default 3).
+	 * @throws Exception In case of problem.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		if (args.length < 6) {
+			logger.error("Usage: AutoCoder <RDF file> <classification> <version> <language> <descriptions file> <output file> [<k>]");
+			return;
+		}
+		ClassificationIndex index = ClassificationIndex.load(args[1], args[2], args[0]);
+		AutoCoder coder = new AutoCoder(index, args[3]);
+		coder.codeFile(args[4], args[5], (args.length > 6) ? Integer.parseInt(args[6]) : 3);
+	}
+
+	/**
+	 * Prepares a coder for the most detailed items of a classification version.
+	 *
+	 * @param index The index of the classification version, with labels and notes.
+	 * @param language The language of the descriptions.
+	 */
+	public AutoCoder(ClassificationIndex index, String language) {
+
+		this(index, language, true);
+	}
+
+	/**
+	 * Prepares a coder for a classification version.
+	 *
+	 * @param index The index of the classification version, with labels and notes.
+	 * @param language The language of the descriptions.
+	 * @param leavesOnly Indicates if only the most detailed items are candidates (otherwise all items are).
+	 */
+	public AutoCoder(ClassificationIndex index, String language, boolean leavesOnly) {
+
+		analyzer = TextIndex.getAnalyzer(language);
+		Set<String> parents = new HashSet<>();
+		for (ClassificationIndex.Item item : index.getItems().values()) if (item.getParentCode() != null) parents.add(item.getParentCode());
+		List<String> candidates = new ArrayList<>();
+		for (String code : index.getItems().keySet()) if (!leavesOnly || !parents.contains(code)) candidates.add(code);
+		codes = candidates.toArray(new String[0]);
+
+		// Weighted n-grams of each candidate
+		List<Map<Integer, Float>> vectors = new ArrayList<>(codes.length);
+		List<Integer> itemCounts = new ArrayList<>();
+		for (String code : codes) {
+			Map<Integer, Float> vector = new HashMap<>();
+			ClassificationIndex.Item item = index.getItem(code);
+			addFeatures(vector, item.getLabels().get(language), LABEL_WEIGHT, itemCounts);
+			for (Map.Entry<String, String> note : item.getNotes().entrySet())
+				if (note.getKey().endsWith("@" + language) && !note.getKey().startsWith("exclusionNote@"))
+					addFeatures(vector, note.getValue(), INCLUSION_WEIGHT, itemCounts);
+			for (String ancestor = item.getParentCode(); (ancestor != null) && (index.getItem(ancestor) != null); ancestor = index.getItem(ancestor).getParentCode())
+				addFeatures(vector, index.getItem(ancestor).getLabels().get(language), ANCESTOR_WEIGHT, itemCounts);
+			// Exclusions only count against the item for n-grams which are not positive evidence for it (e.g. 'rice' in 'growing of rice')
+			Map<Integer, Float> exclusions = new HashMap<>();
+			String exclusionNote = item.getNotes().get("exclusionNote@" + language);
+			addFeatures(exclusions, exclusionNote, -EXCLUSION_WEIGHT, itemCounts);
+			for (Map.Entry<Integer, Float> exclusion : exclusions.entrySet()) vector.putIfAbsent(exclusion.getKey(), exclusion.getValue());
+			for (Integer feature : vector.keySet()) itemCounts.set(feature, itemCounts.get(feature) + 1);
+			vectors.add(vector);
+		}
+
+		int featureCount = features.size();
+		idf = new float[featureCount];
+		for (int feature = 0; feature < featureCount; feature++) idf[feature] = (float) Math.log(1.0 + (double) codes.length / Math.max(1, itemCounts.get(feature)));
+
+		// Normalization of the vectors and packing of the postings
+		offsets = new int[featureCount + 1];
+		for (Map<Integer, Float> vector : vectors) for (Integer feature : vector.keySet()) offsets[feature + 1]++;
+		for (int feature = 0; feature < featureCount; feature++) offsets[feature + 1] += offsets[feature];
+		items = new int[offsets[featureCount]];
+		weights = new float[items.length];
+		int[] positions = Arrays.copyOf(offsets, featureCount);
+		for (int candidate = 0; candidate < codes.length; candidate++) {
+			Map<Integer, Float> vector = vectors.get(candidate);
+			double norm = 0;
+			for (Map.Entry<Integer, Float> entry : vector.entrySet()) {
+				float value = entry.getValue() * idf[entry.getKey()];
+				if (value > 0) norm += value * value;
+			}
+			norm = (norm == 0) ? 1 : Math.sqrt(norm);
+			for (Map.Entry<Integer, Float> entry : vector.entrySet()) {
+				int position = positions[entry.getKey()]++;
+				items[position] = candidate;
+				weights[position] = (float) (entry.getValue() * idf[entry.getKey()] / norm);
+			}
+		}
+		logger.info("Coder prepared for " + codes.length + " items of " + index.getClassification() + " " + index.getVersion() + ": " + featureCount + " n-grams, " + items.length + " postings");
+	}
+
+	/**
+	 * Adds the weighted n-grams of a text to the vector of an item.
+	 */
+	private void addFeatures(Map<Integer, Float> vector, String text, float weight, List<Integer> itemCounts) {
+
+		if (text == null) return;
+		for (String ngram : ngrams(text)) {
+			Integer feature = features.get(ngram);
+			if (feature == null) {
+				feature = features.size();
+				features.put(ngram, feature);
+				itemCounts.add(0);
+			}
+			vector.merge(feature, weight, Float::sum);
+		}
+	}
+
+	/**
+	 * Returns the distinct n-grams of a text.
+	 */
+	private Set<String> ngrams(String text) {
+
+		List<String> terms = analyzer.analyze(text);
+		Set<String> ngrams = new LinkedHashSet<>();
+		for (int start = 0; start < terms.size(); start++) {
+			StringBuilder ngram = new StringBuilder(terms.get(start));
+			ngrams.add(ngram.toString());
+			for (int length = 2; (length <= NGRAM_SIZE) && (start + length <= terms.size()); length++) {
+				ngram.append(' ').append(terms.get(start + length - 1));
+				ngrams.add(ngram.toString());
+			}
+		}
+		return ngrams;
+	}
+
+	private static void checkResultCount(int k) {
+
+		if (k < 1) throw new IllegalArgumentException("The number of codes returned must be at least 1, got " + k);
+	}
+
+	/**
+	 * @return The number of candidate items.
+	 */
+	public int size() {
+		return codes.length;
+	}
+
+	/**
+	 * Returns the best codes for a description.
+	 *
+	 * @param description The free-text description.
+	 * @param k The maximum number of codes returned.
+	 * @return The best codes with their scores, best first (empty if no n-gram of the description is known).
+	 * @throws IllegalArgumentException If <code>k</code> is less than 1.
+	 */
+	public List<TextIndex.Hit> code(String description, int k) {
+
+		checkResultCount(k);
+		Accumulator accumulator = accumulators.get();
+		try {
+			for (String ngram : ngrams(description)) {
+				Integer feature = features.get(ngram);
+				if (feature == null) continue;
+				float queryWeight = idf[feature];
+				for (int position = offsets[feature]; position < offsets[feature + 1]; position++) accumulator.add(items[position], queryWeight * weights[position]);
+			}
+			// Bounded heap of the best candidates, worst on top
+			PriorityQueue<TextIndex.Hit> heap = new PriorityQueue<>(k + 1, (first, second) -> (first.score == second.score) ? second.code.compareTo(first.code) : Float.compare(first.score, second.score));
+			for (int index = 0; index < accumulator.touchedCount; index++) {
+				int candidate = accumulator.touched[index];
+				float score = accumulator.scores[candidate];
+				if (score <= 0) continue;
+				if (heap.size() < k) heap.add(new TextIndex.Hit(codes[candidate], score));
+				else if (score > heap.peek().score) {
+					heap.poll();
+					heap.add(new TextIndex.Hit(codes[candidate], score));
+				}
+			}
+			TextIndex.Hit[] hits = new TextIndex.Hit[heap.size()];
+			for (int index = hits.length - 1; index >= 0; index--) hits[index] = heap.poll();
+			return Arrays.asList(hits);
+		} finally {
+			accumulator.reset();
+		}
+	}
+
+	/**
+	 * Returns the best codes for a list of descriptions, processed in batches by a pool of threads.
+	 *
+	 * @param descriptions The free-text descriptions.
+	 * @param k The maximum number of codes returned for each description.
+	 * @return The best codes for each description, in the order of the descriptions.
+	 * @throws IllegalArgumentException If <code>k</code> is less than 1.
+	 */
+	public List<List<TextIndex.Hit>> code(List<String> descriptions, int k) {
+
+		checkResultCount(k);
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try {
+			return code(descriptions, k, executor);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private List<List<TextIndex.Hit>> code(List<String> descriptions, int k, ExecutorService executor) {
+
+		List<Future<List<List<TextIndex.Hit>>>> futures = new ArrayList<>();
+		for (int start = 0; start < descriptions.size(); start += BATCH_SIZE) {
+			List<String> batch = descriptions.subList(start, Math.min(start + BATCH_SIZE, descriptions.size()));
+			futures.add(executor.submit(() -> {
+				List<List<TextIndex.Hit>> results = new ArrayList<>(batch.size());
+				for (String description : batch) results.add(code(description, k));
+				return results;
+			}));
+		}
+		List<List<TextIndex.Hit>> results = new ArrayList<>(descriptions.size());
+		try {
+			for (Future<List<List<TextIndex.Hit>>> future : futures) results.addAll(future.get());
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while coding descriptions", e);
+		}
+		return results;
+	}
+
+	/**
+	 * Codes a file of descriptions (one per line) and writes the results as CSV: the description followed by the best codes and their
+	 * scores. The file is read and written in chunks, so that its size is not limited by the memory.
+	 *
+	 * @param inputFileName The name of the file of descriptions (character set detected).
+	 * @param outputFileName The name of the CSV file of results.
+	 * @param k The maximum number of codes returned for each description.
+	 * @return The number of descriptions coded.
+	 * @throws IOException In case of problem reading or writing the files.
+	 * @throws IllegalArgumentException If <code>k</code> is less than 1.
+	 */
+	public long codeFile(String inputFileName, String outputFileName, int k) throws IOException {
+
+		checkResultCount(k);
+		long count = 0;
+		long start = System.currentTimeMillis();
+		String[] header = new String[1 + 2 * k];
+		header[0] = "Description";
+		for (int rank = 1; rank <= k; rank++) {
+			header[2 * rank - 1] = "Code" + rank;
+			header[2 * rank] = "Score" + rank;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try (BufferedReader reader = TextSource.newReader(inputFileName);
+				Writer writer = Files.newBufferedWriter(Paths.get(outputFileName), StandardCharsets.UTF_8);
+				CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(header))) {
+			int chunkSize = BATCH_SIZE * Runtime.getRuntime().availableProcessors();
+			List<String> chunk = new ArrayList<>(chunkSize);
+			String line;
+			boolean more = true;
+			while (more) {
+				more = ((line = reader.readLine()) != null);
+				if (more) chunk.add(line);
+				if ((chunk.size() == chunkSize) || (!more && !chunk.isEmpty())) {
+					List<List<TextIndex.Hit>> results = code(chunk, k, executor);
+					for (int index = 0; index < chunk.size(); index++) {
+						List<Object> record = new ArrayList<>(header.length);
+						record.add(chunk.get(index));
+						for (TextIndex.Hit hit : results.get(index)) {
+							record.add(hit.getCode());
+							record.add(hit.getScore());
+						}
+						printer.printRecord(record);
+					}
+					count += chunk.size();
+					chunk.clear();
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		logger.info(count + " descriptions coded in " + (System.currentTimeMillis() - start) + " ms, results written to " + outputFileName);
+
+		return count;
+	}
+}
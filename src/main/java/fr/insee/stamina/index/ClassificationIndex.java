@@ -0,0 +1,258 @@
+package fr.insee.stamina.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDFOps;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.vocabulary.SKOS;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.insee.stamina.utils.Names;
+import fr.insee.stamina.utils.XKOS;
+
+/**
+ * The <code>ClassificationIndex</code> class is a compact index of the items of a classification version, sorted by code.
+ *
+ * The index is loaded by streaming the triples of a RDF file, without building a Jena model: only the notation, the parent, the labels
+ * and the explanatory notes of the items of the classification version are retained. Notes can be given as literals or as note resources
+ * with a <code>xkos:plainText</code>.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class ClassificationIndex {
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(ClassificationIndex.class);
+
+	/** URIs of the properties considered as explanatory notes */
+	public static final Map<String, String> NOTE_PROPERTIES = new HashMap<>();
+	static {
+		NOTE_PROPERTIES.put(SKOS.definition.getURI(), "definition");
+		NOTE_PROPERTIES.put(SKOS.scopeNote.getURI(), "scopeNote");
+		NOTE_PROPERTIES.put(SKOS.note.getURI(), "note");
+		NOTE_PROPERTIES.put(XKOS.inclusionNote.getURI(), "inclusionNote");
+		NOTE_PROPERTIES.put(XKOS.coreContentNote.getURI(), "coreContentNote");
+		NOTE_PROPERTIES.put(XKOS.additionalContentNote.getURI(), "additionalContentNote");
+		NOTE_PROPERTIES.put(XKOS.exclusionNote.getURI(), "exclusionNote");
+		NOTE_PROPERTIES.put(XKOS.caseLaw.getURI(), "caseLaw");
+	}
+
+	/**
+	 * An item of the classification version.
+	 */
+	public static class Item {
+
+		String uri;
+		String code;
+		String parentCode;
+		/** Labels by language tag */
+		SortedMap<String, String> labels = new TreeMap<>();
+		/** Notes by note key (note type and language tag, e.g. 'exclusionNote@en') */
+		SortedMap<String, String> notes = new TreeMap<>();
+
+		Item(String uri) {
+			this.uri = uri;
+		}
+
+		public String getURI() {
+			return uri;
+		}
+
+		public String getCode() {
+			return code;
+		}
+
+		public String getParentCode() {
+			return parentCode;
+		}
+
+		public SortedMap<String, String> getLabels() {
+			return Collections.unmodifiableSortedMap(labels);
+		}
+
+		public SortedMap<String, String> getNotes() {
+			return Collections.unmodifiableSortedMap(notes);
+		}
+	}
+
+	private String classification;
+	private String version;
+
+	/** Items sorted by code */
+	private SortedMap<String, Item> items = new TreeMap<>();
+
+	private ClassificationIndex(String classification, String version) {
+		this.classification = classification;
+		this.version = version;
+	}
+
+	/**
+	 * Loads the index of a classification version from a RDF file.
+	 * Only the resources whose URI is in the naming context of the classification version are indexed.
+	 *
+	 * @param classification Short name of the classification, e.g. "NACE", "ISIC", etc.
+	 * @param version Version of the classification ("4", "2.1", "2008", etc.).
+	 * @param fileName The name of the RDF file (any syntax recognized by Jena).
+	 * @return The index of the classification version.
+	 */
+	public static ClassificationIndex load(String classification, String version, String fileName) {
+
+		logger.debug("Loading index of " + Names.getCSShortName(classification, version) + " from " + fileName);
+		ClassificationIndex index = new ClassificationIndex(classification, version);
+		IndexingStream stream = new IndexingStream(Names.getCSBaseURI(classification, version));
+		RDFDataMgr.parse(stream, fileName);
+		index.build(stream);
+		logger.debug(index.size() + " items indexed");
+
+		return index;
+	}
+
+	/**
+	 * Loads the index of a classification version from a Jena model (typically during the generation of the model).
+	 * Only the resources whose URI is in the naming context of the classification version are indexed.
+	 *
+	 * @param classification Short name of the classification, e.g. "NACE", "ISIC", etc.
+	 * @param version Version of the classification ("4", "2.1", "2008", etc.).
+	 * @param model The Jena model containing the classification version.
+	 * @return The index of the classification version.
+	 */
+	public static ClassificationIndex load(String classification, String version, Model model) {
+
+		ClassificationIndex index = new ClassificationIndex(classification, version);
+		IndexingStream stream = new IndexingStream(Names.getCSBaseURI(classification, version));
+		StreamRDFOps.sendGraphToStream(model.getGraph(), stream);
+		index.build(stream);
+		logger.debug(index.size() + " items of " + Names.getCSShortName(classification, version) + " indexed from model");
+
+		return index;
+	}
+
+	/**
+	 * Resolves the references collected in the stream (parents, note resources) and sorts the items by code.
+	 */
+	private void build(IndexingStream stream) {
+
+		for (Map.Entry<String, List<String[]>> noteReference : stream.noteReferences.entrySet()) {
+			Map<String, String> texts = stream.noteTexts.get(noteReference.getKey());
+			if (texts == null) continue;
+			// Shared notes (see NoteRenderer.shareNotes) are referenced by several items
+			for (String[] target : noteReference.getValue()) { // Item URI and note type
+				Item item = stream.items.get(target[0]);
+				if (item == null) continue;
+				for (Map.Entry<String, String> text : texts.entrySet()) item.notes.put(target[1] + "@" + text.getKey(), text.getValue());
+			}
+		}
+		for (Item item : stream.items.values()) {
+			// Resources without notation or not in a scheme are not items (e.g. levels, scheme)
+			if ((item.code == null) || !stream.inScheme.contains(item.uri)) continue;
+			String parentURI = stream.parents.get(item.uri);
+			if (parentURI != null) {
+				Item parent = stream.items.get(parentURI);
+				item.parentCode = (parent == null) ? null : parent.code;
+			}
+			items.put(item.code, item);
+		}
+	}
+
+	/**
+	 * @return The short name of the classification.
+	 */
+	public String getClassification() {
+		return classification;
+	}
+
+	/**
+	 * @return The version of the classification.
+	 */
+	public String getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return The items of the classification version, sorted by code.
+	 */
+	public SortedMap<String, Item> getItems() {
+		return Collections.unmodifiableSortedMap(items);
+	}
+
+	/**
+	 * @param code An item code.
+	 * @return The item with this code, or <code>null</code> if there is none.
+	 */
+	public Item getItem(String code) {
+		return items.get(code);
+	}
+
+	/**
+	 * @return The number of items in the index.
+	 */
+	public int size() {
+		return items.size();
+	}
+
+	/**
+	 * RDF stream collecting the information about the items as the triples are parsed.
+	 */
+	private static class IndexingStream extends StreamRDFBase {
+
+		String baseURI;
+		Map<String, Item> items = new HashMap<>();
+		/** Parent URI by item URI */
+		Map<String, String> parents = new HashMap<>();
+		/** URIs of the resources having a skos:inScheme property */
+		Set<String> inScheme = new HashSet<>();
+		/** Item URIs and note types by note resource URI (a shared note is referenced by several items) */
+		Map<String, List<String[]>> noteReferences = new HashMap<>();
+		/** Note texts by language by note resource URI */
+		Map<String, Map<String, String>> noteTexts = new HashMap<>();
+
+		IndexingStream(String baseURI) {
+			this.baseURI = baseURI;
+		}
+
+		@Override
+		public void triple(Triple triple) {
+
+			Node subject = triple.getSubject();
+			if (!subject.isURI()) return;
+			String subjectURI = subject.getURI();
+			String predicateURI = triple.getPredicate().getURI();
+			Node object = triple.getObject();
+
+			// Note resources may have URIs outside of the naming context
+			if (XKOS.plainText.getURI().equals(predicateURI) && object.isLiteral()) {
+				noteTexts.computeIfAbsent(subjectURI, key -> new HashMap<>()).put(object.getLiteralLanguage(), object.getLiteralLexicalForm());
+				return;
+			}
+			if (!subjectURI.startsWith(baseURI)) return;
+
+			if (SKOS.notation.getURI().equals(predicateURI)) getItem(subjectURI).code = object.getLiteralLexicalForm();
+			else if (SKOS.prefLabel.getURI().equals(predicateURI)) getItem(subjectURI).labels.put(object.getLiteralLanguage(), object.getLiteralLexicalForm());
+			else if (SKOS.broader.getURI().equals(predicateURI) && object.isURI()) parents.put(subjectURI, object.getURI());
+			else if (SKOS.inScheme.getURI().equals(predicateURI)) inScheme.add(subjectURI);
+			else if (NOTE_PROPERTIES.containsKey(predicateURI)) {
+				String noteType = NOTE_PROPERTIES.get(predicateURI);
+				if (object.isLiteral()) getItem(subjectURI).notes.put(noteType + "@" + object.getLiteralLanguage(), object.getLiteralLexicalForm());
+				else if (object.isURI()) noteReferences.computeIfAbsent(object.getURI(), key -> new ArrayList<>()).add(new String[] {subjectURI, noteType});
+			}
+		}
+
+		private Item getItem(String uri) {
+			return items.computeIfAbsent(uri, Item::new);
+		}
+	}
+}
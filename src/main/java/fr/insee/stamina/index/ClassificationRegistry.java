@@ -0,0 +1,278 @@
+package fr.insee.stamina.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.insee.stamina.utils.BuildManifest;
+import fr.insee.stamina.utils.Names;
+
+/**
+ * The <code>ClassificationRegistry</code> class serves the classification versions produced by the model makers to long-running
+ * applications, and reloads them when new outputs are produced, without restart.
+ *
+ * The registry watches the build manifest of an output folder (see <code>BuildManifest</code>). When the generation of the manifest
+ * changes, a new snapshot is loaded in the background: outputs whose checksum did not change are taken from the current snapshot, the
+ * others are streamed into new <code>ClassificationIndex</code> structures in parallel. The checksum of each output is verified against
+ * the manifest before and after parsing: on a mismatch (e.g. a model maker rewriting the file), the current snapshot is kept and the
+ * load is retried at the next check. The new snapshot is then published with an atomic
+ * reference swap. Snapshots are immutable, so readers never see a partially loaded state: a reader working on a snapshot (see
+ * <code>read</code>) keeps a consistent view until it finishes, and the previous snapshot is released by the garbage collector once the
+ * last in-flight reader drops it.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class ClassificationRegistry {
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(ClassificationRegistry.class);
+
+	/**
+	 * An immutable set of classification versions.
+	 */
+	public static class Snapshot {
+
+		private final long generation;
+		private final long loadTime;
+		private final Map<String, ClassificationIndex> indexes;
+		/** Checksums of the outputs by classification version context */
+		private final Map<String, String> checksums;
+
+		Snapshot(long generation, Map<String, ClassificationIndex> indexes, Map<String, String> checksums) {
+			this.generation = generation;
+			this.loadTime = System.currentTimeMillis();
+			this.indexes = Collections.unmodifiableMap(indexes);
+			this.checksums = Collections.unmodifiableMap(checksums);
+		}
+
+		/**
+		 * @return The generation of the build manifest from which the snapshot was loaded.
+		 */
+		public long getGeneration() {
+			return generation;
+		}
+
+		/**
+		 * @return The time when the snapshot was loaded, in milliseconds since the epoch.
+		 */
+		public long getLoadTime() {
+			return loadTime;
+		}
+
+		/**
+		 * Returns the index of a classification version.
+		 *
+		 * @param classification Short name of the classification, e.g. "NACE", "ISIC", etc.
+		 * @param version Version of the classification.
+		 * @return The index, or <code>null</code> if the version is not in the snapshot.
+		 */
+		public ClassificationIndex getIndex(String classification, String version) {
+			return indexes.get(Names.getCSContext(classification, version));
+		}
+
+		/**
+		 * Returns an item of a classification version.
+		 *
+		 * @param classification Short name of the classification.
+		 * @param version Version of the classification.
+		 * @param code The code of the item.
+		 * @return The item, or <code>null</code> if the version or the code is unknown.
+		 */
+		public ClassificationIndex.Item getItem(String classification, String version, String code) {
+
+			ClassificationIndex index = getIndex(classification, version);
+			return (index == null) ? null : index.getItem(code);
+		}
+
+		/**
+		 * Returns the label of an item.
+		 *
+		 * @param classification Short name of the classification.
+		 * @param version Version of the classification.
+		 * @param code The code of the item.
+		 * @param language The language tag of the label.
+		 * @return The label, or <code>null</code> if the item or the label is unknown.
+		 */
+		public String getLabel(String classification, String version, String code, String language) {
+
+			ClassificationIndex.Item item = getItem(classification, version, code);
+			return (item == null) ? null : item.getLabels().get(language);
+		}
+
+		/**
+		 * @return The indexes of the snapshot by classification version context (e.g. 'isicr4').
+		 */
+		public Map<String, ClassificationIndex> getIndexes() {
+			return indexes;
+		}
+	}
+
+	private final String folder;
+	private final AtomicReference<Snapshot> current = new AtomicReference<>(new Snapshot(0, new HashMap<>(), new HashMap<>()));
+	private ScheduledExecutorService watcher = null;
+	private long manifestModified = -1;
+
+	/**
+	 * Creates a registry for the outputs of a folder. The registry is empty until <code>reload</code> or <code>start</code> is called.
+	 *
+	 * @param folder The output folder of the model makers (containing the build manifest).
+	 */
+	public ClassificationRegistry(String folder) {
+		this.folder = folder;
+	}
+
+	/**
+	 * @return The current snapshot.
+	 */
+	public Snapshot getSnapshot() {
+		return current.get();
+	}
+
+	/**
+	 * Runs a reader on the current snapshot. The reader sees the same snapshot for its whole execution, even if a new snapshot is published
+	 * in the meantime.
+	 *
+	 * @param reader The reader.
+	 * @return The result of the reader.
+	 */
+	public <T> T read(Function<Snapshot, T> reader) {
+		return reader.apply(current.get());
+	}
+
+	/**
+	 * Loads a new snapshot if the generation of the build manifest changed, and publishes it.
+	 *
+	 * @return <code>true</code> if a new snapshot was published.
+	 * @throws IOException In case of problem reading the manifest or the outputs.
+	 */
+	public synchronized boolean reload() throws IOException {
+
+		BuildManifest manifest = BuildManifest.read(folder);
+		Snapshot previous = current.get();
+		if (manifest.getGeneration() == previous.getGeneration()) return false;
+
+		long start = System.currentTimeMillis();
+		Map<String, ClassificationIndex> indexes = new LinkedHashMap<>();
+		Map<String, String> checksums = new HashMap<>();
+		Map<String, Future<ClassificationIndex>> loading = new LinkedHashMap<>();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(manifest.getEntries().size(), Runtime.getRuntime().availableProcessors())));
+		try {
+			for (BuildManifest.Entry entry : manifest.getEntries()) {
+				String context = Names.getCSContext(entry.getClassification(), entry.getVersion());
+				checksums.put(context, entry.getChecksum());
+				if ((entry.getChecksum() != null) && entry.getChecksum().equals(previous.checksums.get(context))) indexes.put(context, previous.indexes.get(context));
+				else loading.put(context, executor.submit(() -> load(entry)));
+			}
+			for (Map.Entry<String, Future<ClassificationIndex>> future : loading.entrySet()) indexes.put(future.getKey(), future.getValue().get());
+		} catch (ExecutionException e) {
+			// The current snapshot remains published
+			throw new IOException("Error loading a classification version, snapshot not replaced", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading a snapshot", e);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		current.set(new Snapshot(manifest.getGeneration(), indexes, checksums));
+		logger.info("Snapshot of generation " + manifest.getGeneration() + " published in " + (System.currentTimeMillis() - start) + " ms: "
+				+ loading.size() + " versions loaded, " + (indexes.size() - loading.size()) + " reused");
+
+		return true;
+	}
+
+	/**
+	 * Loads the index of an output, checking that the output file is the one registered in the manifest.
+	 *
+	 * @throws IOException If the checksum of the file does not match the manifest.
+	 */
+	private static ClassificationIndex load(BuildManifest.Entry entry) throws IOException {
+
+		verify(entry);
+		ClassificationIndex index = ClassificationIndex.load(entry.getClassification(), entry.getVersion(), entry.getFileName());
+		// The file may have been rewritten while it was parsed
+		verify(entry);
+
+		return index;
+	}
+
+	private static void verify(BuildManifest.Entry entry) throws IOException {
+
+		if (entry.getChecksum() == null) return;
+		if (!entry.getChecksum().equals(BuildManifest.checksum(Paths.get(entry.getFileName()))))
+			throw new IOException("Checksum of " + entry.getFileName() + " does not match the manifest, the file is probably being written");
+	}
+
+	/**
+	 * Starts watching the build manifest: the manifest is checked periodically, and a new snapshot is loaded when it changes.
+	 *
+	 * @param period The period of the checks, in seconds.
+	 * @throws IOException In case of problem loading the first snapshot.
+	 */
+	public synchronized void start(long period) throws IOException {
+
+		if (watcher != null) return;
+		reload();
+		watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "classification-registry-watcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		watcher.scheduleWithFixedDelay(this::check, period, period, TimeUnit.SECONDS);
+		logger.debug("Watching " + BuildManifest.getPath(folder) + " every " + period + " seconds");
+	}
+
+	/**
+	 * Stops watching the build manifest.
+	 */
+	public synchronized void stop() {
+
+		if (watcher == null) return;
+		watcher.shutdownNow();
+		watcher = null;
+	}
+
+	/**
+	 * Checks the modification time of the manifest and reloads if it changed. Errors are logged, the current snapshot remaining in use, and
+	 * the reload is retried at the next check.
+	 */
+	private void check() {
+
+		try {
+			Path manifestPath = BuildManifest.getPath(folder);
+			if (!Files.exists(manifestPath)) return;
+			long modified = Files.getLastModifiedTime(manifestPath).toMillis();
+			if (modified == manifestModified) return;
+			reload();
+			manifestModified = modified;
+		} catch (IOException | RuntimeException e) {
+			logger.error("Error while reloading the classification snapshot", e);
+		}
+	}
+
+	/**
+	 * @return The classification version contexts of the current snapshot.
+	 */
+	public List<String> getContexts() {
+		return new ArrayList<>(current.get().indexes.keySet());
+	}
+}
@@ -0,0 +1,239 @@
+package fr.insee.stamina.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.vocabulary.RDFS;
+import org.apache.jena.vocabulary.SKOS;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.insee.stamina.utils.XKOS;
+
+/**
+ * The <code>CodeReferenceExtractor</code> class recognizes the references to codes of a classification version in the texts of the
+ * explanatory notes (e.g. "see 01.11", "excludes ... 4620").
+ *
+ * All the codes of the version are compiled once into an Aho-Corasick automaton, turned into a complete transition table over the
+ * characters used in the codes, so that a note is scanned in a single pass whatever the number of codes. A match is retained only if it
+ * is a whole token: it must not be preceded by a letter or digit, and must not be followed by a letter, a digit or a dot followed by a
+ * digit (so that "01.1" is not found in "01.11"). Codes without any digit (e.g. ISIC sections) and codes of one character (e.g. CPC
+ * sections "0" to "9") are not searched, since they cannot be told apart from ordinary words and numbers.
+ *
+ * The references found in the notes of a model can be added to the model as explicit links between items.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class CodeReferenceExtractor {
+
+	/** Properties of the links created for the references found in each type of note */
+	public static final Map<Property, Property> LINK_PROPERTIES = new LinkedHashMap<>();
+	static {
+		LINK_PROPERTIES.put(XKOS.exclusionNote, RDFS.seeAlso);
+		LINK_PROPERTIES.put(XKOS.inclusionNote, RDFS.seeAlso);
+		LINK_PROPERTIES.put(XKOS.coreContentNote, RDFS.seeAlso);
+		LINK_PROPERTIES.put(XKOS.additionalContentNote, RDFS.seeAlso);
+		LINK_PROPERTIES.put(SKOS.scopeNote, RDFS.seeAlso);
+	}
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(CodeReferenceExtractor.class);
+
+	/** Codes searched, the index in the array is the pattern identifier */
+	private String[] codes;
+	/** Index of each character of the alphabet of the codes, other characters map to -1 */
+	private Map<Character, Integer> alphabet = new HashMap<>();
+	/** Complete transition table: transitions[state * alphabetSize + symbol] */
+	private int[] transitions;
+	private int alphabetSize;
+	/** Pattern ending at each state (longest one), -1 if none */
+	private int[] outputs;
+	/** Nearest state on the failure chain having an output, -1 if none */
+	private int[] outputLinks;
+
+	/**
+	 * Compiles the automaton for a set of codes (codes without digit or of one character are ignored).
+	 *
+	 * @param itemCodes The codes of the items of the classification version.
+	 */
+	public CodeReferenceExtractor(Collection<String> itemCodes) {
+
+		List<String> patterns = new ArrayList<>();
+		for (String code : new TreeSet<>(itemCodes)) if ((code.length() > 1) && code.chars().anyMatch(Character::isDigit)) patterns.add(code);
+		codes = patterns.toArray(new String[0]);
+		for (String code : codes) for (char character : code.toCharArray()) alphabet.putIfAbsent(character, alphabet.size());
+		alphabetSize = Math.max(1, alphabet.size());
+
+		// Trie of the codes, with transitions -1 where absent
+		List<int[]> trie = new ArrayList<>();
+		List<Integer> trieOutputs = new ArrayList<>();
+		trie.add(newState());
+		trieOutputs.add(-1);
+		for (int pattern = 0; pattern < codes.length; pattern++) {
+			int state = 0;
+			for (char character : codes[pattern].toCharArray()) {
+				int symbol = alphabet.get(character);
+				if (trie.get(state)[symbol] < 0) {
+					trie.get(state)[symbol] = trie.size();
+					trie.add(newState());
+					trieOutputs.add(-1);
+				}
+				state = trie.get(state)[symbol];
+			}
+			trieOutputs.set(state, pattern);
+		}
+
+		// Breadth-first computation of the failure links, completing the transitions
+		int stateCount = trie.size();
+		transitions = new int[stateCount * alphabetSize];
+		outputs = new int[stateCount];
+		outputLinks = new int[stateCount];
+		int[] failures = new int[stateCount];
+		int[] queue = new int[stateCount];
+		int head = 0;
+		int tail = 0;
+		for (int state = 0; state < stateCount; state++) outputs[state] = trieOutputs.get(state);
+		outputLinks[0] = -1;
+		for (int symbol = 0; symbol < alphabetSize; symbol++) {
+			int next = trie.get(0)[symbol];
+			if (next < 0) transitions[symbol] = 0;
+			else {
+				transitions[symbol] = next;
+				failures[next] = 0;
+				outputLinks[next] = -1;
+				queue[tail++] = next;
+			}
+		}
+		while (head < tail) {
+			int state = queue[head++];
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				int next = trie.get(state)[symbol];
+				int fallback = transitions[failures[state] * alphabetSize + symbol];
+				if (next < 0) transitions[state * alphabetSize + symbol] = fallback;
+				else {
+					transitions[state * alphabetSize + symbol] = next;
+					failures[next] = fallback;
+					outputLinks[next] = (outputs[fallback] >= 0) ? fallback : outputLinks[fallback];
+					queue[tail++] = next;
+				}
+			}
+		}
+		logger.debug("Automaton compiled for " + codes.length + " codes: " + stateCount + " states, alphabet of " + alphabet.size() + " characters");
+	}
+
+	private int[] newState() {
+
+		int[] state = new int[alphabetSize];
+		Arrays.fill(state, -1);
+		return state;
+	}
+
+	/**
+	 * Returns the codes referenced in a text.
+	 *
+	 * @param text The text (e.g. of an explanatory note).
+	 * @return The distinct codes found, in the order of their first occurrence.
+	 */
+	public List<String> extract(String text) {
+
+		Set<String> references = new LinkedHashSet<>();
+		for (int[] reference : find(text)) references.add(text.substring(reference[0], reference[1]));
+		return new ArrayList<>(references);
+	}
+
+	/**
+	 * Returns the positions of the code references in a text.
+	 *
+	 * @param text The text (e.g. of an explanatory note).
+	 * @return The start (inclusive) and end (exclusive) positions of the references, in the order of the text.
+	 */
+	public List<int[]> find(String text) {
+
+		List<int[]> references = new ArrayList<>();
+		if ((text == null) || (codes.length == 0)) return references;
+		int state = 0;
+		for (int position = 0; position < text.length(); position++) {
+			Integer symbol = alphabet.get(text.charAt(position));
+			if (symbol == null) {
+				state = 0;
+				continue;
+			}
+			state = transitions[state * alphabetSize + symbol];
+			// All the patterns ending here, longest first
+			for (int match = (outputs[state] >= 0) ? state : outputLinks[state]; match >= 0; match = outputLinks[match]) {
+				int start = position + 1 - codes[outputs[match]].length();
+				if (isToken(text, start, position + 1)) {
+					references.add(new int[] {start, position + 1});
+					break;
+				}
+			}
+		}
+		return references;
+	}
+
+	/**
+	 * Checks that a match is not part of a longer token.
+	 */
+	private static boolean isToken(String text, int start, int end) {
+
+		if ((start > 0) && Character.isLetterOrDigit(text.charAt(start - 1))) return false;
+		if (end < text.length()) {
+			char next = text.charAt(end);
+			if (Character.isLetterOrDigit(next)) return false;
+			if ((next == '.') && (end + 1 < text.length()) && Character.isDigit(text.charAt(end + 1))) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Adds to a model the links corresponding to the code references found in the notes of the items (see <code>LINK_PROPERTIES</code>).
+	 * Notes can be literals or note resources with a <code>xkos:plainText</code>. References of an item to itself are ignored.
+	 *
+	 * @param model The model containing the items and their notes.
+	 * @param itemURI Function returning the URI of an item given its code.
+	 * @return The number of links added.
+	 */
+	public int addLinks(Model model, Function<String, String> itemURI) {
+
+		Map<String, Resource> items = new HashMap<>();
+		Map<String, String> codesByURI = new HashMap<>();
+		for (String code : codes) {
+			String uri = itemURI.apply(code);
+			items.put(code, model.createResource(uri));
+			codesByURI.put(uri, code);
+		}
+		List<Statement> links = new ArrayList<>();
+		for (Map.Entry<Property, Property> linkProperty : LINK_PROPERTIES.entrySet()) {
+			for (Statement statement : model.listStatements(null, linkProperty.getKey(), (RDFNode) null).toList()) {
+				if (!statement.getSubject().isURIResource()) continue;
+				List<String> texts = new ArrayList<>();
+				if (statement.getObject().isLiteral()) texts.add(statement.getString());
+				else for (Statement plainText : statement.getResource().listProperties(XKOS.plainText).toList()) texts.add(plainText.getString());
+				String sourceCode = codesByURI.get(statement.getSubject().getURI());
+				for (String text : texts) for (String reference : extract(text)) {
+					if (reference.equals(sourceCode)) continue;
+					links.add(model.createStatement(statement.getSubject(), linkProperty.getValue(), items.get(reference)));
+				}
+			}
+		}
+		model.add(links);
+		logger.debug(links.size() + " links added for the code references found in the notes");
+
+		return links.size();
+	}
+}
@@ -0,0 +1,398 @@
+package fr.insee.stamina.index;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.insee.stamina.utils.ClassificationDescriptor;
+import fr.insee.stamina.utils.Names;
+
+/**
+ * The <code>CodeValidator</code> class checks codes of a classification version and gives the depth of their level.
+ *
+ * A validator is a deterministic automaton compiled once, with a complete transition table over the characters used in the codes: a code
+ * is checked in one pass, with one array lookup per character and no allocation. Two kinds of validators are available:
+ * <ul>
+ * <li>format validators, compiled from the code formats of the descriptor file (e.g. "A", "99", "99.9", "99.99" for NACE Rev. 2), which
+ * accept the well-formed codes even if they do not exist in the classification;</li>
+ * <li>code list validators, compiled from the codes of a classification version (e.g. from a <code>ClassificationIndex</code>), which
+ * accept only the existing codes.</li>
+ * </ul>
+ * Validators are immutable and can be shared between threads. Format validators are cached by classification version.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class CodeValidator {
+
+	/** Maximum number of invalid codes reported in the log by <code>validateFile</code> */
+	public static int MAX_REPORTED_CODES = 20;
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(CodeValidator.class);
+
+	/** Format validators by classification version context */
+	private static final Map<String, CodeValidator> FORMAT_VALIDATORS = new ConcurrentHashMap<>();
+
+	/** State reached when no code starts with the characters read, it loops on itself and is not final */
+	private static final int DEAD_STATE = 0;
+	private static final int START_STATE = 1;
+
+	/** Symbol of each ASCII character, -1 for the characters not used in the codes */
+	private final byte[] symbols = new byte[128];
+	private final int alphabetSize;
+	/** Complete transition table: transitions[state * alphabetSize + symbol] */
+	private final int[] transitions;
+	/** Depth of the level of the codes ending at each state, 0 if the state is not final */
+	private final byte[] levels;
+
+	/**
+	 * Builds a validator from the rows of the transition table, the symbols of the rows being the indexes in the alphabet.
+	 */
+	private CodeValidator(String alphabet, List<int[]> rows, List<Integer> rowLevels) {
+
+		Arrays.fill(symbols, (byte) -1);
+		for (int symbol = 0; symbol < alphabet.length(); symbol++) symbols[alphabet.charAt(symbol)] = (byte) symbol;
+		alphabetSize = Math.max(1, alphabet.length());
+		transitions = new int[rows.size() * alphabetSize];
+		levels = new byte[rows.size()];
+		for (int state = 0; state < rows.size(); state++) {
+			System.arraycopy(rows.get(state), 0, transitions, state * alphabetSize, alphabet.length());
+			levels[state] = (byte) Math.min(Byte.MAX_VALUE, rowLevels.get(state));
+		}
+	}
+
+	/**
+	 * Returns the format validator of a classification version, compiled from the code formats of the descriptor file.
+	 *
+	 * @param classification Short name of the classification, e.g. "NACE", "ISIC", etc.
+	 * @param version Version of the classification ("4", "2.1", "2008", etc.).
+	 * @return The validator, or <code>null</code> if the classification or its code formats are not described.
+	 */
+	public static CodeValidator forFormats(String classification, String version) {
+
+		String context = Names.getCSContext(classification, version);
+		CodeValidator validator = FORMAT_VALIDATORS.get(context);
+		if (validator != null) return validator;
+
+		ClassificationDescriptor descriptor;
+		try {
+			descriptor = Names.getDescriptor(classification);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		List<String> formats = descriptor.getCodeFormats(version);
+		if (formats.isEmpty()) return null;
+		validator = compileFormats(formats);
+		logger.debug("Format validator compiled for " + Names.getCSShortName(classification, version) + ": " + validator.getStateCount() + " states");
+		FORMAT_VALIDATORS.putIfAbsent(context, validator);
+
+		return validator;
+	}
+
+	/**
+	 * Compiles a list of code formats by subset construction: the states of the automaton are sets of positions in the formats.
+	 * The level of a code is the rank of the first format that it matches.
+	 */
+	private static CodeValidator compileFormats(List<String> formats) {
+
+		// Characters accepted at each position of each format
+		List<String[]> positions = new ArrayList<>();
+		StringBuilder alphabet = new StringBuilder();
+		for (String format : formats) {
+			String[] accepted = new String[format.length()];
+			for (int position = 0; position < format.length(); position++) {
+				char character = format.charAt(position);
+				if (character == '9') accepted[position] = "0123456789";
+				else if (character == 'A') accepted[position] = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+				else accepted[position] = String.valueOf(character);
+				for (char member : accepted[position].toCharArray()) if (alphabet.indexOf(String.valueOf(member)) < 0) alphabet.append(member);
+			}
+			positions.add(accepted);
+		}
+		int maxLength = formats.stream().mapToInt(String::length).max().orElse(0) + 1;
+
+		// Position p in format f is bit f * maxLength + p of a state
+		List<BitSet> states = new ArrayList<>();
+		Map<BitSet, Integer> stateIds = new HashMap<>();
+		List<int[]> rows = new ArrayList<>();
+		List<Integer> levels = new ArrayList<>();
+		Deque<Integer> queue = new ArrayDeque<>();
+		BitSet start = new BitSet();
+		for (int format = 0; format < formats.size(); format++) start.set(format * maxLength);
+		for (BitSet state : Arrays.asList(new BitSet(), start)) {
+			stateIds.put(state, states.size());
+			states.add(state);
+			rows.add(new int[alphabet.length()]);
+			levels.add(getFormatLevel(state, formats, maxLength));
+		}
+		queue.add(START_STATE);
+		while (!queue.isEmpty()) {
+			int stateId = queue.poll();
+			BitSet state = states.get(stateId);
+			for (int symbol = 0; symbol < alphabet.length(); symbol++) {
+				String character = String.valueOf(alphabet.charAt(symbol));
+				BitSet next = new BitSet();
+				for (int bit = state.nextSetBit(0); bit >= 0; bit = state.nextSetBit(bit + 1)) {
+					int format = bit / maxLength;
+					int position = bit % maxLength;
+					if ((position < formats.get(format).length()) && positions.get(format)[position].contains(character)) next.set(bit + 1);
+				}
+				Integer nextId = stateIds.get(next);
+				if (nextId == null) {
+					nextId = states.size();
+					stateIds.put(next, nextId);
+					states.add(next);
+					rows.add(new int[alphabet.length()]);
+					levels.add(getFormatLevel(next, formats, maxLength));
+					queue.add(nextId);
+				}
+				rows.get(stateId)[symbol] = nextId;
+			}
+		}
+
+		return new CodeValidator(alphabet.toString(), rows, levels);
+	}
+
+	/**
+	 * Returns the rank of the first format completely matched in a state, 0 if none.
+	 */
+	private static int getFormatLevel(BitSet state, List<String> formats, int maxLength) {
+
+		for (int format = 0; format < formats.size(); format++) if (state.get(format * maxLength + formats.get(format).length())) return format + 1;
+		return 0;
+	}
+
+	/**
+	 * Compiles the validator of the codes of a classification version. The levels of the codes are given by the code formats of the
+	 * descriptor file if they are described (codes not matching the formats are reported in the log), by the number of characters of the
+	 * codes (except dots) otherwise.
+	 *
+	 * @param classification Short name of the classification, e.g. "NACE", "ISIC", etc.
+	 * @param version Version of the classification ("4", "2.1", "2008", etc.).
+	 * @param codes The codes of the classification version.
+	 * @return The validator.
+	 */
+	public static CodeValidator forCodes(String classification, String version, Collection<String> codes) {
+
+		CodeValidator formats = forFormats(classification, version);
+		StringBuilder alphabet = new StringBuilder();
+		for (String code : codes) for (char character : code.toCharArray()) {
+			if (character >= 128) throw new IllegalArgumentException("Non-ASCII character in code " + code);
+			if (alphabet.indexOf(String.valueOf(character)) < 0) alphabet.append(character);
+		}
+		int[] symbolIndex = new int[128];
+		for (int symbol = 0; symbol < alphabet.length(); symbol++) symbolIndex[alphabet.charAt(symbol)] = symbol;
+
+		// Trie of the codes, missing transitions lead to the dead state
+		List<int[]> rows = new ArrayList<>();
+		List<Integer> levels = new ArrayList<>();
+		for (int state = 0; state <= START_STATE; state++) {
+			rows.add(new int[alphabet.length()]);
+			levels.add(0);
+		}
+		int malformed = 0;
+		for (String code : codes) {
+			int state = START_STATE;
+			for (char character : code.toCharArray()) {
+				int symbol = symbolIndex[character];
+				if (rows.get(state)[symbol] == DEAD_STATE) {
+					rows.get(state)[symbol] = rows.size();
+					rows.add(new int[alphabet.length()]);
+					levels.add(0);
+				}
+				state = rows.get(state)[symbol];
+			}
+			int level = (formats == null) ? 0 : formats.getLevel(code);
+			if ((level == 0) && (formats != null) && (malformed++ < MAX_REPORTED_CODES)) logger.warn("Code " + code + " does not match the code formats of " + Names.getCSShortName(classification, version));
+			if (level == 0) level = Math.max(1, code.replace(".", "").length());
+			levels.set(state, level);
+		}
+		CodeValidator validator = new CodeValidator(alphabet.toString(), rows, levels);
+		logger.debug("Code validator compiled for " + codes.size() + " codes: " + validator.getStateCount() + " states, " + malformed + " codes not matching the formats");
+
+		return validator;
+	}
+
+	/**
+	 * Compiles the validator of the codes of an indexed classification version.
+	 *
+	 * @param index The index of the classification version.
+	 * @return The validator.
+	 */
+	public static CodeValidator forIndex(ClassificationIndex index) {
+
+		return forCodes(index.getClassification(), index.getVersion(), index.getItems().keySet());
+	}
+
+	/**
+	 * Checks a code.
+	 *
+	 * @param code The code to check.
+	 * @return <code>true</code> if the code is valid.
+	 */
+	public boolean isValid(CharSequence code) {
+
+		return getLevel(code, 0, code.length()) > 0;
+	}
+
+	/**
+	 * Checks a code and returns the depth of its level.
+	 *
+	 * @param code The code to check.
+	 * @return The depth of the level of the code (the most aggregated level has depth 1), or 0 if the code is invalid.
+	 */
+	public int getLevel(CharSequence code) {
+
+		return getLevel(code, 0, code.length());
+	}
+
+	/**
+	 * Checks a code given as part of a character sequence (for example a field in a line), and returns the depth of its level.
+	 *
+	 * @param text The character sequence containing the code.
+	 * @param start The start position of the code (inclusive).
+	 * @param end The end position of the code (exclusive).
+	 * @return The depth of the level of the code, or 0 if the code is invalid.
+	 */
+	public int getLevel(CharSequence text, int start, int end) {
+
+		int state = START_STATE;
+		for (int position = start; (position < end) && (state != DEAD_STATE); position++) {
+			char character = text.charAt(position);
+			int symbol = (character < 128) ? symbols[character] : -1;
+			state = (symbol < 0) ? DEAD_STATE : transitions[state * alphabetSize + symbol];
+		}
+		return levels[state];
+	}
+
+	/**
+	 * Checks a code given as ASCII bytes (for example a field in a line of a data file), and returns the depth of its level.
+	 *
+	 * @param bytes The bytes containing the code.
+	 * @param start The start position of the code (inclusive).
+	 * @param end The end position of the code (exclusive).
+	 * @return The depth of the level of the code, or 0 if the code is invalid.
+	 */
+	public int getLevel(byte[] bytes, int start, int end) {
+
+		int state = START_STATE;
+		for (int position = start; (position < end) && (state != DEAD_STATE); position++) {
+			int symbol = (bytes[position] >= 0) ? symbols[bytes[position]] : -1;
+			state = (symbol < 0) ? DEAD_STATE : transitions[state * alphabetSize + symbol];
+		}
+		return levels[state];
+	}
+
+	/**
+	 * @return The number of states of the automaton.
+	 */
+	public int getStateCount() {
+
+		return levels.length;
+	}
+
+	/**
+	 * Checks the codes of a column of a delimited data file (e.g. microdata). The file is read as bytes, without decoding the lines, and
+	 * fields can be enclosed in double quotes (quoted delimiters are not supported). The first invalid codes are reported in the log.
+	 *
+	 * @param fileName The name of the data file.
+	 * @param column The index of the column containing the codes (base 0).
+	 * @param delimiter The field delimiter (ASCII).
+	 * @param skipHeader <code>true</code> if the first line of the file is a header.
+	 * @return The number of codes checked and the number of invalid codes.
+	 * @throws IOException In case of problem reading the file.
+	 */
+	public long[] validateFile(String fileName, int column, char delimiter, boolean skipHeader) throws IOException {
+
+		long checked = 0;
+		long invalid = 0;
+		// Physical line number, empty lines included
+		long lineNumber = 0;
+		byte[] buffer = new byte[1 << 16];
+		byte[] line = new byte[1024];
+		int length = 0;
+		boolean header = skipHeader;
+		try (InputStream input = new FileInputStream(fileName)) {
+			int count = 0;
+			while (count >= 0) {
+				count = input.read(buffer);
+				// At the end of the file, the last line may have no line terminator
+				boolean endOfFile = (count < 0);
+				for (int position = 0; endOfFile || (position < count); position++) {
+					if (!endOfFile && (buffer[position] != '\n')) {
+						if (length == line.length) line = Arrays.copyOf(line, length * 2);
+						line[length++] = buffer[position];
+						continue;
+					}
+					if (!endOfFile || (length > 0)) lineNumber++;
+					if ((length > 0) && (line[length - 1] == '\r')) length--;
+					if ((length > 0) && !header) {
+						checked++;
+						int level = getLevel(line, length, column, delimiter);
+						if ((level == 0) && (invalid++ < MAX_REPORTED_CODES)) logger.warn("Invalid code at line " + lineNumber + ": " + new String(line, 0, length, StandardCharsets.US_ASCII));
+					}
+					header = false;
+					length = 0;
+					if (endOfFile) break;
+				}
+			}
+		}
+		logger.info(checked + " codes checked in " + fileName + ", " + invalid + " invalid");
+
+		return new long[] {checked, invalid};
+	}
+
+	/**
+	 * Checks the code in a column of a delimited line, the field being possibly enclosed in double quotes.
+	 */
+	private int getLevel(byte[] line, int length, int column, char delimiter) {
+
+		int start = 0;
+		for (int field = 0; field < column; field++) {
+			while ((start < length) && (line[start] != delimiter)) start++;
+			if (start++ >= length) return 0; // Missing column
+		}
+		int end = start;
+		while ((end < length) && (line[end] != delimiter)) end++;
+		if ((end - start >= 2) && (line[start] == '"') && (line[end - 1] == '"')) return getLevel(line, start + 1, end - 1);
+
+		return getLevel(line, start, end);
+	}
+
+	/**
+	 * Checks the codes of a data file against the code formats of a classification version.
+	 * Arguments: classification, version, file name, column index (optional, default 0), delimiter (optional, default ',').
+	 *
+	 * @param args The arguments.
+	 * @throws IOException In case of problem reading the file.
+	 */
+	public static void main(String[] args) throws IOException {
+
+		CodeValidator validator = forFormats(args[0], args[1]);
+		if (validator == null) {
+			logger.error("No code formats described for " + Names.getCSShortName(args[0], args[1]));
+			return;
+		}
+		int column = (args.length > 3) ? Integer.parseInt(args[3]) : 0;
+		char delimiter = (args.length > 4) ? args[4].charAt(0) : ',';
+		long start = System.currentTimeMillis();
+		long[] counts = validator.validateFile(args[2], column, delimiter, true);
+		long duration = Math.max(1, System.currentTimeMillis() - start);
+		logger.info(counts[1] + " invalid codes out of " + counts[0] + ", " + (counts[0] * 1000 / duration) + " codes per second");
+	}
+}
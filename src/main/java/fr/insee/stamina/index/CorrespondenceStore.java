@@ -0,0 +1,507 @@
+package fr.insee.stamina.index;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFOps;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.apache.jena.vocabulary.SKOS;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.insee.stamina.utils.ModelWriter;
+import fr.insee.stamina.utils.Names;
+import fr.insee.stamina.utils.XKOS;
+
+/**
+ * The <code>CorrespondenceStore</code> class holds the concept associations of a correspondence table in compact form.
+ *
+ * Source and target codes are stored once in dictionaries and associations are pairs of integer code identifiers with flags (partial
+ * source, partial target), which takes a few bytes per association. Forward and reverse lookups use compressed sparse row indexes built
+ * on the first lookup. The RDF representation of the associations (<code>xkos:ConceptAssociation</code> with source and target concepts,
+ * label and <code>xkos:madeOf</code> link from the table) is generated only when the store is serialized.
+ *
+ * Ingestion only keeps the codes: association URIs and labels are derived when serializing, either with the default naming or with
+ * templates such as <code>"{sourceName} {source} - {targetName} {target}"</code>. Labels can be omitted, and associations can be blank
+ * nodes when no URI template is given, so that no per-association string is ever allocated when only the pairs are needed.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class CorrespondenceStore {
+
+	/** Flag indicating that the source item is only partially mapped to the target item */
+	public static final int SOURCE_PARTIAL = 1;
+	/** Flag indicating that the target item is only partially mapped to the source item */
+	public static final int TARGET_PARTIAL = 2;
+
+	/** Default template of the association labels */
+	public static final String DEFAULT_LABEL_TEMPLATE = "{sourceName} {source}{sourcePartial} - {targetName} {target}{targetPartial}";
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(CorrespondenceStore.class);
+
+	/**
+	 * Produces the label of an association.
+	 */
+	@FunctionalInterface
+	public interface Labeler {
+
+		/**
+		 * Returns the label of an association.
+		 *
+		 * @param sourceCode The code of the source item.
+		 * @param targetCode The code of the target item.
+		 * @param flags The flags of the association.
+		 * @return The label.
+		 */
+		String label(String sourceCode, String targetCode, int flags);
+	}
+
+	private String sourceClassification;
+	private String sourceVersion;
+	private String targetClassification;
+	private String targetVersion;
+	private String sourceShortName;
+	private String targetShortName;
+
+	private CodeDictionary sourceCodes = new CodeDictionary();
+	private CodeDictionary targetCodes = new CodeDictionary();
+
+	private int[] sources = new int[1024];
+	private int[] targets = new int[1024];
+	private byte[] flags = new byte[1024];
+	private int size = 0;
+
+	/** Validators of the source and target codes (null for no validation), and number of associations rejected */
+	private CodeValidator sourceValidator;
+	private CodeValidator targetValidator;
+	private int rejected = 0;
+
+	/** Notes on associations (sparse) */
+	private Map<Integer, String> notes = new HashMap<>();
+
+	/** Lookup indexes, built on demand */
+	private int[][] forwardIndex = null;
+	private int[][] reverseIndex = null;
+
+	private Labeler labeler;
+	private String labelLanguage = null;
+	/** Template of the association URIs, null for blank nodes */
+	private Template associationURITemplate;
+	private boolean withMatches = false;
+
+	/**
+	 * Constructs an empty store for the correspondence between two classification versions.
+	 * The default labels are like 'ISIC Rev.4 0111 - NACE Rev. 2 01.11', partial sides being suffixed by '(p)'.
+	 *
+	 * @param sourceClassification The source classification (e.g. 'ISIC').
+	 * @param sourceVersion The source version.
+	 * @param targetClassification The target classification.
+	 * @param targetVersion The target version.
+	 */
+	public CorrespondenceStore(String sourceClassification, String sourceVersion, String targetClassification, String targetVersion) {
+
+		this.sourceClassification = sourceClassification;
+		this.sourceVersion = sourceVersion;
+		this.targetClassification = targetClassification;
+		this.targetVersion = targetVersion;
+		this.sourceShortName = Names.getCSShortName(sourceClassification, sourceVersion);
+		this.targetShortName = Names.getCSShortName(targetClassification, targetVersion);
+		setLabelTemplate(DEFAULT_LABEL_TEMPLATE, null);
+		this.sourceValidator = CodeValidator.forFormats(sourceClassification, sourceVersion);
+		this.targetValidator = CodeValidator.forFormats(targetClassification, targetVersion);
+		this.associationURITemplate = Template.compile(Names.getCorrespondenceBaseURI(sourceClassification, sourceVersion, targetClassification, targetVersion)
+				+ Names.getAssociationPathInContext("{source}", "{target}"));
+	}
+
+	/**
+	 * Sets the label template of the associations. The template can contain the placeholders {source} and {target} (codes),
+	 * {sourceName} and {targetName} (short names of the classification versions), {sourcePartial} and {targetPartial} (replaced by
+	 * '(p)' if the side is partial, by nothing otherwise).
+	 *
+	 * @param template The label template, or <code>null</code> to omit the labels.
+	 * @param language The language tag of the labels, or <code>null</code> for plain literals.
+	 * @return This store.
+	 */
+	public CorrespondenceStore setLabelTemplate(String template, String language) {
+
+		if (template == null) return setLabeler(null, null);
+		Template compiled = Template.compile(template);
+
+		return setLabeler((sourceCode, targetCode, associationFlags) -> compiled.apply(sourceCode, targetCode, sourceShortName, targetShortName, associationFlags), language);
+	}
+
+	/**
+	 * Sets the URI template of the associations, with the same placeholders as the label template.
+	 *
+	 * @param template The URI template, or <code>null</code> to represent the associations by blank nodes.
+	 * @return This store.
+	 */
+	public CorrespondenceStore setAssociationURITemplate(String template) {
+
+		this.associationURITemplate = (template == null) ? null : Template.compile(template);
+		return this;
+	}
+
+	/**
+	 * Sets the way association labels are produced.
+	 *
+	 * @param labeler The labeler, or <code>null</code> to omit the labels.
+	 * @param language The language tag of the labels, or <code>null</code> for plain literals.
+	 * @return This store.
+	 */
+	public CorrespondenceStore setLabeler(Labeler labeler, String language) {
+
+		this.labeler = labeler;
+		this.labelLanguage = language;
+		return this;
+	}
+
+	/**
+	 * Requests the generation of SKOS mapping properties between the items when the store is serialized: <code>skos:exactMatch</code> for
+	 * associations without partial side, <code>skos:narrowMatch</code> (and <code>skos:broadMatch</code> in the other direction) when only
+	 * the source is partial, the opposite when only the target is partial. Nothing is generated when both sides are partial.
+	 *
+	 * @param withMatches <code>true</code> to generate the SKOS mapping properties.
+	 * @return This store.
+	 */
+	public CorrespondenceStore setWithMatches(boolean withMatches) {
+
+		this.withMatches = withMatches;
+		return this;
+	}
+
+	/**
+	 * Adds an association.
+	 *
+	 * @param sourceCode The code of the source item.
+	 * @param targetCode The code of the target item.
+	 * @param associationFlags The flags of the association (combination of <code>SOURCE_PARTIAL</code> and <code>TARGET_PARTIAL</code>).
+	 * @return The index of the association, or -1 if it was rejected because one of the codes is invalid (see <code>setValidators</code>).
+	 */
+	public int add(String sourceCode, String targetCode, int associationFlags) {
+
+		if (((sourceValidator != null) && !sourceValidator.isValid(sourceCode)) || ((targetValidator != null) && !targetValidator.isValid(targetCode))) {
+			if (rejected++ < CodeValidator.MAX_REPORTED_CODES) logger.warn("Association " + sourceShortName + " " + sourceCode + " - " + targetShortName + " " + targetCode + " rejected: invalid code");
+			return -1;
+		}
+		if (size == sources.length) {
+			int capacity = size * 2;
+			sources = Arrays.copyOf(sources, capacity);
+			targets = Arrays.copyOf(targets, capacity);
+			flags = Arrays.copyOf(flags, capacity);
+		}
+		sources[size] = sourceCodes.getId(sourceCode);
+		targets[size] = targetCodes.getId(targetCode);
+		flags[size] = (byte) associationFlags;
+		forwardIndex = null;
+		reverseIndex = null;
+
+		return size++;
+	}
+
+	/**
+	 * Attaches a note (serialized as <code>rdfs:comment</code>) to an association.
+	 *
+	 * @param association The index of the association.
+	 * @param note The note, in English.
+	 */
+	public void setNote(int association, String note) {
+
+		if ((note != null) && (note.length() > 0)) notes.put(association, note);
+	}
+
+	/**
+	 * Sets the validators of the codes of the associations added to the store. By default, the codes are checked against the code formats
+	 * of the classifications (see <code>CodeValidator.forFormats</code>), if they are described.
+	 *
+	 * @param sourceValidator The validator of the source codes, <code>null</code> for no validation.
+	 * @param targetValidator The validator of the target codes, <code>null</code> for no validation.
+	 * @return This store.
+	 */
+	public CorrespondenceStore setValidators(CodeValidator sourceValidator, CodeValidator targetValidator) {
+
+		this.sourceValidator = sourceValidator;
+		this.targetValidator = targetValidator;
+		return this;
+	}
+
+	/**
+	 * @return The number of associations rejected because of an invalid code.
+	 */
+	public int getRejectedCount() {
+		return rejected;
+	}
+
+	/**
+	 * @return The number of associations in the store.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public String getSourceClassification() {
+		return sourceClassification;
+	}
+
+	public String getSourceVersion() {
+		return sourceVersion;
+	}
+
+	public String getTargetClassification() {
+		return targetClassification;
+	}
+
+	public String getTargetVersion() {
+		return targetVersion;
+	}
+
+	public String getSourceCode(int association) {
+		return sourceCodes.getCode(sources[association]);
+	}
+
+	public String getTargetCode(int association) {
+		return targetCodes.getCode(targets[association]);
+	}
+
+	public int getFlags(int association) {
+		return flags[association];
+	}
+
+	/**
+	 * Returns the target codes associated to a source code, in the order of insertion.
+	 *
+	 * @param sourceCode The source code.
+	 * @return The list of target codes (empty if the source code is unknown).
+	 */
+	public List<String> getTargets(String sourceCode) {
+
+		int[] associations = getAssociationsFromSource(sourceCode);
+		List<String> codes = new ArrayList<>(associations.length);
+		for (int association : associations) codes.add(getTargetCode(association));
+		return codes;
+	}
+
+	/**
+	 * Returns the source codes associated to a target code, in the order of insertion.
+	 *
+	 * @param targetCode The target code.
+	 * @return The list of source codes (empty if the target code is unknown).
+	 */
+	public List<String> getSources(String targetCode) {
+
+		int[] associations = getAssociationsToTarget(targetCode);
+		List<String> codes = new ArrayList<>(associations.length);
+		for (int association : associations) codes.add(getSourceCode(association));
+		return codes;
+	}
+
+	/**
+	 * Returns the indexes of the associations having a given source code.
+	 *
+	 * @param sourceCode The source code.
+	 * @return The indexes of the associations, in the order of insertion.
+	 */
+	public synchronized int[] getAssociationsFromSource(String sourceCode) {
+
+		Integer id = sourceCodes.find(sourceCode);
+		if (id == null) return new int[0];
+		if (forwardIndex == null) forwardIndex = buildIndex(sources, sourceCodes.size());
+		return Arrays.copyOfRange(forwardIndex[1], forwardIndex[0][id], forwardIndex[0][id + 1]);
+	}
+
+	/**
+	 * Returns the indexes of the associations having a given target code.
+	 *
+	 * @param targetCode The target code.
+	 * @return The indexes of the associations, in the order of insertion.
+	 */
+	public synchronized int[] getAssociationsToTarget(String targetCode) {
+
+		Integer id = targetCodes.find(targetCode);
+		if (id == null) return new int[0];
+		if (reverseIndex == null) reverseIndex = buildIndex(targets, targetCodes.size());
+		return Arrays.copyOfRange(reverseIndex[1], reverseIndex[0][id], reverseIndex[0][id + 1]);
+	}
+
+	/**
+	 * Builds a compressed sparse row index: offsets by code identifier, and association indexes grouped by code identifier.
+	 */
+	private int[][] buildIndex(int[] codeIds, int numberOfCodes) {
+
+		int[] offsets = new int[numberOfCodes + 1];
+		for (int index = 0; index < size; index++) offsets[codeIds[index] + 1]++;
+		for (int id = 0; id < numberOfCodes; id++) offsets[id + 1] += offsets[id];
+		int[] positions = Arrays.copyOf(offsets, numberOfCodes);
+		int[] associations = new int[size];
+		for (int index = 0; index < size; index++) associations[positions[codeIds[index]]++] = index;
+
+		return new int[][] {offsets, associations};
+	}
+
+	/**
+	 * Sends the RDF representation of the associations to a stream (the stream is neither started nor finished).
+	 *
+	 * @param stream The RDF stream.
+	 */
+	public void stream(StreamRDF stream) {
+
+		String tableBaseURI = Names.getCorrespondenceBaseURI(sourceClassification, sourceVersion, targetClassification, targetVersion);
+		Node table = NodeFactory.createURI(tableBaseURI + "correspondence");
+		String[] sourceURIs = new String[sourceCodes.size()];
+		String[] targetURIs = new String[targetCodes.size()];
+		for (int association = 0; association < size; association++) {
+			String sourceCode = getSourceCode(association);
+			String targetCode = getTargetCode(association);
+			if (sourceURIs[sources[association]] == null) sourceURIs[sources[association]] = Names.getItemURI(sourceCode, sourceClassification, sourceVersion);
+			if (targetURIs[targets[association]] == null) targetURIs[targets[association]] = Names.getItemURI(targetCode, targetClassification, targetVersion);
+			Node source = NodeFactory.createURI(sourceURIs[sources[association]]);
+			Node target = NodeFactory.createURI(targetURIs[targets[association]]);
+			Node node = (associationURITemplate == null) ? NodeFactory.createBlankNode()
+					: NodeFactory.createURI(associationURITemplate.apply(sourceCode, targetCode, sourceShortName, targetShortName, flags[association]));
+
+			stream.triple(Triple.create(node, RDF.type.asNode(), XKOS.ConceptAssociation.asNode()));
+			if (labeler != null) {
+				String label = labeler.label(sourceCode, targetCode, flags[association]);
+				stream.triple(Triple.create(node, RDFS.label.asNode(), (labelLanguage == null) ? NodeFactory.createLiteral(label, XSDDatatype.XSDstring) : NodeFactory.createLiteral(label, labelLanguage)));
+			}
+			stream.triple(Triple.create(node, XKOS.sourceConcept.asNode(), source));
+			stream.triple(Triple.create(node, XKOS.targetConcept.asNode(), target));
+			if (notes.containsKey(association)) stream.triple(Triple.create(node, RDFS.comment.asNode(), NodeFactory.createLiteral(notes.get(association), "en")));
+			stream.triple(Triple.create(table, XKOS.madeOf.asNode(), node));
+			if (withMatches) {
+				switch (flags[association] & (SOURCE_PARTIAL | TARGET_PARTIAL)) {
+				case 0:
+					stream.triple(Triple.create(source, SKOS.exactMatch.asNode(), target));
+					stream.triple(Triple.create(target, SKOS.exactMatch.asNode(), source));
+					break;
+				case SOURCE_PARTIAL:
+					stream.triple(Triple.create(source, SKOS.narrowMatch.asNode(), target));
+					stream.triple(Triple.create(target, SKOS.broadMatch.asNode(), source));
+					break;
+				case TARGET_PARTIAL:
+					stream.triple(Triple.create(source, SKOS.broadMatch.asNode(), target));
+					stream.triple(Triple.create(target, SKOS.narrowMatch.asNode(), source));
+					break;
+				default:
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the correspondence in the current output mode: the description of the table given as a model, followed by the associations.
+	 *
+	 * @param tableModel A model containing the description of the correspondence table (prefixes are also taken from this model).
+	 * @param turtleFileName The name of the Turtle file (the extension is changed in canonical mode).
+	 * @throws IOException In case of problem writing the file.
+	 */
+	public void write(Model tableModel, String turtleFileName) throws IOException {
+
+		String fileName = ModelWriter.getFileName(turtleFileName);
+		try (OutputStream output = new FileOutputStream(fileName)) {
+			StreamRDF stream = ModelWriter.getStream(output);
+			stream.start();
+			for (Map.Entry<String, String> prefix : tableModel.getNsPrefixMap().entrySet()) stream.prefix(prefix.getKey(), prefix.getValue());
+			StreamRDFOps.sendTriplesToStream(tableModel.getGraph(), stream);
+			stream(stream);
+			stream.finish();
+		}
+		logger.info(size + " associations written to " + fileName);
+	}
+
+	/**
+	 * Template with placeholders, parsed once into literal parts and placeholder indexes.
+	 */
+	static class Template {
+
+		private static final List<String> PLACEHOLDERS = Arrays.asList("{source}", "{target}", "{sourceName}", "{targetName}", "{sourcePartial}", "{targetPartial}");
+
+		private List<String> literals = new ArrayList<>();
+		private List<Integer> placeholders = new ArrayList<>();
+
+		static Template compile(String pattern) {
+
+			Template template = new Template();
+			int start = 0;
+			int position = 0;
+			while ((position = pattern.indexOf('{', position)) >= 0) {
+				int found = -1;
+				for (int index = 0; index < PLACEHOLDERS.size(); index++) if (pattern.startsWith(PLACEHOLDERS.get(index), position)) found = index;
+				if (found < 0) {
+					position++;
+					continue;
+				}
+				template.literals.add(pattern.substring(start, position));
+				template.placeholders.add(found);
+				position += PLACEHOLDERS.get(found).length();
+				start = position;
+			}
+			template.literals.add(pattern.substring(start));
+			return template;
+		}
+
+		String apply(String sourceCode, String targetCode, String sourceName, String targetName, int associationFlags) {
+
+			StringBuilder builder = new StringBuilder();
+			for (int index = 0; index < placeholders.size(); index++) {
+				builder.append(literals.get(index));
+				switch (placeholders.get(index)) {
+				case 0: builder.append(sourceCode); break;
+				case 1: builder.append(targetCode); break;
+				case 2: builder.append(sourceName); break;
+				case 3: builder.append(targetName); break;
+				case 4: if ((associationFlags & SOURCE_PARTIAL) != 0) builder.append("(p)"); break;
+				default: if ((associationFlags & TARGET_PARTIAL) != 0) builder.append("(p)"); break;
+				}
+			}
+			return builder.append(literals.get(placeholders.size())).toString();
+		}
+	}
+
+	/**
+	 * Dictionary of codes: each distinct code gets a sequential identifier.
+	 */
+	private static class CodeDictionary {
+
+		private Map<String, Integer> ids = new HashMap<>();
+		private List<String> codes = new ArrayList<>();
+
+		int getId(String code) {
+			Integer id = ids.get(code);
+			if (id == null) {
+				id = codes.size();
+				ids.put(code, id);
+				codes.add(code);
+			}
+			return id;
+		}
+
+		Integer find(String code) {
+			return ids.get(code);
+		}
+
+		String getCode(int id) {
+			return codes.get(id);
+		}
+
+		int size() {
+			return codes.size();
+		}
+	}
+}
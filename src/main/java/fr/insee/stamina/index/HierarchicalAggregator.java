@@ -0,0 +1,191 @@
+package fr.insee.stamina.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The <code>HierarchicalAggregator</code> class rolls up values (counts, sums) from the detailed items of a classification to all the
+ * levels of the hierarchy.
+ *
+ * The aggregator is prepared once from the hierarchy: items are grouped by top concept (e.g. sections), and in each group sorted by
+ * decreasing depth, so that a single bottom-up sweep adding each item total to its parent total (given by the parent index array) produces
+ * the totals of all items. The groups are independent and are swept in parallel.
+ *
+ * Values are given as primitive arrays indexed by item identifier (see <code>getId</code>), or by detailed codes. Values can be given for
+ * items at any level: they are added to the totals of the item and of all its ancestors.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class HierarchicalAggregator {
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(HierarchicalAggregator.class);
+
+	private HierarchyClosure hierarchy;
+	/** Identifier of the parent of each item, -1 for top items */
+	private int[] parents;
+	/** Items of each top concept group, deepest first */
+	private int[][] groups;
+
+	/**
+	 * Prepares an aggregator for a hierarchy given by the codes and the parent code function of the classification.
+	 *
+	 * @param itemCodes The codes of all the items of the classification version.
+	 * @param parentCode Function returning the code of the parent of an item, or <code>null</code> for top items.
+	 */
+	public HierarchicalAggregator(Collection<String> itemCodes, Function<String, String> parentCode) {
+
+		this(new HierarchyClosure(itemCodes, parentCode));
+	}
+
+	/**
+	 * Prepares an aggregator for a hierarchy whose closure is already computed.
+	 *
+	 * @param hierarchy The closure of the hierarchy.
+	 */
+	public HierarchicalAggregator(HierarchyClosure hierarchy) {
+
+		this.hierarchy = hierarchy;
+		int size = hierarchy.size();
+		parents = new int[size];
+		Map<Integer, List<Integer>> members = new LinkedHashMap<>();
+		for (int id = 0; id < size; id++) {
+			parents[id] = hierarchy.getParentId(id);
+			members.computeIfAbsent(hierarchy.getTopId(id), key -> new ArrayList<>()).add(id);
+		}
+		groups = new int[members.size()][];
+		int index = 0;
+		for (List<Integer> group : members.values()) {
+			groups[index++] = group.stream().sorted((first, second) -> Integer.compare(hierarchy.getDepth(second), hierarchy.getDepth(first)))
+					.mapToInt(Integer::intValue).toArray();
+		}
+		logger.debug("Aggregator prepared for " + size + " items in " + groups.length + " top concept groups");
+	}
+
+	/**
+	 * @return The number of items in the hierarchy, which is the length of the value and total arrays.
+	 */
+	public int size() {
+		return parents.length;
+	}
+
+	/**
+	 * Returns the identifier of an item, which is its index in the value and total arrays.
+	 *
+	 * @param code The code of the item.
+	 * @return The identifier, or -1 if the code is unknown.
+	 */
+	public int getId(String code) {
+		return hierarchy.getId(code);
+	}
+
+	/**
+	 * Returns the code of an item.
+	 *
+	 * @param id The identifier of the item.
+	 * @return The code.
+	 */
+	public String getCode(int id) {
+		return hierarchy.getCode(id);
+	}
+
+	/**
+	 * Computes the totals of all items.
+	 *
+	 * @param values The values by item identifier (array of length <code>size()</code>).
+	 * @return The totals by item identifier.
+	 */
+	public double[] aggregate(double[] values) {
+
+		if (values.length != parents.length) throw new IllegalArgumentException("Expected " + parents.length + " values, got " + values.length);
+		double[] totals = Arrays.copyOf(values, values.length);
+		// Groups do not share any item, so they can be swept concurrently on the same array
+		IntStream.range(0, groups.length).parallel().forEach(group -> {
+			for (int id : groups[group]) if (parents[id] >= 0) totals[parents[id]] += totals[id];
+		});
+		return totals;
+	}
+
+	/**
+	 * Computes the totals of all items.
+	 *
+	 * @param values The values by item identifier (array of length <code>size()</code>).
+	 * @return The totals by item identifier.
+	 */
+	public long[] aggregate(long[] values) {
+
+		if (values.length != parents.length) throw new IllegalArgumentException("Expected " + parents.length + " values, got " + values.length);
+		long[] totals = Arrays.copyOf(values, values.length);
+		IntStream.range(0, groups.length).parallel().forEach(group -> {
+			for (int id : groups[group]) if (parents[id] >= 0) totals[parents[id]] += totals[id];
+		});
+		return totals;
+	}
+
+	/**
+	 * Computes the totals of all items from values keyed by codes (typically the codes of the most detailed level).
+	 * Values for unknown codes are ignored with a warning.
+	 *
+	 * @param codes The codes.
+	 * @param values The values, in the same order as the codes.
+	 * @return The totals by item identifier.
+	 */
+	public double[] aggregate(String[] codes, double[] values) {
+
+		if (codes.length != values.length) throw new IllegalArgumentException("Codes and values must have the same length");
+		double[] itemValues = new double[parents.length];
+		int unknown = 0;
+		for (int index = 0; index < codes.length; index++) {
+			int id = hierarchy.getId(codes[index]);
+			if (id < 0) unknown++;
+			else itemValues[id] += values[index];
+		}
+		if (unknown > 0) logger.warn(unknown + " values with unknown codes ignored");
+		return aggregate(itemValues);
+	}
+
+	/**
+	 * Computes the totals of all items from counts keyed by codes (typically the codes of the most detailed level).
+	 * Counts for unknown codes are ignored with a warning.
+	 *
+	 * @param codes The codes.
+	 * @param counts The counts, in the same order as the codes.
+	 * @return The totals by item identifier.
+	 */
+	public long[] aggregate(String[] codes, long[] counts) {
+
+		if (codes.length != counts.length) throw new IllegalArgumentException("Codes and counts must have the same length");
+		long[] itemCounts = new long[parents.length];
+		int unknown = 0;
+		for (int index = 0; index < codes.length; index++) {
+			int id = hierarchy.getId(codes[index]);
+			if (id < 0) unknown++;
+			else itemCounts[id] += counts[index];
+		}
+		if (unknown > 0) logger.warn(unknown + " counts with unknown codes ignored");
+		return aggregate(itemCounts);
+	}
+
+	/**
+	 * Converts totals by item identifier into a map keyed by codes, sorted by code.
+	 *
+	 * @param totals The totals by item identifier.
+	 * @return The totals by code.
+	 */
+	public Map<String, Double> toMap(double[] totals) {
+
+		Map<String, Double> map = new LinkedHashMap<>();
+		for (int id = 0; id < totals.length; id++) map.put(hierarchy.getCode(id), totals[id]);
+		return map;
+	}
+}
@@ -0,0 +1,264 @@
+package fr.insee.stamina.index;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.vocabulary.SKOS;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The <code>HierarchyClosure</code> class computes the transitive closure of the hierarchy of a classification version.
+ *
+ * The closure is computed from the codes of the items and the parent code function of the classification (e.g.
+ * <code>ISICModelMaker.getParentCode</code>). Codes are sorted and numbered, the depth of each item is computed once by following the
+ * parent links with memoization, and the ancestors of all items are stored in a single array (compressed sparse rows, nearest ancestor
+ * first). The closure can be added to a model as <code>skos:broaderTransitive</code> and <code>skos:narrowerTransitive</code> properties,
+ * so that roll-up queries do not need property paths, or written as a compact closure table (code, ancestor, distance).
+ *
+ * The stage is optional: it is enabled in the model makers with the <code>stamina.closure</code> system property.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class HierarchyClosure {
+
+	/** Name of the system property enabling the closure stage in the model makers */
+	public static final String CLOSURE_PROPERTY = "stamina.closure";
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(HierarchyClosure.class);
+
+	/** Codes sorted, the index in the list is the code identifier */
+	private List<String> codes;
+	private Map<String, Integer> ids = new HashMap<>();
+	/** Identifier of the parent of each item, -1 for top items */
+	private int[] parents;
+	/** Offsets of the ancestors of each item in the ancestor array (the number of ancestors is the depth) */
+	private int[] ancestorOffsets;
+	private int[] ancestors;
+	/** Descendants index, built on demand */
+	private int[][] descendantIndex = null;
+
+	/**
+	 * @return <code>true</code> if the closure stage is enabled by the system property.
+	 */
+	public static boolean isEnabled() {
+
+		return Boolean.getBoolean(CLOSURE_PROPERTY);
+	}
+
+	/**
+	 * Computes the closure of a hierarchy.
+	 *
+	 * @param itemCodes The codes of all the items of the classification version.
+	 * @param parentCode Function returning the code of the parent of an item, or <code>null</code> for top items.
+	 */
+	public HierarchyClosure(Collection<String> itemCodes, Function<String, String> parentCode) {
+
+		codes = new ArrayList<>(new TreeSet<>(itemCodes));
+		int size = codes.size();
+		for (int id = 0; id < size; id++) ids.put(codes.get(id), id);
+
+		parents = new int[size];
+		for (int id = 0; id < size; id++) {
+			String parent = parentCode.apply(codes.get(id));
+			Integer parentId = (parent == null) ? null : ids.get(parent);
+			if ((parent != null) && (parentId == null)) logger.warn("Parent " + parent + " of item " + codes.get(id) + " is not in the classification");
+			parents[id] = (parentId == null) ? -1 : parentId;
+		}
+
+		// Depths, memoized so that each parent link is followed once
+		int[] depths = new int[size];
+		Arrays.fill(depths, -1);
+		int[] path = new int[size + 1];
+		for (int id = 0; id < size; id++) {
+			int length = 0;
+			int current = id;
+			while ((current >= 0) && (depths[current] < 0)) {
+				if (length > size) throw new IllegalStateException("Cycle in the hierarchy at item " + codes.get(id));
+				path[length++] = current;
+				current = parents[current];
+			}
+			int depth = (current < 0) ? 0 : depths[current] + 1;
+			while (length > 0) depths[path[--length]] = depth++;
+		}
+
+		// Ancestors, nearest first
+		ancestorOffsets = new int[size + 1];
+		for (int id = 0; id < size; id++) ancestorOffsets[id + 1] = ancestorOffsets[id] + depths[id];
+		ancestors = new int[ancestorOffsets[size]];
+		for (int id = 0; id < size; id++) {
+			int position = ancestorOffsets[id];
+			for (int ancestor = parents[id]; ancestor >= 0; ancestor = parents[ancestor]) ancestors[position++] = ancestor;
+		}
+		logger.debug("Closure computed for " + size + " items: " + ancestors.length + " ancestor links");
+	}
+
+	/**
+	 * @return The number of items in the hierarchy.
+	 */
+	public int size() {
+		return codes.size();
+	}
+
+	/**
+	 * @return The number of (item, ancestor) pairs in the closure.
+	 */
+	public int getLinkCount() {
+		return ancestors.length;
+	}
+
+	/**
+	 * Returns the identifier of an item, i.e. its rank in the sorted list of codes.
+	 *
+	 * @param code The code of the item.
+	 * @return The identifier, or -1 if the code is unknown.
+	 */
+	public int getId(String code) {
+
+		Integer id = ids.get(code);
+		return (id == null) ? -1 : id;
+	}
+
+	/**
+	 * @return The code of the item with the given identifier.
+	 */
+	public String getCode(int id) {
+		return codes.get(id);
+	}
+
+	/**
+	 * @return The identifier of the parent of the item, -1 for top items.
+	 */
+	int getParentId(int id) {
+		return parents[id];
+	}
+
+	/**
+	 * @return The depth of the item, 0 for top items.
+	 */
+	int getDepth(int id) {
+		return ancestorOffsets[id + 1] - ancestorOffsets[id];
+	}
+
+	/**
+	 * @return The identifier of the top item above the item (the item itself for top items).
+	 */
+	int getTopId(int id) {
+		return (getDepth(id) == 0) ? id : ancestors[ancestorOffsets[id + 1] - 1];
+	}
+
+	/**
+	 * Returns the ancestors of an item, nearest first.
+	 *
+	 * @param code The code of the item.
+	 * @return The codes of the ancestors (empty for top items or unknown codes).
+	 */
+	public List<String> getAncestors(String code) {
+
+		List<String> result = new ArrayList<>();
+		Integer id = ids.get(code);
+		if (id == null) return result;
+		for (int position = ancestorOffsets[id]; position < ancestorOffsets[id + 1]; position++) result.add(codes.get(ancestors[position]));
+		return result;
+	}
+
+	/**
+	 * Returns all the descendants of an item, sorted by code.
+	 *
+	 * @param code The code of the item.
+	 * @return The codes of the descendants (empty for leaves or unknown codes).
+	 */
+	public synchronized List<String> getDescendants(String code) {
+
+		List<String> result = new ArrayList<>();
+		Integer id = ids.get(code);
+		if (id == null) return result;
+		if (descendantIndex == null) {
+			int size = codes.size();
+			int[] offsets = new int[size + 1];
+			for (int ancestor : ancestors) offsets[ancestor + 1]++;
+			for (int index = 0; index < size; index++) offsets[index + 1] += offsets[index];
+			int[] positions = Arrays.copyOf(offsets, size);
+			int[] descendants = new int[ancestors.length];
+			// Items are scanned in code order, so the descendants of each item are sorted
+			for (int item = 0; item < size; item++)
+				for (int position = ancestorOffsets[item]; position < ancestorOffsets[item + 1]; position++) descendants[positions[ancestors[position]]++] = item;
+			descendantIndex = new int[][] {offsets, descendants};
+		}
+		for (int position = descendantIndex[0][id]; position < descendantIndex[0][id + 1]; position++) result.add(codes.get(descendantIndex[1][position]));
+		return result;
+	}
+
+	/**
+	 * Checks if an item is an ancestor of another one.
+	 *
+	 * @param ancestorCode The code of the presumed ancestor.
+	 * @param code The code of the item.
+	 * @return <code>true</code> if the first item is a (direct or indirect) ancestor of the second one.
+	 */
+	public boolean isAncestor(String ancestorCode, String code) {
+
+		Integer ancestorId = ids.get(ancestorCode);
+		Integer id = ids.get(code);
+		if ((ancestorId == null) || (id == null)) return false;
+		for (int position = ancestorOffsets[id]; position < ancestorOffsets[id + 1]; position++) if (ancestors[position] == ancestorId) return true;
+		return false;
+	}
+
+	/**
+	 * Adds the closure to a model as <code>skos:broaderTransitive</code> and <code>skos:narrowerTransitive</code> properties.
+	 * Direct links are included, as <code>skos:broader</code> is a sub-property of <code>skos:broaderTransitive</code>.
+	 *
+	 * @param model The model.
+	 * @param itemURI Function returning the URI of an item given its code.
+	 */
+	public void addTo(Model model, Function<String, String> itemURI) {
+
+		Resource[] resources = new Resource[codes.size()];
+		for (int id = 0; id < codes.size(); id++) resources[id] = model.createResource(itemURI.apply(codes.get(id)));
+		List<Statement> statements = new ArrayList<>(2 * ancestors.length);
+		for (int id = 0; id < codes.size(); id++) {
+			for (int position = ancestorOffsets[id]; position < ancestorOffsets[id + 1]; position++) {
+				statements.add(model.createStatement(resources[id], SKOS.broaderTransitive, resources[ancestors[position]]));
+				statements.add(model.createStatement(resources[ancestors[position]], SKOS.narrowerTransitive, resources[id]));
+			}
+		}
+		model.add(statements);
+		logger.debug(statements.size() + " transitive hierarchical statements added to the model");
+	}
+
+	/**
+	 * Writes the closure table as CSV: one line per (item, ancestor) pair with the distance between them.
+	 *
+	 * @param fileName The name of the CSV file.
+	 * @throws IOException In case of problem writing the file.
+	 */
+	public void writeTable(String fileName) throws IOException {
+
+		try (Writer writer = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8);
+				CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader("Code", "Ancestor", "Distance"))) {
+			for (int id = 0; id < codes.size(); id++)
+				for (int position = ancestorOffsets[id]; position < ancestorOffsets[id + 1]; position++)
+					printer.printRecord(codes.get(id), codes.get(ancestors[position]), position - ancestorOffsets[id] + 1);
+		}
+		logger.info("Closure table with " + ancestors.length + " links written to " + fileName);
+	}
+}
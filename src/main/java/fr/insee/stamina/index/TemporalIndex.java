@@ -0,0 +1,427 @@
+package fr.insee.stamina.index;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.insee.stamina.utils.ExplanatoryNote;
+import fr.insee.stamina.utils.Names;
+
+/**
+ * The <code>TemporalIndex</code> class indexes the validity periods of the versions, items and notes of classifications, and the
+ * correspondences between versions, in order to answer questions such as "which code was valid at a given date, and what is its current
+ * equivalent" for time series reclassification.
+ *
+ * The validity periods of the versions are given when the versions are added. The validity of each item is the union of the periods of
+ * the versions containing its code, stored as a sorted array of disjoint intervals (consecutive versions containing the same code give a
+ * single interval), so that a lookup at a date is a binary search in a small array attached to the code. Equivalents between versions are
+ * found by following the shortest chain of registered correspondences (in either direction), and memoized by code for each pair of
+ * versions, since reclassification jobs look up the same codes many times. Notes are returned if both their own validity period and the
+ * validity of their item contain the date.
+ *
+ * The index is filled once and then only read: lookups can be made concurrently.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class TemporalIndex {
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(TemporalIndex.class);
+
+	/** End of open intervals, in epoch days */
+	private static final long OPEN = Long.MAX_VALUE;
+
+	/**
+	 * A version of a classification with its validity period (end exclusive, in epoch days).
+	 */
+	private static class VersionPeriod {
+
+		String version;
+		long start;
+		long end;
+		Set<String> codes;
+
+		VersionPeriod(String version, long start, long end, Set<String> codes) {
+			this.version = version;
+			this.start = start;
+			this.end = end;
+			this.codes = codes;
+		}
+	}
+
+	/**
+	 * The versions of a classification and the validity intervals of its codes.
+	 */
+	private static class Timeline {
+
+		/** Versions sorted by start of validity */
+		List<VersionPeriod> versions = new ArrayList<>();
+		/** Validity intervals of each code: pairs of start (inclusive) and end (exclusive) epoch days, sorted, built on demand */
+		Map<String, long[]> intervals = null;
+		Map<String, List<ExplanatoryNote>> notes = new HashMap<>();
+	}
+
+	/**
+	 * The result of the resolution of a code at a date.
+	 */
+	public static class Resolution {
+
+		String classification;
+		String code;
+		LocalDate date;
+		String version;
+		boolean valid;
+		String currentVersion;
+		List<String> currentCodes;
+
+		public String getClassification() {
+			return classification;
+		}
+
+		public String getCode() {
+			return code;
+		}
+
+		public LocalDate getDate() {
+			return date;
+		}
+
+		/**
+		 * @return The version valid at the date, or <code>null</code> if there is none.
+		 */
+		public String getVersion() {
+			return version;
+		}
+
+		/**
+		 * @return <code>true</code> if the code was valid at the date.
+		 */
+		public boolean isValid() {
+			return valid;
+		}
+
+		/**
+		 * @return The most recent version of the classification.
+		 */
+		public String getCurrentVersion() {
+			return currentVersion;
+		}
+
+		/**
+		 * @return The equivalents of the code in the current version (empty if the code was not valid or has no equivalent).
+		 */
+		public List<String> getCurrentCodes() {
+			return currentCodes;
+		}
+
+		@Override
+		public String toString() {
+			return classification + " " + code + " at " + date + ": " + (valid ? "valid in " + version : "not valid") + ", current equivalents in " + currentVersion + ": " + currentCodes;
+		}
+	}
+
+	private Map<String, Timeline> timelines = new HashMap<>();
+	/** Correspondences by source version and by target version (keys are 'classification|version') */
+	private Map<String, List<CorrespondenceStore>> correspondencesFrom = new HashMap<>();
+	private Map<String, List<CorrespondenceStore>> correspondencesTo = new HashMap<>();
+	/** Memoized equivalents by pair of versions and by code */
+	private Map<String, Map<String, List<String>>> equivalents = new ConcurrentHashMap<>();
+
+	/**
+	 * Adds a classification version.
+	 *
+	 * @param index The index of the classification version.
+	 * @param validFrom The first day of validity of the version.
+	 * @param validUntil The last day of validity of the version, or <code>null</code> if the version is still valid.
+	 */
+	public void addVersion(ClassificationIndex index, LocalDate validFrom, LocalDate validUntil) {
+
+		addVersion(index.getClassification(), index.getVersion(), index.getItems().keySet(), validFrom, validUntil);
+	}
+
+	/**
+	 * Adds a classification version.
+	 *
+	 * @param classification Short name of the classification, e.g. "NACE", "ISIC", etc.
+	 * @param version Version of the classification.
+	 * @param codes The codes of the items of the version.
+	 * @param validFrom The first day of validity of the version.
+	 * @param validUntil The last day of validity of the version, or <code>null</code> if the version is still valid.
+	 */
+	public synchronized void addVersion(String classification, String version, Collection<String> codes, LocalDate validFrom, LocalDate validUntil) {
+
+		long end = (validUntil == null) ? OPEN : validUntil.toEpochDay() + 1;
+		if (end <= validFrom.toEpochDay()) throw new IllegalArgumentException("Empty validity period for " + Names.getCSShortName(classification, version));
+		Timeline timeline = timelines.computeIfAbsent(classification, key -> new Timeline());
+		timeline.versions.add(new VersionPeriod(version, validFrom.toEpochDay(), end, new LinkedHashSet<>(codes)));
+		timeline.versions.sort((first, second) -> Long.compare(first.start, second.start));
+		timeline.intervals = null;
+		logger.debug(Names.getCSShortName(classification, version) + " added with " + codes.size() + " codes, valid from " + validFrom + ((validUntil == null) ? "" : " until " + validUntil));
+	}
+
+	/**
+	 * Adds a correspondence between two versions (of the same classification or not).
+	 *
+	 * @param store The correspondence.
+	 */
+	public synchronized void addCorrespondence(CorrespondenceStore store) {
+
+		correspondencesFrom.computeIfAbsent(key(store.getSourceClassification(), store.getSourceVersion()), key -> new ArrayList<>()).add(store);
+		correspondencesTo.computeIfAbsent(key(store.getTargetClassification(), store.getTargetVersion()), key -> new ArrayList<>()).add(store);
+		equivalents.clear();
+	}
+
+	/**
+	 * Adds an explanatory note to an item. The validity period of the note is given by its <code>validFrom</code> and <code>validUntil</code>
+	 * dates, <code>null</code> values meaning no limit.
+	 *
+	 * @param classification Short name of the classification.
+	 * @param code The code of the item.
+	 * @param note The note.
+	 */
+	public synchronized void addNote(String classification, String code, ExplanatoryNote note) {
+
+		timelines.computeIfAbsent(classification, key -> new Timeline()).notes.computeIfAbsent(code, key -> new ArrayList<>()).add(note);
+	}
+
+	/**
+	 * Returns the version of a classification valid at a date.
+	 *
+	 * @param classification Short name of the classification.
+	 * @param date The date.
+	 * @return The version valid at the date (the most recent one if periods overlap), or <code>null</code> if there is none.
+	 */
+	public String getVersion(String classification, LocalDate date) {
+
+		Timeline timeline = timelines.get(classification);
+		if (timeline == null) return null;
+		long day = date.toEpochDay();
+		for (int index = timeline.versions.size() - 1; index >= 0; index--) {
+			VersionPeriod period = timeline.versions.get(index);
+			if ((period.start <= day) && (day < period.end)) return period.version;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the most recent version of a classification.
+	 *
+	 * @param classification Short name of the classification.
+	 * @return The version with the latest start of validity, or <code>null</code> if the classification is unknown.
+	 */
+	public String getCurrentVersion(String classification) {
+
+		Timeline timeline = timelines.get(classification);
+		if ((timeline == null) || timeline.versions.isEmpty()) return null;
+		return timeline.versions.get(timeline.versions.size() - 1).version;
+	}
+
+	/**
+	 * Checks if a code was valid at a date.
+	 *
+	 * @param classification Short name of the classification.
+	 * @param code The code.
+	 * @param date The date.
+	 * @return <code>true</code> if a version valid at the date contains the code.
+	 */
+	public boolean isValid(String classification, String code, LocalDate date) {
+
+		long[] periods = getIntervals(classification).get(code);
+		if (periods == null) return false;
+		long day = date.toEpochDay();
+		// Binary search of the last interval starting on or before the day
+		int low = 0;
+		int high = periods.length / 2 - 1;
+		int found = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (periods[2 * middle] <= day) {
+				found = middle;
+				low = middle + 1;
+			} else high = middle - 1;
+		}
+		return (found >= 0) && (day < periods[2 * found + 1]);
+	}
+
+	/**
+	 * Returns the validity periods of a code.
+	 *
+	 * @param classification Short name of the classification.
+	 * @param code The code.
+	 * @return The periods as pairs of first and last days of validity (last day <code>null</code> if still valid), sorted.
+	 */
+	public List<LocalDate[]> getValidityPeriods(String classification, String code) {
+
+		List<LocalDate[]> result = new ArrayList<>();
+		long[] periods = getIntervals(classification).get(code);
+		if (periods == null) return result;
+		for (int index = 0; index < periods.length; index += 2)
+			result.add(new LocalDate[] {LocalDate.ofEpochDay(periods[index]), (periods[index + 1] == OPEN) ? null : LocalDate.ofEpochDay(periods[index + 1] - 1)});
+		return result;
+	}
+
+	/**
+	 * Returns the notes of an item valid at a date.
+	 *
+	 * @param classification Short name of the classification.
+	 * @param code The code of the item.
+	 * @param date The date.
+	 * @return The notes valid at the date (empty if the item was not valid at the date).
+	 */
+	public List<ExplanatoryNote> getNotes(String classification, String code, LocalDate date) {
+
+		List<ExplanatoryNote> result = new ArrayList<>();
+		Timeline timeline = timelines.get(classification);
+		if ((timeline == null) || !timeline.notes.containsKey(code) || !isValid(classification, code, date)) return result;
+		for (ExplanatoryNote note : timeline.notes.get(code)) {
+			if ((note.getValidFrom() != null) && date.isBefore(toLocalDate(note.getValidFrom()))) continue;
+			if ((note.getValidUntil() != null) && date.isAfter(toLocalDate(note.getValidUntil()))) continue;
+			result.add(note);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the equivalents of a code in another version, following the shortest chain of correspondences between the versions.
+	 *
+	 * @param sourceClassification Short name of the classification of the code.
+	 * @param sourceVersion Version of the classification of the code.
+	 * @param code The code.
+	 * @param targetClassification Short name of the target classification.
+	 * @param targetVersion Target version.
+	 * @return The equivalent codes (the code itself if the versions are the same, empty if there is no chain of correspondences).
+	 */
+	public List<String> getEquivalents(String sourceClassification, String sourceVersion, String code, String targetClassification, String targetVersion) {
+
+		String source = key(sourceClassification, sourceVersion);
+		String target = key(targetClassification, targetVersion);
+		if (source.equals(target)) return Collections.singletonList(code);
+		Map<String, List<String>> memo = equivalents.computeIfAbsent(source + ">" + target, key -> new ConcurrentHashMap<>());
+
+		return memo.computeIfAbsent(code, key -> {
+			List<Object[]> path = findPath(source, target);
+			if (path == null) return Collections.emptyList();
+			Set<String> codes = new LinkedHashSet<>(Collections.singleton(code));
+			for (Object[] step : path) {
+				CorrespondenceStore store = (CorrespondenceStore) step[0];
+				boolean forward = (Boolean) step[1];
+				Set<String> next = new LinkedHashSet<>();
+				for (String current : codes) next.addAll(forward ? store.getTargets(current) : store.getSources(current));
+				codes = next;
+			}
+			return Collections.unmodifiableList(new ArrayList<>(codes));
+		});
+	}
+
+	/**
+	 * Resolves a code at a date: version valid at the date, validity of the code and equivalents in the current version.
+	 *
+	 * @param classification Short name of the classification.
+	 * @param code The code.
+	 * @param date The date.
+	 * @return The resolution.
+	 */
+	public Resolution resolve(String classification, String code, LocalDate date) {
+
+		Resolution resolution = new Resolution();
+		resolution.classification = classification;
+		resolution.code = code;
+		resolution.date = date;
+		resolution.version = getVersion(classification, date);
+		resolution.valid = (resolution.version != null) && isValid(classification, code, date);
+		resolution.currentVersion = getCurrentVersion(classification);
+		resolution.currentCodes = resolution.valid ? getEquivalents(classification, resolution.version, code, classification, resolution.currentVersion) : Collections.emptyList();
+
+		return resolution;
+	}
+
+	/**
+	 * Returns the validity intervals of the codes of a classification, computing them if needed.
+	 */
+	private Map<String, long[]> getIntervals(String classification) {
+
+		Timeline timeline = timelines.get(classification);
+		if (timeline == null) return Collections.emptyMap();
+		synchronized (timeline) {
+			if (timeline.intervals != null) return timeline.intervals;
+			Map<String, List<Long>> bounds = new HashMap<>();
+			for (VersionPeriod period : timeline.versions) {
+				for (String code : period.codes) {
+					List<Long> codeBounds = bounds.computeIfAbsent(code, key -> new ArrayList<>());
+					int size = codeBounds.size();
+					// Extend the previous interval if the periods are contiguous or overlap
+					if ((size > 0) && (codeBounds.get(size - 1) >= period.start)) codeBounds.set(size - 1, Math.max(codeBounds.get(size - 1), period.end));
+					else {
+						codeBounds.add(period.start);
+						codeBounds.add(period.end);
+					}
+				}
+			}
+			Map<String, long[]> intervals = new HashMap<>();
+			for (Map.Entry<String, List<Long>> entry : bounds.entrySet())
+				intervals.put(entry.getKey(), entry.getValue().stream().mapToLong(Long::longValue).toArray());
+			timeline.intervals = intervals;
+			logger.debug("Validity intervals computed for " + intervals.size() + " codes of " + classification);
+
+			return intervals;
+		}
+	}
+
+	/**
+	 * Breadth-first search of the shortest chain of correspondences between two versions.
+	 *
+	 * @return The steps of the chain (correspondence and direction), or <code>null</code> if there is none.
+	 */
+	private synchronized List<Object[]> findPath(String source, String target) {
+
+		Map<String, Object[]> previous = new HashMap<>(); // For each reached version: previous version, correspondence and direction
+		Deque<String> queue = new ArrayDeque<>();
+		previous.put(source, null);
+		queue.add(source);
+		while (!queue.isEmpty() && !previous.containsKey(target)) {
+			String current = queue.poll();
+			for (CorrespondenceStore store : correspondencesFrom.getOrDefault(current, Collections.emptyList())) {
+				String next = key(store.getTargetClassification(), store.getTargetVersion());
+				if (previous.containsKey(next)) continue;
+				previous.put(next, new Object[] {current, store, true});
+				queue.add(next);
+			}
+			for (CorrespondenceStore store : correspondencesTo.getOrDefault(current, Collections.emptyList())) {
+				String next = key(store.getSourceClassification(), store.getSourceVersion());
+				if (previous.containsKey(next)) continue;
+				previous.put(next, new Object[] {current, store, false});
+				queue.add(next);
+			}
+		}
+		if (!previous.containsKey(target)) return null;
+		List<Object[]> path = new ArrayList<>();
+		for (Object[] step = previous.get(target); step != null; step = previous.get(step[0])) path.add(new Object[] {step[1], step[2]});
+		Collections.reverse(path);
+
+		return path;
+	}
+
+	private static String key(String classification, String version) {
+		return classification + "|" + version;
+	}
+
+	private static LocalDate toLocalDate(Date date) {
+		return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+	}
+}
@@ -0,0 +1,581 @@
+package fr.insee.stamina.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The <code>TextIndex</code> class is an inverted index over the labels and explanatory notes of a classification version, used to search
+ * codes from free text (e.g. for coding assistance).
+ *
+ * The index is built from a <code>ClassificationIndex</code>, with one sub-index per language. Texts are split into terms by an analyzer
+ * specific to the language (case and accent folding, stop words, light plural stemming). Each sub-index stores the sorted terms and, for
+ * each term, the items where it appears with a weighted frequency (occurrences in labels count more than occurrences in notes, and
+ * occurrences in exclusion notes count much less). Queries are ranked with BM25, and the last word of a query is also matched as a prefix
+ * of the words before stemming (also stored in the sub-index) so that results are available while the user types.
+ *
+ * The index can be written to a compact binary file when the model is generated, and read back by the search applications.
+ * The stage is optional: it is enabled in the model makers with the <code>stamina.textindex</code> system property.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class TextIndex {
+
+	/** Name of the system property enabling the text index stage in the model makers */
+	public static final String TEXT_INDEX_PROPERTY = "stamina.textindex";
+
+	/** Weight of an occurrence in a label */
+	public static float LABEL_WEIGHT = 3.0f;
+	/** Weight of an occurrence in an explanatory note */
+	public static float NOTE_WEIGHT = 1.0f;
+	/** Weight of an occurrence in an exclusion note */
+	public static float EXCLUSION_WEIGHT = 0.2f;
+	/** Maximum number of terms matched by the prefix of the last query term */
+	public static int MAX_PREFIX_TERMS = 64;
+
+	/** BM25 parameters */
+	private static final float K1 = 1.2f;
+	private static final float B = 0.75f;
+
+	/** Magic number and format version of the index files */
+	private static final int MAGIC = 0x53544958;
+	private static final int FORMAT_VERSION = 2;
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(TextIndex.class);
+
+	/** Analyzers by language tag */
+	public static final Map<String, Analyzer> ANALYZERS = new HashMap<>();
+	static {
+		ANALYZERS.put("en", new Analyzer(true, TextIndex::stemEnglish,
+				"a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "into", "is", "it", "nec", "not", "of", "on", "or",
+				"other", "such", "than", "that", "the", "their", "this", "to", "which", "with", "without"));
+		ANALYZERS.put("fr", new Analyzer(true, TextIndex::stemFrench,
+				"a", "au", "aux", "avec", "ce", "ces", "d", "dans", "de", "des", "du", "en", "et", "l", "la", "le", "les", "leur", "leurs",
+				"nca", "ou", "par", "pas", "pour", "qui", "sans", "sauf", "se", "sur", "un", "une"));
+		ANALYZERS.put("es", new Analyzer(true, TextIndex::stemSpanish,
+				"a", "al", "como", "con", "de", "del", "e", "el", "en", "excepto", "la", "las", "lo", "los", "ncp", "o", "otras", "otros",
+				"para", "por", "que", "sin", "su", "sus", "u", "un", "una", "y"));
+	}
+	/** Analyzer for the other languages: no accent folding (which would break scripts such as Sinhala), stop words or stemming */
+	public static final Analyzer DEFAULT_ANALYZER = new Analyzer(false, null);
+
+	/**
+	 * Splits texts into normalized terms for a language.
+	 */
+	public static class Analyzer {
+
+		private boolean foldAccents;
+		private UnaryOperator<String> stemmer;
+		private Set<String> stopWords;
+
+		/**
+		 * Creates an analyzer.
+		 *
+		 * @param foldAccents Indicates if diacritics must be removed.
+		 * @param stemmer The stemmer applied to each term, or <code>null</code> for no stemming.
+		 * @param stopWords The words (lower case, without diacritics) that are not indexed.
+		 */
+		public Analyzer(boolean foldAccents, UnaryOperator<String> stemmer, String... stopWords) {
+			this.foldAccents = foldAccents;
+			this.stemmer = stemmer;
+			this.stopWords = new HashSet<>(Arrays.asList(stopWords));
+		}
+
+		/**
+		 * Splits a text into terms.
+		 *
+		 * @param text The text.
+		 * @return The terms, in the order of the text.
+		 */
+		public List<String> analyze(String text) {
+
+			List<String> terms = new ArrayList<>();
+			for (String word : words(text)) if (!stopWords.contains(word)) terms.add(stem(word));
+			return terms;
+		}
+
+		/**
+		 * Splits a text into normalized words, without removing stop words or stemming.
+		 *
+		 * @param text The text.
+		 * @return The words, in the order of the text.
+		 */
+		List<String> words(String text) {
+
+			List<String> words = new ArrayList<>();
+			if (text == null) return words;
+			String normalized = text.toLowerCase(Locale.ROOT);
+			if (foldAccents) normalized = Normalizer.normalize(normalized, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+			int start = -1;
+			for (int position = 0; position <= normalized.length(); position++) {
+				boolean inWord = (position < normalized.length()) && isWordCharacter(normalized.charAt(position));
+				if (inWord && (start < 0)) start = position;
+				else if (!inWord && (start >= 0)) {
+					words.add(normalized.substring(start, position));
+					start = -1;
+				}
+			}
+			return words;
+		}
+
+		boolean isStopWord(String word) {
+			return stopWords.contains(word);
+		}
+
+		String stem(String word) {
+			return (stemmer == null) ? word : stemmer.apply(word);
+		}
+
+		static boolean isWordCharacter(char character) {
+
+			if (Character.isLetterOrDigit(character)) return true;
+			// Combining marks are part of the words in scripts such as Sinhala
+			int type = Character.getType(character);
+			return (type == Character.NON_SPACING_MARK) || (type == Character.COMBINING_SPACING_MARK);
+		}
+	}
+
+	/**
+	 * A search result: an item code with its score.
+	 */
+	public static class Hit {
+
+		String code;
+		float score;
+
+		Hit(String code, float score) {
+			this.code = code;
+			this.score = score;
+		}
+
+		public String getCode() {
+			return code;
+		}
+
+		public float getScore() {
+			return score;
+		}
+
+		@Override
+		public String toString() {
+			return code + " (" + score + ")";
+		}
+	}
+
+	/**
+	 * Sub-index for one language. The postings of all the terms are stored in two arrays, the postings of term i being between
+	 * offsets i and i + 1.
+	 */
+	private static class LanguageIndex {
+
+		/** Terms, sorted */
+		String[] terms;
+		/** Words of the texts before stemming, sorted, for the prefix matching of partial words */
+		String[] words;
+		/** Index of the term of each word */
+		int[] wordTerms;
+		int[] offsets;
+		int[] items;
+		float[] frequencies;
+		/** Weighted length of the texts of each item */
+		float[] lengths;
+		float averageLength;
+		/** Number of items having texts in the language */
+		int documentCount;
+
+		void computeStatistics() {
+
+			double total = 0;
+			int count = 0;
+			for (float length : lengths) if (length > 0) {
+				total += length;
+				count++;
+			}
+			averageLength = (count == 0) ? 1.0f : (float) (total / count);
+			documentCount = count;
+		}
+
+		/**
+		 * Adds the BM25 scores of a term to the scores of the items.
+		 */
+		void score(int term, float[] scores, float boost) {
+
+			int documentFrequency = offsets[term + 1] - offsets[term];
+			float idf = (float) Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+			for (int posting = offsets[term]; posting < offsets[term + 1]; posting++) {
+				float frequency = frequencies[posting];
+				float norm = K1 * (1 - B + B * lengths[items[posting]] / averageLength);
+				scores[items[posting]] += boost * idf * frequency * (K1 + 1) / (frequency + norm);
+			}
+		}
+
+		/**
+		 * Returns the index of a term, or -1 if the term is unknown.
+		 */
+		int find(String term) {
+
+			int index = Arrays.binarySearch(terms, term);
+			return (index < 0) ? -1 : index;
+		}
+	}
+
+	/**
+	 * Postings of a term during the construction of the index. Items are added in increasing order.
+	 */
+	private static class PostingsBuilder {
+
+		int[] items = new int[4];
+		float[] frequencies = new float[4];
+		int size = 0;
+
+		void add(int item, float weight) {
+
+			if ((size > 0) && (items[size - 1] == item)) {
+				frequencies[size - 1] += weight;
+				return;
+			}
+			if (size == items.length) {
+				items = Arrays.copyOf(items, 2 * size);
+				frequencies = Arrays.copyOf(frequencies, 2 * size);
+			}
+			items[size] = item;
+			frequencies[size++] = weight;
+		}
+	}
+
+	private String classification;
+	private String version;
+	/** Item codes, the index in the array is the item identifier */
+	private String[] codes;
+	private Map<String, LanguageIndex> languages = new TreeMap<>();
+
+	private TextIndex() {}
+
+	/**
+	 * @return <code>true</code> if the text index stage is enabled by the system property.
+	 */
+	public static boolean isEnabled() {
+
+		return Boolean.getBoolean(TEXT_INDEX_PROPERTY);
+	}
+
+	/**
+	 * Returns the analyzer used for a language.
+	 *
+	 * @param language The language tag.
+	 * @return The analyzer.
+	 */
+	public static Analyzer getAnalyzer(String language) {
+
+		return ANALYZERS.getOrDefault(language, DEFAULT_ANALYZER);
+	}
+
+	/**
+	 * Builds the text index of a classification version.
+	 *
+	 * @param classificationIndex The index of the items of the classification version.
+	 * @return The text index.
+	 */
+	public static TextIndex build(ClassificationIndex classificationIndex) {
+
+		TextIndex index = new TextIndex();
+		index.classification = classificationIndex.getClassification();
+		index.version = classificationIndex.getVersion();
+		index.codes = classificationIndex.getItems().keySet().toArray(new String[0]);
+
+		Map<String, Map<String, PostingsBuilder>> postings = new TreeMap<>();
+		Map<String, Map<String, String>> words = new HashMap<>();
+		Map<String, float[]> lengths = new HashMap<>();
+		int itemId = 0;
+		for (ClassificationIndex.Item item : classificationIndex.getItems().values()) {
+			for (Map.Entry<String, String> label : item.getLabels().entrySet())
+				index.addText(itemId, label.getKey(), label.getValue(), LABEL_WEIGHT, postings, words, lengths);
+			for (Map.Entry<String, String> note : item.getNotes().entrySet()) {
+				// Note keys are the note type and the language tag, e.g. 'exclusionNote@en'
+				String[] key = note.getKey().split("@", 2);
+				float weight = "exclusionNote".equals(key[0]) ? EXCLUSION_WEIGHT : NOTE_WEIGHT;
+				index.addText(itemId, (key.length > 1) ? key[1] : "", note.getValue(), weight, postings, words, lengths);
+			}
+			itemId++;
+		}
+
+		for (Map.Entry<String, Map<String, PostingsBuilder>> languagePostings : postings.entrySet()) {
+			LanguageIndex languageIndex = new LanguageIndex();
+			Map<String, PostingsBuilder> termPostings = languagePostings.getValue();
+			languageIndex.terms = termPostings.keySet().toArray(new String[0]);
+			Arrays.sort(languageIndex.terms);
+			languageIndex.offsets = new int[languageIndex.terms.length + 1];
+			for (int term = 0; term < languageIndex.terms.length; term++)
+				languageIndex.offsets[term + 1] = languageIndex.offsets[term] + termPostings.get(languageIndex.terms[term]).size;
+			languageIndex.items = new int[languageIndex.offsets[languageIndex.terms.length]];
+			languageIndex.frequencies = new float[languageIndex.items.length];
+			for (int term = 0; term < languageIndex.terms.length; term++) {
+				PostingsBuilder builder = termPostings.get(languageIndex.terms[term]);
+				System.arraycopy(builder.items, 0, languageIndex.items, languageIndex.offsets[term], builder.size);
+				System.arraycopy(builder.frequencies, 0, languageIndex.frequencies, languageIndex.offsets[term], builder.size);
+			}
+			Map<String, String> wordTerms = words.get(languagePostings.getKey());
+			languageIndex.words = wordTerms.keySet().toArray(new String[0]);
+			Arrays.sort(languageIndex.words);
+			languageIndex.wordTerms = new int[languageIndex.words.length];
+			for (int word = 0; word < languageIndex.words.length; word++) languageIndex.wordTerms[word] = languageIndex.find(wordTerms.get(languageIndex.words[word]));
+			languageIndex.lengths = lengths.get(languagePostings.getKey());
+			languageIndex.computeStatistics();
+			index.languages.put(languagePostings.getKey(), languageIndex);
+			logger.debug("Language '" + languagePostings.getKey() + "': " + languageIndex.terms.length + " terms, " + languageIndex.items.length + " postings");
+		}
+		logger.info("Text index built for " + index.codes.length + " items of " + classification(index) + " in languages " + index.languages.keySet());
+
+		return index;
+	}
+
+	private void addText(int itemId, String language, String text, float weight, Map<String, Map<String, PostingsBuilder>> postings,
+			Map<String, Map<String, String>> words, Map<String, float[]> lengths) {
+
+		Analyzer analyzer = getAnalyzer(language);
+		int termCount = 0;
+		for (String word : analyzer.words(text)) {
+			if (analyzer.isStopWord(word)) continue;
+			String term = analyzer.stem(word);
+			postings.computeIfAbsent(language, key -> new HashMap<>()).computeIfAbsent(term, key -> new PostingsBuilder()).add(itemId, weight);
+			words.computeIfAbsent(language, key -> new HashMap<>()).put(word, term);
+			termCount++;
+		}
+		if (termCount == 0) return;
+		lengths.computeIfAbsent(language, key -> new float[codes.length])[itemId] += weight * termCount;
+	}
+
+	/**
+	 * Searches the items matching a free text query.
+	 *
+	 * @param query The query.
+	 * @param language The language tag of the query.
+	 * @param maxResults The maximum number of results.
+	 * @return The matching items, best first (empty if the language is not indexed or the query has no terms).
+	 */
+	public List<Hit> search(String query, String language, int maxResults) {
+
+		LanguageIndex languageIndex = languages.get(language);
+		if ((languageIndex == null) || (query == null)) return Collections.emptyList();
+		Analyzer analyzer = getAnalyzer(language);
+		List<String> words = analyzer.words(query);
+		if (words.isEmpty()) return Collections.emptyList();
+
+		// The last word is being typed if the query does not end with a separator
+		boolean partial = Analyzer.isWordCharacter(query.charAt(query.length() - 1));
+		int completeWords = partial ? words.size() - 1 : words.size();
+		float[] scores = new float[codes.length];
+		for (String word : words.subList(0, completeWords)) {
+			if (analyzer.isStopWord(word)) continue;
+			int term = languageIndex.find(analyzer.stem(word));
+			if (term >= 0) languageIndex.score(term, scores, 1.0f);
+		}
+		if (partial) {
+			// The partial word is matched exactly and as a prefix of the words before stemming (a prefix of a plural such as 'batteri'
+			// is not a prefix of its term 'battery'), with the best match retained for each item
+			String prefix = words.get(words.size() - 1);
+			float[] best = new float[codes.length];
+			int exact = analyzer.isStopWord(prefix) ? -1 : languageIndex.find(analyzer.stem(prefix));
+			if (exact >= 0) languageIndex.score(exact, best, 1.0f);
+			int first = Arrays.binarySearch(languageIndex.words, prefix);
+			if (first < 0) first = -first - 1;
+			float[] expansion = new float[codes.length];
+			Set<Integer> expanded = new HashSet<>();
+			for (int word = first; (word < languageIndex.words.length) && (expanded.size() < MAX_PREFIX_TERMS) && languageIndex.words[word].startsWith(prefix); word++) {
+				int term = languageIndex.wordTerms[word];
+				if ((term == exact) || !expanded.add(term)) continue;
+				Arrays.fill(expansion, 0);
+				languageIndex.score(term, expansion, 0.8f);
+				for (int item = 0; item < codes.length; item++) if (expansion[item] > best[item]) best[item] = expansion[item];
+			}
+			for (int item = 0; item < codes.length; item++) scores[item] += best[item];
+		}
+
+		List<Hit> hits = new ArrayList<>();
+		for (int item = 0; item < codes.length; item++) if (scores[item] > 0) hits.add(new Hit(codes[item], scores[item]));
+		hits.sort((first, second) -> (first.score == second.score) ? first.code.compareTo(second.code) : Float.compare(second.score, first.score));
+
+		return (hits.size() > maxResults) ? new ArrayList<>(hits.subList(0, maxResults)) : hits;
+	}
+
+	/**
+	 * Writes the index to a binary file.
+	 *
+	 * @param fileName The name of the file.
+	 * @throws IOException In case of problem writing the file.
+	 */
+	public void write(String fileName) throws IOException {
+
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(Paths.get(fileName)), 1024 * 1024))) {
+			output.writeInt(MAGIC);
+			output.writeInt(FORMAT_VERSION);
+			output.writeUTF(classification);
+			output.writeUTF(version);
+			output.writeInt(codes.length);
+			for (String code : codes) output.writeUTF(code);
+			output.writeInt(languages.size());
+			for (Map.Entry<String, LanguageIndex> language : languages.entrySet()) {
+				LanguageIndex languageIndex = language.getValue();
+				output.writeUTF(language.getKey());
+				output.writeInt(languageIndex.terms.length);
+				for (int term = 0; term < languageIndex.terms.length; term++) {
+					output.writeUTF(languageIndex.terms[term]);
+					output.writeInt(languageIndex.offsets[term + 1] - languageIndex.offsets[term]);
+				}
+				output.writeInt(languageIndex.words.length);
+				for (int word = 0; word < languageIndex.words.length; word++) {
+					output.writeUTF(languageIndex.words[word]);
+					output.writeInt(languageIndex.wordTerms[word]);
+				}
+				for (int posting = 0; posting < languageIndex.items.length; posting++) {
+					output.writeInt(languageIndex.items[posting]);
+					output.writeFloat(languageIndex.frequencies[posting]);
+				}
+				for (float length : languageIndex.lengths) output.writeFloat(length);
+			}
+		}
+		logger.info("Text index of " + classification(this) + " written to " + fileName);
+	}
+
+	/**
+	 * Reads an index from a binary file.
+	 *
+	 * @param fileName The name of the file.
+	 * @return The text index.
+	 * @throws IOException In case of problem reading the file or if the file is not a text index.
+	 */
+	public static TextIndex read(String fileName) throws IOException {
+
+		TextIndex index = new TextIndex();
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(fileName)), 1024 * 1024))) {
+			if ((input.readInt() != MAGIC) || (input.readInt() != FORMAT_VERSION)) throw new IOException(fileName + " is not a text index file in the supported format");
+			index.classification = input.readUTF();
+			index.version = input.readUTF();
+			index.codes = new String[input.readInt()];
+			for (int item = 0; item < index.codes.length; item++) index.codes[item] = input.readUTF();
+			int languageCount = input.readInt();
+			for (int language = 0; language < languageCount; language++) {
+				LanguageIndex languageIndex = new LanguageIndex();
+				String languageTag = input.readUTF();
+				languageIndex.terms = new String[input.readInt()];
+				languageIndex.offsets = new int[languageIndex.terms.length + 1];
+				for (int term = 0; term < languageIndex.terms.length; term++) {
+					languageIndex.terms[term] = input.readUTF();
+					languageIndex.offsets[term + 1] = languageIndex.offsets[term] + input.readInt();
+				}
+				languageIndex.words = new String[input.readInt()];
+				languageIndex.wordTerms = new int[languageIndex.words.length];
+				for (int word = 0; word < languageIndex.words.length; word++) {
+					languageIndex.words[word] = input.readUTF();
+					languageIndex.wordTerms[word] = input.readInt();
+				}
+				languageIndex.items = new int[languageIndex.offsets[languageIndex.terms.length]];
+				languageIndex.frequencies = new float[languageIndex.items.length];
+				for (int posting = 0; posting < languageIndex.items.length; posting++) {
+					languageIndex.items[posting] = input.readInt();
+					languageIndex.frequencies[posting] = input.readFloat();
+				}
+				languageIndex.lengths = new float[index.codes.length];
+				for (int item = 0; item < index.codes.length; item++) languageIndex.lengths[item] = input.readFloat();
+				languageIndex.computeStatistics();
+				index.languages.put(languageTag, languageIndex);
+			}
+		}
+		logger.debug("Text index of " + classification(index) + " read from " + fileName);
+
+		return index;
+	}
+
+	/**
+	 * @return The short name of the classification.
+	 */
+	public String getClassification() {
+		return classification;
+	}
+
+	/**
+	 * @return The version of the classification.
+	 */
+	public String getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return The language tags of the indexed texts.
+	 */
+	public Set<String> getLanguages() {
+		return Collections.unmodifiableSet(languages.keySet());
+	}
+
+	/**
+	 * @return The number of items in the index.
+	 */
+	public int size() {
+		return codes.length;
+	}
+
+	private static String classification(TextIndex index) {
+		return index.classification + " " + index.version;
+	}
+
+	/**
+	 * Light English stemmer: removes plural endings.
+	 */
+	static String stemEnglish(String word) {
+
+		if (word.length() <= 3) return word;
+		if (word.endsWith("ies") && !word.endsWith("eies") && !word.endsWith("aies")) return word.substring(0, word.length() - 3) + "y";
+		// "-es" is a plural ending only after a sibilant (boxes, classes, matches), elsewhere the "e" belongs to the word (cases, houses)
+		if (word.endsWith("sses") || word.endsWith("xes") || word.endsWith("zzes") || word.endsWith("ches") || word.endsWith("shes")) return word.substring(0, word.length() - 2);
+		if (word.endsWith("s") && !word.endsWith("us") && !word.endsWith("ss")) return word.substring(0, word.length() - 1);
+		return word;
+	}
+
+	/**
+	 * Light French stemmer: removes plural endings.
+	 */
+	static String stemFrench(String word) {
+
+		if (word.length() <= 3) return word;
+		if (word.endsWith("aux")) return word.substring(0, word.length() - 3) + "al";
+		if (word.endsWith("s") || word.endsWith("x")) return word.substring(0, word.length() - 1);
+		return word;
+	}
+
+	/**
+	 * Light Spanish stemmer: removes plural endings.
+	 */
+	static String stemSpanish(String word) {
+
+		if (word.length() <= 3) return word;
+		if (word.endsWith("ces")) return word.substring(0, word.length() - 3) + "z";
+		if (word.endsWith("es") && !isVowel(word.charAt(word.length() - 3))) return word.substring(0, word.length() - 2);
+		if (word.endsWith("s") && isVowel(word.charAt(word.length() - 2))) return word.substring(0, word.length() - 1);
+		return word;
+	}
+
+	private static boolean isVowel(char character) {
+		return "aeiou".indexOf(character) >= 0;
+	}
+}
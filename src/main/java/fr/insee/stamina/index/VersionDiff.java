@@ -0,0 +1,315 @@
+package fr.insee.stamina.index;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeSet;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.SKOS;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.insee.stamina.utils.ChangeSet;
+import fr.insee.stamina.utils.ModelWriter;
+import fr.insee.stamina.utils.Names;
+import fr.insee.stamina.utils.XKOS;
+
+/**
+ * The <code>VersionDiff</code> class computes the differences between two versions of a classification.
+ *
+ * The two versions are loaded in <code>ClassificationIndex</code> structures sorted by code, and compared in a single merge pass on
+ * the codes. The differences reported are: codes added, codes removed, labels changed (for each language), items moved in the
+ * hierarchy and explanatory notes changed. They can be written as CSV or as RDF change sets.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class VersionDiff {
+
+	/** Default folder for the RDF files of the classification versions and for the diff outputs */
+	public static String LOCAL_FOLDER = "src/main/resources/data/";
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(VersionDiff.class);
+
+	/** Types of differences between versions */
+	public enum DiffType {
+		ADDED, REMOVED, RELABELLED, MOVED, NOTE_CHANGED
+	}
+
+	/**
+	 * A difference between the two versions for a given code.
+	 */
+	public static class Difference {
+
+		private final String code;
+		private final DiffType type;
+		/** Language of the label or key of the note concerned, <code>null</code> otherwise */
+		private final String detail;
+		private final String oldValue;
+		private final String newValue;
+
+		Difference(String code, DiffType type, String detail, String oldValue, String newValue) {
+			this.code = code;
+			this.type = type;
+			this.detail = detail;
+			this.oldValue = oldValue;
+			this.newValue = newValue;
+		}
+
+		public String getCode() {
+			return code;
+		}
+
+		public DiffType getType() {
+			return type;
+		}
+
+		public String getDetail() {
+			return detail;
+		}
+
+		public String getOldValue() {
+			return oldValue;
+		}
+
+		public String getNewValue() {
+			return newValue;
+		}
+	}
+
+	private final ClassificationIndex source;
+	private final ClassificationIndex target;
+	private final List<Difference> differences = new ArrayList<>();
+
+	/**
+	 * Main method: compares two classification versions.
+	 * The RDF files are expected in the local folder and named after the naming context of the versions (e.g. 'isicr31.ttl').
+	 *
+	 * @param args Source classification, source version, target classification, target version, e.g. "ISIC 3.1 ISIC 4", optionally followed
+	 * by the creation date of the change sets (ISO format, e.g. "2008-01-01").
+	 * @throws IOException In case of problem writing the outputs.
+	 */
+	public static void main(String[] args) throws IOException {
+
+		if (args.length < 4) {
+			logger.fatal("Usage: VersionDiff <source classification> <source version> <target classification> <target version> [<date>]");
+			return;
+		}
+		ClassificationIndex source = ClassificationIndex.load(args[0], args[1], LOCAL_FOLDER + Names.getCSContext(args[0], args[1]) + ".ttl");
+		ClassificationIndex target = ClassificationIndex.load(args[2], args[3], LOCAL_FOLDER + Names.getCSContext(args[2], args[3]) + ".ttl");
+
+		VersionDiff diff = VersionDiff.compute(source, target);
+		String baseName = LOCAL_FOLDER + "diff-" + Names.getCorrespondenceContext(args[0], args[1], args[2], args[3]);
+		diff.writeCSV(baseName + ".csv");
+		Model changeSets = diff.createChangeSetModel((args.length > 4) ? LocalDate.parse(args[4]) : null);
+		ModelWriter.write(changeSets, baseName + ".ttl");
+		changeSets.close();
+	}
+
+	private VersionDiff(ClassificationIndex source, ClassificationIndex target) {
+		this.source = source;
+		this.target = target;
+	}
+
+	/**
+	 * Computes the differences between two classification versions in a single pass on the codes sorted in both versions.
+	 *
+	 * @param source The index of the source (older) version.
+	 * @param target The index of the target (newer) version.
+	 * @return The differences between the versions.
+	 */
+	public static VersionDiff compute(ClassificationIndex source, ClassificationIndex target) {
+
+		VersionDiff diff = new VersionDiff(source, target);
+
+		Iterator<ClassificationIndex.Item> sourceItems = source.getItems().values().iterator();
+		Iterator<ClassificationIndex.Item> targetItems = target.getItems().values().iterator();
+		ClassificationIndex.Item sourceItem = sourceItems.hasNext() ? sourceItems.next() : null;
+		ClassificationIndex.Item targetItem = targetItems.hasNext() ? targetItems.next() : null;
+		while ((sourceItem != null) || (targetItem != null)) {
+			int comparison = (sourceItem == null) ? 1 : (targetItem == null) ? -1 : sourceItem.getCode().compareTo(targetItem.getCode());
+			if (comparison < 0) {
+				diff.add(sourceItem.getCode(), DiffType.REMOVED, null, sourceItem.getLabels().get("en"), null);
+				sourceItem = sourceItems.hasNext() ? sourceItems.next() : null;
+			} else if (comparison > 0) {
+				diff.add(targetItem.getCode(), DiffType.ADDED, null, null, targetItem.getLabels().get("en"));
+				targetItem = targetItems.hasNext() ? targetItems.next() : null;
+			} else {
+				diff.compareItems(sourceItem, targetItem);
+				sourceItem = sourceItems.hasNext() ? sourceItems.next() : null;
+				targetItem = targetItems.hasNext() ? targetItems.next() : null;
+			}
+		}
+		logger.debug(diff.differences.size() + " differences found between " + Names.getCSShortName(source.getClassification(), source.getVersion())
+				+ " and " + Names.getCSShortName(target.getClassification(), target.getVersion()));
+
+		return diff;
+	}
+
+	/**
+	 * Compares two items with the same code.
+	 */
+	private void compareItems(ClassificationIndex.Item sourceItem, ClassificationIndex.Item targetItem) {
+
+		String code = sourceItem.getCode();
+		if (!Objects.equals(sourceItem.getParentCode(), targetItem.getParentCode()))
+			add(code, DiffType.MOVED, null, sourceItem.getParentCode(), targetItem.getParentCode());
+		compareMaps(code, DiffType.RELABELLED, sourceItem.getLabels(), targetItem.getLabels());
+		compareMaps(code, DiffType.NOTE_CHANGED, sourceItem.getNotes(), targetItem.getNotes());
+	}
+
+	/**
+	 * Compares two maps of texts (labels by language or notes by key) and records the differences.
+	 */
+	private void compareMaps(String code, DiffType type, SortedMap<String, String> sourceMap, SortedMap<String, String> targetMap) {
+
+		TreeSet<String> keys = new TreeSet<>(sourceMap.keySet());
+		keys.addAll(targetMap.keySet());
+		for (String key : keys) {
+			String sourceValue = sourceMap.get(key);
+			String targetValue = targetMap.get(key);
+			if (!Objects.equals(sourceValue, targetValue)) add(code, type, key, sourceValue, targetValue);
+		}
+	}
+
+	private void add(String code, DiffType type, String detail, String oldValue, String newValue) {
+		differences.add(new Difference(code, type, detail, oldValue, newValue));
+	}
+
+	/**
+	 * @return The differences, sorted by code.
+	 */
+	public List<Difference> getDifferences() {
+		return Collections.unmodifiableList(differences);
+	}
+
+	/**
+	 * Writes the differences in a CSV file with columns code, type, detail, old value and new value.
+	 *
+	 * @param fileName The name of the CSV file.
+	 * @throws IOException In case of problem writing the file.
+	 */
+	public void writeCSV(String fileName) throws IOException {
+
+		try (Writer writer = new FileWriter(fileName); CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT)) {
+			printer.printRecord("Code", "Change", "Detail", "Old value", "New value");
+			for (Difference difference : differences)
+				printer.printRecord(difference.code, difference.type, difference.detail, difference.oldValue, difference.newValue);
+		}
+		logger.debug("Differences written to " + fileName);
+	}
+
+	/**
+	 * Creates a Jena model containing the differences as change sets (one change set per code).
+	 * Removals are expressed on the resources of the source version, additions on the resources of the target version.
+	 * The creation date is given by the caller (e.g. the publication date of the target version), so that the model is the same at each run.
+	 *
+	 * @param createdDate The creation date of the change sets, or <code>null</code> to omit it.
+	 * @return A Jena model containing the change sets.
+	 */
+	public Model createChangeSetModel(LocalDate createdDate) {
+
+		Model model = ModelFactory.createDefaultModel();
+		model.setNsPrefix("rdf", RDF.getURI());
+		model.setNsPrefix("skos", SKOS.getURI());
+		model.setNsPrefix("xkos", XKOS.getURI());
+		model.setNsPrefix("cs", ChangeSet.getURI());
+
+		String reason = "Changes from " + Names.getCSShortName(source.getClassification(), source.getVersion())
+				+ " to " + Names.getCSShortName(target.getClassification(), target.getVersion());
+
+		// Group the differences by code, keeping the order
+		Map<String, List<Difference>> differencesByCode = new LinkedHashMap<>();
+		for (Difference difference : differences) differencesByCode.computeIfAbsent(difference.code, key -> new ArrayList<>()).add(difference);
+
+		String changeSetBaseURI = Names.CLASSIFICATION_BASE_URI + "diff-"
+				+ Names.getCorrespondenceContext(source.getClassification(), source.getVersion(), target.getClassification(), target.getVersion()) + "/changeset/";
+		for (Map.Entry<String, List<Difference>> entry : differencesByCode.entrySet()) {
+			String code = entry.getKey();
+			ClassificationIndex.Item sourceItem = source.getItem(code);
+			ClassificationIndex.Item targetItem = target.getItem(code);
+			Resource sourceResource = (sourceItem == null) ? null : model.createResource(sourceItem.getURI());
+			Resource targetResource = (targetItem == null) ? null : model.createResource(targetItem.getURI());
+
+			Resource changeSet = model.createResource(changeSetBaseURI + code, ChangeSet.ChangeSet);
+			changeSet.addProperty(ChangeSet.subjectOfChange, (targetResource == null) ? sourceResource : targetResource);
+			changeSet.addProperty(ChangeSet.changeReason, reason);
+			if (createdDate != null) changeSet.addProperty(ChangeSet.createdDate, model.createTypedLiteral(createdDate.toString(), XSDDatatype.XSDdate));
+
+			for (Difference difference : entry.getValue()) {
+				switch (difference.type) {
+				case ADDED:
+					addStatement(changeSet, ChangeSet.addition, targetResource, SKOS.notation, model.createLiteral(code));
+					break;
+				case REMOVED:
+					addStatement(changeSet, ChangeSet.removal, sourceResource, SKOS.notation, model.createLiteral(code));
+					break;
+				case MOVED:
+					// Parents that are not indexed (e.g. outside the naming context) have no known URI
+					ClassificationIndex.Item oldParent = (difference.oldValue == null) ? null : source.getItem(difference.oldValue);
+					ClassificationIndex.Item newParent = (difference.newValue == null) ? null : target.getItem(difference.newValue);
+					if (oldParent != null) addStatement(changeSet, ChangeSet.removal, sourceResource, SKOS.broader, model.createResource(oldParent.getURI()));
+					if (newParent != null) addStatement(changeSet, ChangeSet.addition, targetResource, SKOS.broader, model.createResource(newParent.getURI()));
+					break;
+				case RELABELLED:
+					if (difference.oldValue != null) addStatement(changeSet, ChangeSet.removal, sourceResource, SKOS.prefLabel, model.createLiteral(difference.oldValue, difference.detail));
+					if (difference.newValue != null) addStatement(changeSet, ChangeSet.addition, targetResource, SKOS.prefLabel, model.createLiteral(difference.newValue, difference.detail));
+					break;
+				case NOTE_CHANGED:
+					// Note key is note type '@' language
+					String[] noteKey = difference.detail.split("@", 2);
+					Property noteProperty = getNoteProperty(noteKey[0]);
+					String language = (noteKey.length > 1) ? noteKey[1] : "";
+					if (difference.oldValue != null) addStatement(changeSet, ChangeSet.removal, sourceResource, noteProperty, model.createLiteral(difference.oldValue, language));
+					if (difference.newValue != null) addStatement(changeSet, ChangeSet.addition, targetResource, noteProperty, model.createLiteral(difference.newValue, language));
+					break;
+				}
+			}
+		}
+		return model;
+	}
+
+	/**
+	 * Adds a reified statement to a change set as an addition or a removal.
+	 */
+	private static void addStatement(Resource changeSet, Property changeProperty, Resource subject, Property predicate, RDFNode object) {
+
+		Model model = changeSet.getModel();
+		Statement statement = model.createStatement(subject, predicate, object);
+		Resource reifiedStatement = model.createResource(RDF.Statement);
+		reifiedStatement.addProperty(RDF.subject, statement.getSubject());
+		reifiedStatement.addProperty(RDF.predicate, statement.getPredicate());
+		reifiedStatement.addProperty(RDF.object, statement.getObject());
+		changeSet.addProperty(changeProperty, reifiedStatement);
+	}
+
+	/**
+	 * Returns the property corresponding to a note type.
+	 */
+	private static Property getNoteProperty(String noteType) {
+
+		for (Map.Entry<String, String> entry : ClassificationIndex.NOTE_PROPERTIES.entrySet())
+			if (entry.getValue().equals(noteType)) return ChangeSet.model.createProperty(entry.getKey());
+		return SKOS.note;
+	}
+}
@@ -1,6 +1,7 @@
 package fr.insee.stamina.mcv;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 
 public class MCVEntry {
@@ -12,6 +13,10 @@ public class MCVEntry {
 	String source;
 	URI sourceURI;
 	List<Integer> related;
+	/** Number of the main entry if this entry is a synonym, 0 otherwise */
+	int synonymOf = 0;
+	/** Labels of the entries that are synonyms of this entry */
+	List<String> synonyms = new ArrayList<>();
 
 	public MCVEntry(int number, String label) {
 		super();
@@ -19,9 +24,47 @@ public class MCVEntry {
 		this.label = label;
 	}
 
+	/**
+	 * Populates the entry with the lines of its content.
+	 * Lines starting with 'Definition:', 'Context:' or 'Source:' start the corresponding field, other lines continue the current field.
+	 *
+	 * @param chunk The lines of the entry content, excluding the title line.
+	 */
 	public void populate(List<String> chunk) {
 
-		// System.out.println("Populating entry " + this.number + " with lines " + chunk);
-		
+		StringBuilder current = null;
+		StringBuilder definitionBuilder = new StringBuilder();
+		StringBuilder contextBuilder = new StringBuilder();
+		StringBuilder sourceBuilder = new StringBuilder();
+
+		for (String line : chunk) {
+			String trimmedLine = line.trim();
+			if (trimmedLine.startsWith("Definition:")) {
+				current = definitionBuilder;
+				trimmedLine = trimmedLine.substring(11).trim();
+			} else if (trimmedLine.startsWith("Context:")) {
+				current = contextBuilder;
+				trimmedLine = trimmedLine.substring(8).trim();
+			} else if (trimmedLine.startsWith("Source:")) {
+				current = sourceBuilder;
+				trimmedLine = trimmedLine.substring(7).trim();
+			}
+			if (current == null) current = definitionBuilder; // Text before any field name is considered as definition
+			if (trimmedLine.length() == 0) continue;
+			if (current.length() > 0) current.append(' ');
+			current.append(trimmedLine);
+		}
+		if (definitionBuilder.length() > 0) definition = definitionBuilder.toString();
+		if (contextBuilder.length() > 0) context = contextBuilder.toString();
+		if (sourceBuilder.length() > 0) source = sourceBuilder.toString();
+	}
+
+	public boolean isSynonym() {
+		return synonymOf > 0;
+	}
+
+	@Override
+	public String toString() {
+		return number + ". " + label + (isSynonym() ? " (see " + synonymOf + ")" : "");
 	}
 }
@@ -0,0 +1,63 @@
+package fr.insee.stamina.mcv;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bidirectional index between the numbers and the labels of the MCV entries.
+ *
+ * Both directions are hashed, so looking up an entry by label (e.g. when resolving a synonym) is done in constant time.
+ */
+public class MCVIndex {
+
+	private final Map<Integer, String> labelsByNumber = new HashMap<>();
+
+	private final Map<String, Integer> numbersByLabel = new HashMap<>();
+
+	/**
+	 * Adds an entry to the index.
+	 *
+	 * @param number The number of the entry.
+	 * @param label The label of the entry.
+	 */
+	public void put(int number, String label) {
+		labelsByNumber.put(number, label);
+		numbersByLabel.put(label, number);
+	}
+
+	/**
+	 * Returns the label of an entry.
+	 *
+	 * @param number The number of the entry.
+	 * @return The label of the entry, or <code>null</code> if the number is not in the index.
+	 */
+	public String getLabel(int number) {
+		return labelsByNumber.get(number);
+	}
+
+	/**
+	 * Returns the number of an entry.
+	 *
+	 * @param label The label of the entry.
+	 * @return The number of the entry, or 0 if the label is not in the index.
+	 */
+	public int getNumber(String label) {
+		Integer number = numbersByLabel.get(label);
+		return (number == null) ? 0 : number;
+	}
+
+	/**
+	 * @return The set of entry numbers in the index.
+	 */
+	public Set<Integer> numbers() {
+		return labelsByNumber.keySet();
+	}
+
+	/**
+	 * @return The number of entries in the index.
+	 */
+	public int size() {
+		return labelsByNumber.size();
+	}
+}
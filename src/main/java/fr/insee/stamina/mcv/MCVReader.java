@@ -2,34 +2,47 @@ package fr.insee.stamina.mcv;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.DCTerms;
+import org.apache.jena.vocabulary.SKOS;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 
+import fr.insee.stamina.utils.DocumentSegmenter;
+import fr.insee.stamina.utils.ModelWriter;
+import fr.insee.stamina.utils.PDFTextExtractor;
+import fr.insee.stamina.utils.TextSource;
+
+/**
+ * The <code>MCVReader</code> class reads the SDMX Metadata Common Vocabulary (MCV) and creates the corresponding SKOS concept scheme.
+ *
+ * The entries are listed from the table of contents in a bidirectional label/number index, then the content is read in one pass:
+ * synonym entries ("See ...") are attached to their main entry as alternative labels.
+ */
 public class MCVReader {
 
 	static String MCV_PDF = "src/main/resources/data/04_sdmx_cog_annex_4_mcv_2009.pdf";
 	static String MCV_TXT = "src/main/resources/data/mcv.txt";
 	static String MCV_TXT_TOC = "src/main/resources/mcv-toc.txt";
-	static String PAGE_NUMBER_REGEX = "Page \\d+ of \\d+";
-	static String ENTRY_START_REGEX = "^\\d+\\.\\s.+";
+	static String MCV_TTL = "src/main/resources/data/mcv.ttl";
+	static String MCV_BASE_URI = "http://id.unece.org/codes/mcv/";
 
-	static Map<Integer, String> entryList = null;
+	static Pattern PAGE_NUMBER_PATTERN = Pattern.compile("Page \\d+ of \\d+");
+	static Pattern ENTRY_START_PATTERN = Pattern.compile("^(\\d+)\\.\\s(.+)");
+	static Pattern TOC_ENTRY_PATTERN = Pattern.compile("^(\\d+)\\. (.+?)\\s*\\.\\..*");
+
+	static MCVIndex entryIndex = null;
 	static Map<Integer, MCVEntry> mcvEntries = null;
 
 	private static Logger logger = LogManager.getLogger(MCVReader.class);
@@ -39,9 +52,11 @@ public class MCVReader {
 			//extractFromPDF();
 			readEntryList();
 			readMCVContent();
-			Model model = ModelFactory.createDefaultModel();
+			Model model = buildModel();
+			ModelWriter.write(model, MCV_TTL);
+			model.close();
 		} catch (IOException e) {
-			e.printStackTrace();
+			logger.fatal("Error executing the program", e);
 		}
 	}
 
@@ -50,79 +65,120 @@ public class MCVReader {
 	 */
 	public static void extractFromPDF() throws IOException {
 
-		PDDocument document = PDDocument.load(new File(MCV_PDF));
-		PDFTextStripper stripper = new PDFTextStripper();
+		PDFTextExtractor extractor = new PDFTextExtractor();
 
 		// Extract the main contents
-		stripper.setStartPage(15);
-		String text = stripper.getText(document);
+		String text = extractor.getText(new File(MCV_PDF), 15, -1);
 		Files.write(Paths.get(MCV_TXT), text.getBytes());
 
 		// Extract the table of contents
-		stripper.setStartPage(3);
-		stripper.setEndPage(14);
-		text = stripper.getText(document);
+		text = extractor.getText(new File(MCV_PDF), 3, 14);
 		Files.write(Paths.get(MCV_TXT_TOC), text.getBytes());
-
-		document.close();
 	}
 
 	/**
-	 * Reads the table of contents extracted from the PDF file to create the list of all entries.
+	 * Reads the table of contents extracted from the PDF file to create the index of all entries.
 	 */
 	public static void readEntryList() throws IOException {
 
-		entryList = new HashMap<Integer, String>();
+		entryIndex = new MCVIndex();
 
-		List<String> tocLines = Files.readAllLines(Paths.get(MCV_TXT_TOC), Charset.forName("UTF-8"));
-
-		for (String line : tocLines) {
-			if ((line.length() > 0) && (Character.isDigit(line.charAt(0)))) {
-				String entryLine = line.substring(0, line.indexOf("..")).trim();
-				String[] entryArray = entryLine.split("\\. ");
-				entryList.put(Integer.parseInt(entryArray[0]), entryArray[1]);
+		try (BufferedReader tocInput = TextSource.newReader(MCV_TXT_TOC)) {
+			String line;
+			while ((line = tocInput.readLine()) != null) {
+				Matcher matcher = TOC_ENTRY_PATTERN.matcher(line);
+				if (matcher.matches()) entryIndex.put(Integer.parseInt(matcher.group(1)), matcher.group(2).trim());
 			}
 		}
-		// for (int entryNumber : entryList.keySet()) System.out.println(entryNumber + "\t'" + entryList.get(entryNumber) + "'");
-		tocLines = null;
+		logger.debug(entryIndex.size() + " entries read in the table of contents");
 	}
 
+	/**
+	 * Reads the content of the MCV and creates the entries, resolving the synonyms.
+	 */
 	public static void readMCVContent() throws IOException {
 
-		BufferedReader mcvInput  = new BufferedReader(new InputStreamReader(new FileInputStream(new File(MCV_TXT))));
-		String mcvLine = null;
-		List<String> currentChunk = new ArrayList<String>();
-		MCVEntry currentEntry = null;
-
-		while ((mcvLine = mcvInput.readLine()) != null) {
-
-			String mcvTrimmedLine = mcvLine.trim();
-			if ((mcvTrimmedLine.length() == 0) || (mcvTrimmedLine.matches(PAGE_NUMBER_REGEX))) continue;
-
-			int entryNumber = entryStart(mcvLine);
-			if (entryNumber > 0) {
-				// Capture synonym entries
-				int mainEntry = synomymOf(currentChunk);
-				if (mainEntry > 0) {
-					// Do something
-					continue;
-				}
-				// Treat current entry
-				if (currentEntry != null) currentEntry.populate(currentChunk);
-				currentEntry = new MCVEntry(entryNumber, entryList.get(entryNumber));
-				currentChunk = new ArrayList<String>();
-			}
-			else currentChunk.add(mcvLine);
+		mcvEntries = new TreeMap<>();
+
+		try (BufferedReader mcvInput = TextSource.newReader(MCV_TXT)) {
+			DocumentSegmenter.segmentLines(mcvInput, MCVReader::startEntry, MCVReader::skip,
+					segment -> completeEntry(segment.getHeader(), segment.getBody()));
+		}
+
+		// Attach synonyms to their main entries
+		for (MCVEntry entry : mcvEntries.values()) {
+			if (!entry.isSynonym()) continue;
+			MCVEntry mainEntry = mcvEntries.get(entry.synonymOf);
+			if (mainEntry != null) mainEntry.synonyms.add(entry.label);
+		}
+		logger.debug(mcvEntries.size() + " entries read in the MCV content");
+	}
+
+	/**
+	 * Returns a new entry if the line is the title of an entry, <code>null</code> otherwise.
+	 */
+	private static MCVEntry startEntry(String line) {
+
+		int entryNumber = entryStart(line);
+		return (entryNumber > 0) ? new MCVEntry(entryNumber, entryIndex.getLabel(entryNumber)) : null;
+	}
+
+	/**
+	 * Empty lines and page numbers are ignored.
+	 */
+	private static boolean skip(String line) {
+
+		String trimmedLine = line.trim();
+		return (trimmedLine.length() == 0) || (PAGE_NUMBER_PATTERN.matcher(trimmedLine).matches());
+	}
+
+	/**
+	 * Completes an entry with its content and records it: synonym entries are only linked to their main entry.
+	 */
+	private static void completeEntry(MCVEntry entry, List<String> chunk) {
+
+		int mainEntry = synonymOf(chunk);
+		if (mainEntry > 0) entry.synonymOf = mainEntry;
+		else entry.populate(chunk);
+		mcvEntries.put(entry.number, entry);
+	}
+
+	/**
+	 * Builds the SKOS concept scheme corresponding to the MCV entries.
+	 *
+	 * @return A Jena model containing the concept scheme.
+	 */
+	public static Model buildModel() {
+
+		Model model = ModelFactory.createDefaultModel();
+		model.setNsPrefix("skos", SKOS.getURI());
+		model.setNsPrefix("dcterms", DCTerms.getURI());
+		model.setNsPrefix("mcv", MCV_BASE_URI);
+
+		Resource scheme = model.createResource(MCV_BASE_URI + "mcv", SKOS.ConceptScheme);
+		scheme.addProperty(SKOS.notation, "MCV 2009");
+		scheme.addProperty(SKOS.prefLabel, model.createLiteral("SDMX Metadata Common Vocabulary", "en"));
+
+		for (MCVEntry entry : mcvEntries.values()) {
+			if (entry.isSynonym()) continue;
+			Resource concept = model.createResource(MCV_BASE_URI + entry.number, SKOS.Concept);
+			concept.addProperty(SKOS.notation, Integer.toString(entry.number));
+			concept.addProperty(SKOS.prefLabel, model.createLiteral(entry.label, "en"));
+			for (String synonym : entry.synonyms) concept.addProperty(SKOS.altLabel, model.createLiteral(synonym, "en"));
+			if (entry.definition != null) concept.addProperty(SKOS.definition, model.createLiteral(entry.definition, "en"));
+			if (entry.context != null) concept.addProperty(SKOS.scopeNote, model.createLiteral(entry.context, "en"));
+			if (entry.source != null) concept.addProperty(DCTerms.source, entry.source);
+			concept.addProperty(SKOS.inScheme, scheme);
+			concept.addProperty(SKOS.topConceptOf, scheme);
+			scheme.addProperty(SKOS.hasTopConcept, concept);
 		}
-		// Treat last entry
-		currentEntry.populate(currentChunk);
-		mcvInput.close();
+		return model;
 	}
 
 	/**
 	 * Checks if a sequence corresponds to a synonym; if so returns the number of the item referenced, otherwise 0.
 	 */
-	private static int synomymOf(List<String> chunk) {
+	private static int synonymOf(List<String> chunk) {
 
 		if (chunk.size() == 1) {
 			String line = chunk.get(0).trim();
@@ -134,49 +190,41 @@ public class MCVReader {
 			if (line.equals("Originator Data identifier")) line = "Originator data identifier"; // Deals with case 91
 			// Search for the referenced entry
 			int found = findEntry(line);
-		    if (found == 0) logger.warn("Reference term not found for synonym '" + line + "'");
+			if (found == 0) logger.warn("Reference term not found for synonym '" + line + "'");
 
-		    return found;
+			return found;
 		}
 		return 0;
 	}
 
-
 	/**
 	 * Checks if line is the title of an entry and if so returns the number; otherwise returns 0.
 	 */
 	private static int entryStart(String line) {
 
-		if (!line.matches(ENTRY_START_REGEX)) return 0;
-		// Divide at first point (there should be only one)
-		int firstPointPosition = line.indexOf(".");
-		int entryNumber = Integer.parseInt(line.substring(0, firstPointPosition));
-		String entryLabel = line.substring(firstPointPosition + 1).trim();
+		Matcher matcher = ENTRY_START_PATTERN.matcher(line);
+		if (!matcher.matches()) return 0;
+		int entryNumber = Integer.parseInt(matcher.group(1));
+		String entryLabel = matcher.group(2).trim();
 
 		// Catch inconsistencies (e.g. items 14, 57 and 129 have internal numbering)
-		// It is assumed that entryList has been populated first
-		if (!entryList.get(entryNumber).equals(entryLabel)) {
+		// It is assumed that the entry index has been populated first
+		if (!entryLabel.equals(entryIndex.getLabel(entryNumber))) {
 			logger.warn("Label mismatch for entry number " + entryNumber + " (" + entryLabel + ")");
-			System.out.println("Label mismatch for entry number " + entryNumber + " (" + entryLabel + ")");
 			return 0;
 		}
 
 		return entryNumber;
 	}
 
+	/**
+	 * Returns the number of the entry with a given label.
+	 *
+	 * @param searched The label of the entry.
+	 * @return The number of the entry, or 0 if not found.
+	 */
 	public static int findEntry(String searched) {
-		int found = 0;
-		// TODO Very inefficient, find another structure for entryList
-	    for (Entry<Integer, String> entry : entryList.entrySet()) {
-	        if (searched.equals(entry.getValue())) {
-	            found = entry.getKey();
-	            break;
-	        }
-	    }
-	    return found;
 
+		return entryIndex.getNumber(searched);
 	}
-//	public static void readEntry(List<String> chunk) {
-//		
-//	}
 }
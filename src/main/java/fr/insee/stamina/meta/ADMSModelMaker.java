@@ -1,6 +1,5 @@
 package fr.insee.stamina.meta;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -18,6 +17,7 @@ import org.apache.logging.log4j.Logger;
 
 import fr.insee.stamina.utils.ADMS;
 import fr.insee.stamina.utils.DCAT;
+import fr.insee.stamina.utils.ModelWriter;
 import fr.insee.stamina.utils.Names;
 
 /**
@@ -84,7 +84,7 @@ public class ADMSModelMaker {
 		this.addISICAssetModel("ISIC", "4");
 
 		// Write the Turtle file and clear the model
-		admsModel.write(new FileOutputStream(ADMS_TURTLE_FILE), "TTL");
+		ModelWriter.write(admsModel, ADMS_TURTLE_FILE);
 		admsModel.close();
 	}
 
@@ -1,9 +1,9 @@
 package fr.insee.stamina.national;
 
+import fr.insee.stamina.utils.ModelWriter;
 import fr.insee.stamina.utils.Names;
 import fr.insee.stamina.utils.XKOS;
 import org.apache.jena.rdf.model.*;
-import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.RDFFormat;
 import org.apache.jena.sparql.vocabulary.FOAF;
 import org.apache.jena.vocabulary.DC;
@@ -14,7 +14,6 @@ import org.apache.logging.log4j.Logger;
 import org.apache.poi.ss.usermodel.*;
 
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
@@ -272,7 +271,7 @@ public class NAICSModelMaker {
 	 */
 	private void writeModel(String fileName, RDFFormat format) throws IOException {
 
-		RDFDataMgr.write(new FileOutputStream(fileName), model, format) ;
+		ModelWriter.write(model, fileName, format);
 		// Close the model
 		model.close();
 	}
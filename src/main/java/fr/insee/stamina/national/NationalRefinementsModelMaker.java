@@ -1,6 +1,8 @@
 package fr.insee.stamina.national;
 
+import fr.insee.stamina.utils.ModelWriter;
 import fr.insee.stamina.utils.Names;
+import fr.insee.stamina.utils.TextSource;
 import fr.insee.stamina.utils.XKOS;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
@@ -12,6 +14,9 @@ import org.apache.logging.log4j.Logger;
 import org.apache.poi.ss.usermodel.*;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Iterator;
 
 /**
@@ -30,28 +35,28 @@ public class NationalRefinementsModelMaker {
 	/** File name of the file containing the RDF representation of the Ateco 2007 classification */
 	public static String ATECO_TTL_FILE = LOCAL_FOLDER + "ateco2007.rdf";
 
-	/** File name of the spreadsheet containing the last level of NAF r�v. 2 */
+	/** File name of the spreadsheet containing the last level of NAF rév. 2 */
 	public static String NAF_EXCEL_FILE = LOCAL_FOLDER + "naf2008_liste_n5.xls";
 
-	/** Name of the file containing the RDF representation of the NAF r�v. 2 classification */
+	/** Name of the file containing the RDF representation of the NAF rév. 2 classification */
 	public static String NAF_RDF_FILE = LOCAL_FOLDER + "naf08.rdf";
 
-	/** File name of the spreadsheet containing the last level of CPF r�v. 2.1 */
+	/** File name of the spreadsheet containing the last level of CPF rév. 2.1 */
 	public static String CPF_EXCEL_FILE = LOCAL_FOLDER + "cpf2015_liste_n6.xls";
 
-	/** Name of the file containing the RDF representation of the NAF r�v. 2 classification */
+	/** Name of the file containing the RDF representation of the NAF rév. 2 classification */
 	public static String CPF_RDF_FILE = LOCAL_FOLDER + "cpf15.rdf";
 
-	/** Name of the file containing the RDF representation of the correspondence between NAF r�v. 2 and CPF r�v 2.1 */
+	/** Name of the file containing the RDF representation of the correspondence between NAF rév. 2 and CPF rév 2.1 */
 	public static String NAF_CPF_RDF_FILE = LOCAL_FOLDER + "correspondancesNafCpf.rdf";
 
 	/** Base URI for all resources in the Ateco 2007 classification model */
 	public static String ATECO_BASE_URI = "http://www.ims/concepts/ateco2007/Ateco2007/";
 
-	/** Base URI for all resources in the NAF r�v. 2 classification model */
+	/** Base URI for all resources in the NAF rév. 2 classification model */
 	public static String NAF_BASE_URI = "http://stamina-project.org/codes/nafr2/";
 
-	/** Base URI for all resources in the CPF r�v 2.1 classification model */
+	/** Base URI for all resources in the CPF rév 2.1 classification model */
 	public static String CPF_BASE_URI = "http://stamina-project.org/codes/cpfr21/";
 
 	/** Base URI for the RDF resources belonging to the NACE-Ateco correspondence */
@@ -182,7 +187,7 @@ public class NationalRefinementsModelMaker {
 
 		// Creation of the correspondence table resource
 		Resource table = model.createResource(NACE_NAF_BASE_URI + "correspondence", XKOS.Correspondence);
-		table.addProperty(SKOS.definition, "Correspondence table between NACE Rev. 2 and NAF r�v. 2");
+		table.addProperty(SKOS.definition, "Correspondence table between NACE Rev. 2 and NAF rév. 2");
 		table.addProperty(XKOS.compares, model.createResource(Names.getCSURI("NACE", "2")));
 		table.addProperty(XKOS.compares, model.createResource(NAF_BASE_URI + "naf"));
 
@@ -194,7 +199,7 @@ public class NationalRefinementsModelMaker {
 			String naceCode = nafCode.substring(0, 5);
 
 			Resource association = model.createResource(NACE_NAF_BASE_URI + "association/" + naceCode + "-" + nafCode, XKOS.ConceptAssociation);
-			association.addProperty(RDFS.label, "NACE Rev.2 " + naceCode + " - NAF r�v. 2 " + nafCode);
+			association.addProperty(RDFS.label, "NACE Rev.2 " + naceCode + " - NAF rév. 2 " + nafCode);
 			Resource naceItemResource = model.createResource(Names.getItemURI(naceCode, "NACE", "2"));
 			Resource nafItemResource = model.createResource(getNAFItemURI(nafCode));
 			association.addProperty(XKOS.sourceConcept, naceItemResource);	
@@ -224,7 +229,7 @@ public class NationalRefinementsModelMaker {
 
 		// Creation of the correspondence table resource
 		Resource table = model.createResource(NACE_CPF_BASE_URI + "correspondence", XKOS.Correspondence);
-		table.addProperty(SKOS.definition, "Correspondence table between CPA Ver. 2.1 and CPF r�v. 2.1");
+		table.addProperty(SKOS.definition, "Correspondence table between CPA Ver. 2.1 and CPF rév. 2.1");
 		table.addProperty(XKOS.compares, model.createResource(Names.getCSURI("CPA", "2.1")));
 		table.addProperty(XKOS.compares, model.createResource(CPF_BASE_URI + "cpf"));
 
@@ -236,7 +241,7 @@ public class NationalRefinementsModelMaker {
 			String cpaCode = cpfCode; // CPA and CPF codes are identical
 
 			Resource association = model.createResource(NACE_NAF_BASE_URI + "association/" + cpaCode + "-" + cpfCode, XKOS.ConceptAssociation);
-			association.addProperty(RDFS.label, "CPA Ver. 2.1 " + cpaCode + " - CPF r�v. 2.1 " + cpfCode);
+			association.addProperty(RDFS.label, "CPA Ver. 2.1 " + cpaCode + " - CPF rév. 2.1 " + cpfCode);
 			Resource cpaItemResource = model.createResource(Names.getItemURI(cpaCode, "CPA", "2.1"));
 			Resource cpfItemResource = model.createResource(getCPFItemURI(cpfCode));
 			association.addProperty(XKOS.sourceConcept, cpaItemResource);	
@@ -291,7 +296,7 @@ public class NationalRefinementsModelMaker {
 	 * @throws IOException In case of problem writing the file	 */
 	private void writeModel(String fileName) throws IOException {
 
-		model.write(new FileOutputStream(fileName), "TTL");
+		ModelWriter.write(model, fileName);
 		// Close the model
 		model.close();
 	}
@@ -321,7 +326,7 @@ public class NationalRefinementsModelMaker {
 	}
 
 	/**
-	 * Computes the URI of CPF "sous-cat�gorie".
+	 * Computes the URI of CPF "sous-catégorie".
 	 * 
 	 * @param code The item code.
 	 * @return The item URI.
@@ -346,8 +351,8 @@ public class NationalRefinementsModelMaker {
 		String outputFileName = fileName + ".copy";
 
 		logger.debug("Copying " + fileName + " to " + outputFileName + " rewriting '" + before + "' into '" + after + "'");
-		BufferedReader reader = new BufferedReader(new FileReader(fileName));
-		BufferedWriter writer = new BufferedWriter(new FileWriter(outputFileName));
+		BufferedReader reader = TextSource.newReader(fileName);
+		BufferedWriter writer = Files.newBufferedWriter(Paths.get(outputFileName), StandardCharsets.UTF_8);
 
 		String line;
 		while ((line = reader.readLine()) != null) {
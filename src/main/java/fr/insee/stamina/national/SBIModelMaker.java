@@ -1,5 +1,6 @@
 package fr.insee.stamina.national;
 
+import fr.insee.stamina.utils.ModelWriter;
 import fr.insee.stamina.utils.Names;
 import fr.insee.stamina.utils.XKOS;
 import org.apache.jena.rdf.model.*;
@@ -15,7 +16,6 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
@@ -239,7 +239,7 @@ public class SBIModelMaker {
 	 */
 	private void writeModel(String fileName) throws IOException {
 
-		model.write(new FileOutputStream(fileName), "TTL");
+		ModelWriter.write(model, fileName);
 		// Close the model
 		model.close();
 	}
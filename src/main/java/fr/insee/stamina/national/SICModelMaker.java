@@ -1,8 +1,10 @@
 package fr.insee.stamina.national;
 
 import fr.insee.stamina.utils.ExplanatoryNote;
+import fr.insee.stamina.utils.ModelWriter;
 import fr.insee.stamina.utils.Names;
 import fr.insee.stamina.utils.NoteType;
+import fr.insee.stamina.utils.PDFTextExtractor;
 import fr.insee.stamina.utils.XKOS;
 import jdk.nashorn.api.scripting.JSObject;
 import org.apache.jena.rdf.model.*;
@@ -13,8 +15,6 @@ import org.apache.jena.vocabulary.RDFS;
 import org.apache.jena.vocabulary.SKOS;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.poi.ss.usermodel.*;
 
 import javax.script.ScriptEngine;
@@ -208,15 +208,8 @@ public class SICModelMaker {
 	@SuppressWarnings("unused")
 	private void getNotesPDF() throws IOException {
 
-		PDDocument document = PDDocument.load(new File(LOCAL_FOLDER + SIC_NOTES_FILE));
-		PDFTextStripper stripper = new PDFTextStripper();
-
-		// Extract the main contents and saves it to a file (this is only for debugging purposes)
-		stripper.setStartPage(59);
-		String rawText = stripper.getText(document);
-		//Files.write(Paths.get(LOCAL_FOLDER + "sic-notes.txt"), rawText.getBytes());
-
-		document.close();
+		// Extract the main contents (the extractor keeps a copy of the text in its cache)
+		String rawText = new PDFTextExtractor().getText(new File(LOCAL_FOLDER + SIC_NOTES_FILE), 59, -1);
 
 		// Read the string containing the raw text line by line and try to make sense of it
 		String noteLine;
@@ -433,7 +426,7 @@ public class SICModelMaker {
 	 */
 	private void writeModel(String fileName) throws IOException {
 
-		model.write(new FileOutputStream(fileName), "TTL");
+		ModelWriter.write(model, fileName);
 		// Close the model
 		model.close();
 	}
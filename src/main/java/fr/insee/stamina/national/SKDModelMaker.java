@@ -1,6 +1,8 @@
 package fr.insee.stamina.national;
 
+import fr.insee.stamina.utils.ModelWriter;
 import fr.insee.stamina.utils.Names;
+import fr.insee.stamina.utils.TextSource;
 import fr.insee.stamina.utils.XKOS;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
@@ -17,8 +19,6 @@ import org.apache.jena.vocabulary.SKOS;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
 
 /**
@@ -81,7 +81,7 @@ public class SKDModelMaker {
 		// Read the CSV file and create the classification items
 		logger.info("Preparing to read CSV file " + SKD_FILE + " to create the SKD classification");
 		CSVParser parser;
-		parser = new CSVParser(new FileReader(LOCAL_FOLDER + SKD_FILE), CSVFormat.DEFAULT.withDelimiter(';').withQuote(null).withHeader().withIgnoreEmptyLines());
+		parser = TextSource.newParser(LOCAL_FOLDER + SKD_FILE, CSVFormat.DEFAULT.withDelimiter(';').withQuote(null).withHeader().withIgnoreEmptyLines());
 		for (CSVRecord record : parser) {
 
 			int level = Integer.parseInt(record.get(0));
@@ -132,7 +132,7 @@ public class SKDModelMaker {
 		table.addProperty(XKOS.compares, model.createResource(BASE_URI + "skd"));
 
 		CSVParser parser;
-		parser = new CSVParser(new FileReader(LOCAL_FOLDER + SKD_FILE), CSVFormat.DEFAULT.withDelimiter(';').withQuote(null).withHeader().withIgnoreEmptyLines());
+		parser = TextSource.newParser(LOCAL_FOLDER + SKD_FILE, CSVFormat.DEFAULT.withDelimiter(';').withQuote(null).withHeader().withIgnoreEmptyLines());
 		for (CSVRecord record : parser) {
 
 			int level = Integer.parseInt(record.get(0));
@@ -250,7 +250,7 @@ public class SKDModelMaker {
 	 */
 	private void writeModel(String fileName) throws IOException {
 
-		model.write(new FileOutputStream(fileName), "TTL");
+		ModelWriter.write(model, fileName);
 		// Close the model
 		model.close();
 	}
@@ -1,25 +1,20 @@
 package fr.insee.stamina.nsis;
 
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
-import org.apache.jena.ontology.OntModel;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
-import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.ORG;
+import org.apache.jena.vocabulary.OWL;
 import org.apache.jena.vocabulary.SKOS;
+import org.apache.jena.vocabulary.VCARD4;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -30,10 +25,14 @@ import com.google.maps.model.AddressComponentType;
 import com.google.maps.model.GeocodingResult;
 import com.google.maps.model.Geometry;
 
+import fr.insee.stamina.utils.ModelWriter;
+import fr.insee.stamina.utils.TextSource;
+
 /**
  * The <code>NSISModelMaker</code> class creates and saves the Jena models corresponding to the list of NSIs.
  * 
- * This program uses the ORG ontology published by the W3C.
+ * This program uses the ORG ontology published by the W3C and the vCard ontology. The terms of these ontologies are
+ * taken from the Jena vocabulary classes (generated from the ontologies), so no ontology model is created at runtime.
  * 
  * @see <a href="https://www.w3.org/TR/vocab-org/">https://www.w3.org/TR/vocab-org/</a>
  * @author Franck Cotton
@@ -47,14 +46,6 @@ public class NSISModelMaker {
 	/** File containing the Google Maps API key (must be of type Server key) */
 	public static String API_KEY_FILE = "src/main/resources/data/gm-api-key.txt";
 
-	/** URL of the ORG ontology in Turtle format */
-	public static String ORG_ONTO_URL = "http://www.w3.org/ns/org.ttl";
-	/** Base URI for the ORG ontology */
-	public static String ORG_BASE_URI = "http://www.w3.org/ns/org#";
-
-	/** Base URL of the vCard ontology */
-	public static String VCARD_BASE_URI = "http://www.w3.org/2006/vcard/ns#";
-
 	/** Output file: Turtle file containing the NSI individuals */
 	public static String NSIS_TTL = "src/main/resources/data/nsis.ttl";
 
@@ -64,8 +55,6 @@ public class NSISModelMaker {
 	/** Log4J2 logger */
 	private static final Logger logger = LogManager.getLogger(NSISModelMaker.class);
 
-	/** Jena model for vocabulary components */
-	static OntModel ontologyModel = null;
 	/** Jena model for information on NSIs */
 	static Model nsisModel = null;
 
@@ -85,28 +74,12 @@ public class NSISModelMaker {
 		GeoApiContext context = new GeoApiContext.Builder().apiKey(apiKey).build();
 		logger.info("Google Maps API key read from " + API_KEY_FILE);
 
-		// Initialize the ontology model, populate it with the ORG ontology, extract some useful ORG components, add useful components from other ontologies
-		ontologyModel = ModelFactory.createOntologyModel();
-		ontologyModel.read(ORG_ONTO_URL, "TTL");
-		Resource orgClass = ontologyModel.getOntClass(ORG_BASE_URI + "Organization");
-		Resource siteClass = ontologyModel.getOntClass(ORG_BASE_URI + "Site");
-		Property siteProperty = ontologyModel.getOntProperty(ORG_BASE_URI + "hasSite");
-		Property siteAddressProperty = ontologyModel.getOntProperty(ORG_BASE_URI + "siteAddress");
-		Resource workClass = ontologyModel.createClass(VCARD_BASE_URI + "Work");
-		Property streetAddressProperty = ontologyModel.createProperty(VCARD_BASE_URI + "street-address");
-		Property hasGeoProperty = ontologyModel.createProperty(VCARD_BASE_URI + "hasGeo");
-		logger.info("ORG ontology downloaded from " + ORG_ONTO_URL);
-
-		// Select useful prefix mappings in the ontology model to transfer them in the NSI model, add the vCard prefix
-		ontologyModel.getNsPrefixURI("org");
-		System.out.println(ontologyModel.getNsPrefixMap());
-		Map<String, String> namespaces = ontologyModel.getNsPrefixMap();
-		Set<String> keepNs = new HashSet<>(Arrays.asList("owl", "org", "skos"));
-		namespaces.keySet().retainAll(keepNs);
-		namespaces.put("vcard", VCARD_BASE_URI);
-
+		// Create the NSI model with the prefixes of the vocabularies used
 		nsisModel = ModelFactory.createDefaultModel();
-		nsisModel.setNsPrefixes(namespaces);
+		nsisModel.setNsPrefix("owl", OWL.getURI());
+		nsisModel.setNsPrefix("org", ORG.getURI());
+		nsisModel.setNsPrefix("skos", SKOS.getURI());
+		nsisModel.setNsPrefix("vcard", VCARD4.getURI());
 
 		// Read the CSV file and create the associated resources
 		logger.info("Preparing to read CSV file " + NSIS_TXT);
@@ -114,17 +87,17 @@ public class NSISModelMaker {
 		int noResults = 0, severalResults = 0, invalidResult = 0, okResult = 0;
 		CSVParser parser = null;
 		try {
-			parser = new CSVParser(new FileReader(NSIS_TXT), CSVFormat.TDF.withQuote(null).withHeader().withIgnoreEmptyLines());
+			parser = TextSource.newParser(NSIS_TXT, CSVFormat.TDF.withQuote(null).withHeader().withIgnoreEmptyLines());
 			for (CSVRecord record : parser) {
 				if (parser.getCurrentLineNumber() > MAX_INPUT_LINES) continue;
-				Resource nsi = nsisModel.createResource(BASE_URI + record.get("Country"), orgClass);
+				Resource nsi = nsisModel.createResource(BASE_URI + record.get("Country"), ORG.Organization);
 				String shortName = record.get("Short name");
 				if (shortName.length() != 0) nsi.addProperty(SKOS.altLabel, nsisModel.createLiteral(shortName));
 				// No language tag for now, most of the names are in English, but not all
 				nsi.addProperty(SKOS.prefLabel, nsisModel.createLiteral(record.get("Long name")));
 				// Create a resource corresponding to the NSI site (supposed to be the headquarters) and link it to the NSI
-				Resource site = nsisModel.createResource(nsi.getURI() + "/hq", siteClass);
-				nsi.addProperty(siteProperty, site);
+				Resource site = nsisModel.createResource(nsi.getURI() + "/hq", ORG.Site);
+				nsi.addProperty(ORG.hasSite, site);
 				// Add site address if validated by the Google Maps API
 				String addressToCode = record.get("Corrected address"); // Take the corrected address when there is one
 				if (addressToCode.length() == 0) addressToCode = record.get("Raw address"); // Otherwise take the original address (always present)
@@ -152,15 +125,15 @@ public class NSISModelMaker {
 					okResult++;
 					logger.debug("The geocoding API returned a single result that was accepted");
 					logger.debug(dumpGeocodingResult(results[0]));
-					Resource siteAddress = nsisModel.createResource(site.getURI() + "/address", workClass);
-					siteAddress.addProperty(streetAddressProperty, results[0].formattedAddress); // For now we put everything in the street address
-					site.addProperty(siteAddressProperty, siteAddress);
+					Resource siteAddress = nsisModel.createResource(site.getURI() + "/address", VCARD4.Work);
+					siteAddress.addProperty(VCARD4.street_address, results[0].formattedAddress); // For now we put everything in the street address
+					site.addProperty(ORG.siteAddress, siteAddress);
 					// Geocoding information is attached to the address, as suggested in https://www.w3.org/TR/vocab-org/#org:siteAddress, but it could be on the site
 					// vCard recommands geo: URI scheme (not widely supported...). Latitude and longitude can be used in Google Maps or OpenStreetMap as follows:
 					// http://www.openstreetmap.org/#map=18/41.32480120/19.82369140 (18 is the zoom level)
 					// http://maps.google.com/?q=41.32480120,19.82369140
 					Resource location = nsisModel.createResource("geo:" + results[0].geometry.location.toUrlValue());
-					siteAddress.addProperty(hasGeoProperty, location);
+					siteAddress.addProperty(VCARD4.hasGeo, location);
 				} catch (Exception e) {
 					logger.error("An exception occurred during geocoding", e);
 				}
@@ -174,8 +147,8 @@ public class NSISModelMaker {
 
 		// Write the whole model in the output file
 		try {
-			nsisModel.write(new FileOutputStream(NSIS_TTL), "TTL");
-		} catch (FileNotFoundException e) {
+			ModelWriter.write(nsisModel, NSIS_TTL);
+		} catch (IOException e) {
 			logger.error("An exception occurred while writing the Turtle file", e);
 		}
 		logger.info("Process completed, " + (noResults + severalResults + invalidResult + okResult) + " lines read.");
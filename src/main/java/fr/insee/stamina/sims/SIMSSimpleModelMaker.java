@@ -1,22 +1,25 @@
 package fr.insee.stamina.sims;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.vocabulary.SKOS;
 
+import fr.insee.stamina.utils.DocumentSegmenter;
+import fr.insee.stamina.utils.ModelWriter;
+import fr.insee.stamina.utils.PDFTextExtractor;
+
 /**
  * The <code>SIMSSimpleModelMaker</code> class creates and saves a Jena model corresponding to a concept scheme based on the SIMS.
  * 
@@ -55,7 +58,7 @@ public class SIMSSimpleModelMaker {
 		try {
 			reader.extractFromPDF();
 			reader.buildModel();
-			reader.simsModel.write(new FileOutputStream(SIMS_TTL), "TTL");
+			ModelWriter.write(reader.simsModel, SIMS_TTL);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -71,33 +74,22 @@ public class SIMSSimpleModelMaker {
 
 		// Extract the SIMS contents into a list of strings
 		logger.debug("Starting PDF extraction from " + SIMS_PDF);
-		PDDocument document = PDDocument.load(new File(SIMS_PDF));
-		PDFTextStripper stripper = new PDFTextStripper();
-		stripper.setStartPage(SIMS_PAGE);
-		stripper.setEndPage(SIMS_PAGE);
-		String text = stripper.getText(document);
-		String[] lines = text.split("\r\n");
-		int lineIndex = 0;
-		StringBuilder currentLine = new StringBuilder();
-		for (String line : lines) {
-			String trimmedLine = line.trim();
-			if ((lineIndex++ < SIMS_SKIP) || (trimmedLine.length() == 0)) continue; // First lines are titles
-			// If line does not start with 'S.', it is a continuation of the previous line
-			if (!trimmedLine.startsWith("S.")) {
-				currentLine.append(" ").append(trimmedLine);
-				continue;
-			}
-			// If line starts with 'S.', it is a new item. Store previous item if there is one.
-			if (currentLine.length() > 0) {
-				// The code is everything before the first space (we assume there is one)
-				int codeEnd = currentLine.indexOf(" ");
-				entryMap.put(currentLine.substring(0, codeEnd), currentLine.substring(codeEnd + 1));
-			}
-			currentLine = new StringBuilder(trimmedLine);
-		}
+		String text = new PDFTextExtractor().getText(new File(SIMS_PDF), SIMS_PAGE, SIMS_PAGE);
+		List<String> lines = Arrays.asList(text.split("\r\n"));
+		if (lines.size() <= SIMS_SKIP) return;
+		// First lines are titles, then each line starting with 'S.' is a new item, other lines are continuations of the previous line
+		DocumentSegmenter<String, String> segmenter = new DocumentSegmenter<>(
+				line -> line.trim().startsWith("S.") ? line.trim() : null,
+				line -> line.trim().length() == 0,
+				segment -> {
+					StringBuilder currentLine = new StringBuilder(segment.getHeader());
+					for (String line : segment.getBody()) currentLine.append(" ").append(line.trim());
+					// The code is everything before the first space (we assume there is one)
+					int codeEnd = currentLine.indexOf(" ");
+					entryMap.put(currentLine.substring(0, codeEnd), currentLine.substring(codeEnd + 1));
+				});
+		segmenter.segment(lines.subList(SIMS_SKIP, lines.size()));
 		logger.debug("End of PDF extraction");
-
-		document.close();
 	}
 
 	/**
@@ -1,23 +1,21 @@
 package fr.insee.stamina.unsd;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.vocabulary.RDF;
 import org.apache.jena.vocabulary.RDFS;
 import org.apache.jena.vocabulary.SKOS;
 import org.apache.logging.log4j.LogManager;
@@ -29,7 +27,18 @@ import com.healthmarketscience.jackcess.DatabaseBuilder;
 import com.healthmarketscience.jackcess.Row;
 import com.healthmarketscience.jackcess.Table;
 
+import fr.insee.stamina.index.ClassificationIndex;
+import fr.insee.stamina.index.CodeReferenceExtractor;
+import fr.insee.stamina.index.CodeValidator;
+import fr.insee.stamina.index.HierarchyClosure;
+import fr.insee.stamina.index.TextIndex;
+import fr.insee.stamina.utils.BuildManifest;
+import fr.insee.stamina.utils.LabelPack;
+import fr.insee.stamina.utils.ModelWriter;
 import fr.insee.stamina.utils.Names;
+import fr.insee.stamina.utils.NoteRenderer;
+import fr.insee.stamina.utils.ParallelCSVReader;
+import fr.insee.stamina.utils.RDFPatchMaker;
 import fr.insee.stamina.utils.XKOS;
 
 /**
@@ -53,8 +62,8 @@ public class CPCModelMaker {
 	/** Name of the Access tables containing the data */
 	private static final Map<String, String> CPC_ACCESS_TABLE = new HashMap<>();
 	// There are no French labels for the CPC on the UNSD web site
-	/** CSV files containing the additional Spanish labels */
-	private static final Map<String, String> CPC_SPANISH_LABELS_FILE = new HashMap<>();
+	/** Label packs containing the additional labels (Spanish, ...) */
+	private static final Map<String, List<LabelPack>> CPC_LABEL_PACKS = new HashMap<>();
 	// Initialization of the static properties
 	static {
 		CPC_ACCESS_FILE.put("1.1", "cpc_v11_english.mdb");
@@ -63,9 +72,9 @@ public class CPCModelMaker {
 		CPC_ACCESS_TABLE.put("1.1", "tblTitles_English_CPCV11");
 		CPC_ACCESS_TABLE.put("2", "CPC2-structure");
 		CPC_ACCESS_TABLE.put("2.1", "CPC21-structure");
-		CPC_SPANISH_LABELS_FILE.put("1.1", null); // No Spanish labels for CPC Ver.1.1
-		CPC_SPANISH_LABELS_FILE.put("2", "CPCv2_Spanish_structure.txt");
-		CPC_SPANISH_LABELS_FILE.put("2.1", null); // No Spanish labels for CPC Ver.2.1
+		// No Spanish labels for CPC Ver.1.1 and CPC Ver.2.1
+		CPC_LABEL_PACKS.put("2", Arrays.asList(
+				new LabelPack(INPUT_FOLDER + "CPCv2_Spanish_structure.txt", "es", Charset.forName("Cp1252"), CSVFormat.DEFAULT.withHeader())));
 	}
 
 	/** CSV file containing the correspondences between CPC Ver.2 and CPC Ver.2.1 */
@@ -123,8 +132,10 @@ public class CPCModelMaker {
 		Table table = DatabaseBuilder.open(new File(INPUT_FOLDER + CPC_ACCESS_FILE.get(version))).getTable(CPC_ACCESS_TABLE.get(version));
 		Cursor cursor = CursorBuilder.createCursor(table);
 		logger.debug("Cursor defined on table " + CPC_ACCESS_TABLE.get(version));
+		List<String> itemCodes = new ArrayList<>();
 		for (Row row : cursor.newIterable()) {
 			String itemCode = row.getString(codeColumnName);
+			itemCodes.add(itemCode);
 			Resource itemResource = cpcModel.createResource(Names.getItemURI(itemCode, "CPC", version), SKOS.Concept);
 			itemResource.addProperty(SKOS.notation, cpcModel.createLiteral(itemCode));
 			itemResource.addProperty(SKOS.prefLabel, cpcModel.createLiteral(row.getString(labelColumnName), "en"));
@@ -150,14 +161,36 @@ public class CPCModelMaker {
 			level.addProperty(SKOS.member, itemResource);
 		}
 		logger.debug("Finished reading table " + CPC_ACCESS_TABLE.get(version));
-		// Create additional labels if they exist
-		if (CPC_SPANISH_LABELS_FILE.get(version) != null)
-			this.addLabels(INPUT_FOLDER + CPC_SPANISH_LABELS_FILE.get(version), version, "es");
+		// Create additional labels if they exist, reading the languages in parallel
+		if (CPC_LABEL_PACKS.get(version) != null)
+			LabelPack.addLabels(cpcModel, CPC_LABEL_PACKS.get(version), code -> Names.getItemURI(code, "CPC", version));
+
+		// Explicit links for the codes referenced in the notes, and notes shared between items and versions
+		if (withNotes) {
+			CodeReferenceExtractor extractor = new CodeReferenceExtractor(itemCodes);
+			extractor.addLinks(cpcModel, code -> Names.getItemURI(code, "CPC", version));
+			new NoteRenderer(extractor).shareNotes(cpcModel);
+		}
+
+		// Optional precomputed closure of the hierarchy, in the model and as a table
+		if (HierarchyClosure.isEnabled()) {
+			HierarchyClosure closure = new HierarchyClosure(itemCodes, CPCModelMaker::getParentCode);
+			closure.addTo(cpcModel, code -> Names.getItemURI(code, "CPC", version));
+			closure.writeTable(OUTPUT_FOLDER + Names.getCSContext("CPC", version) + "-closure.csv");
+		}
+
+		// Optional text index of the labels and notes, for coding assistance
+		if (TextIndex.isEnabled())
+			TextIndex.build(ClassificationIndex.load("CPC", version, cpcModel)).write(OUTPUT_FOLDER + Names.getCSContext("CPC", version) + "-text.idx");
 
 		// Write the Turtle file and clear the model
 		String turtleFileName = OUTPUT_FOLDER + Names.getCSContext("CPC", version) + ".ttl";
-		cpcModel.write(new FileOutputStream(turtleFileName), "TTL");
-		logger.info("The Jena model for CPC Ver." + version + " has been written to " + turtleFileName);
+		// Optional publication as canonical N-Triples with the patch from the previous publication
+		if (RDFPatchMaker.isEnabled()) RDFPatchMaker.publish(cpcModel, turtleFileName);
+		else ModelWriter.write(cpcModel, turtleFileName);
+		logger.info("The Jena model for CPC Ver." + version + " has been written to " + ModelWriter.getFileName(turtleFileName));
+		// Record the output in the build manifest, for the applications serving the classifications
+		BuildManifest.register("CPC", version, ModelWriter.getFileName(turtleFileName));
 		cpcModel.close();
 	}
 
@@ -177,7 +210,7 @@ public class CPCModelMaker {
 		scheme = cpcModel.createResource(Names.getCSURI("CPC", version), SKOS.ConceptScheme);
 		scheme.addProperty(SKOS.prefLabel, cpcModel.createLiteral(Names.getCSLabel("CPC", version), "en"));
 		scheme.addProperty(SKOS.notation, Names.getCSShortName("CPC", version));
-		int numberOfLevels = Names.LEVEL_NAMES.get("CPC").size();
+		int numberOfLevels = Names.getLevelNames("CPC", version).size();
 		scheme.addProperty(XKOS.numberOfLevels, cpcModel.createTypedLiteral(numberOfLevels));
 
 		levels = new ArrayList<>();
@@ -190,33 +223,6 @@ public class CPCModelMaker {
 		scheme.addProperty(XKOS.levels, cpcModel.createList(levels.toArray(new Resource[0])));
 	}
 
-	/**
-	 * Adds labels read in a CSV file to the Jena model.
-	 * 
-	 * @param filePath The path of the CSV file.
-	 * @param version The version of the CPC classification.
-	 * @param language The tag representing the language of the labels ("fr", "es", etc.). 
-	 */
-	private void addLabels(String filePath, String version, String language) {
-
-		if (filePath == null) return;
-
-		logger.debug("Preparing to create additional labels for version " + version + ", language is " + language);
-		try {
-			Reader reader = new InputStreamReader(new FileInputStream(filePath), "Cp1252");
-			CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT.withHeader());
-			for (CSVRecord record : parser) {
-				String itemCode = record.get(0);
-				Resource itemResource = cpcModel.createResource(Names.getItemURI(itemCode, "CPC", version));
-				itemResource.addProperty(SKOS.prefLabel, cpcModel.createLiteral(record.get(1), language));
-			}
-			parser.close();
-			reader.close();
-		} catch (Exception e) {
-			logger.error("Error adding labels from " + filePath, e);
-		}
-	}
-
 	/**
 	 * Creates the models for correspondences between CPC Ver.1.1, CPC Ver.2 and CPC Ver.2.1.
 	 */
@@ -237,30 +243,22 @@ public class CPCModelMaker {
 		table.addProperty(XKOS.compares, cpcModel.createResource(Names.getCSURI("CPC", "2")));
 		try {
 			logger.debug("Preparing to read correspondence data from " + CPC11_TO_CPC2_FILE);
-			Reader reader = new FileReader(INPUT_FOLDER + CPC11_TO_CPC2_FILE);
-			CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT.withHeader());
-			for (CSVRecord record : parser) {
+			final Resource cpc11Table = table;
+			cpcModel.add(ParallelCSVReader.<Statement>read(INPUT_FOLDER + CPC11_TO_CPC2_FILE, CSVFormat.DEFAULT.withHeader(), (record, buffer) -> {
 				String cpc11Code = record.get("CPC11Code");
 				String cpc2Code = record.get("CPC2Code");
-				Resource association = cpcModel.createResource(Names.getAssociationURI(cpc11Code, "CPC",  "1.1", cpc2Code, "CPC", "2"), XKOS.ConceptAssociation);
-				association.addProperty(RDFS.label, "CPC Ver.1.1 " + cpc11Code + " - CPC Ver.2 " + cpc2Code);
-				association.addProperty(XKOS.sourceConcept, cpcModel.createResource(Names.getItemURI(cpc11Code, "CPC", "1.1")));
-				association.addProperty(XKOS.targetConcept, cpcModel.createResource(Names.getItemURI(cpc2Code, "CPC", "2")));
 				// There are no descriptions of the correspondences for CPC11-CPC2
-				table.addProperty(XKOS.madeOf, association);
-				// TODO Add 'partial' information
-			}
-			parser.close();
-			reader.close();
+				addAssociation(buffer, cpc11Table, cpc11Code, "1.1", cpc2Code, "2");
+			}));
 		} catch (Exception e) {
 			logger.error("Error reading correspondences from " + CPC11_TO_CPC2_FILE, e);
 		}
 		// Write the Turtle file and clear the model
 		String turtleFileName = Names.getCorrespondenceContext("CPC", "1.1", "CPC", "2") + ".ttl";
 		try {
-			cpcModel.write(new FileOutputStream(OUTPUT_FOLDER + turtleFileName), "TTL");
+			ModelWriter.write(cpcModel, OUTPUT_FOLDER + turtleFileName);
 			logger.info("The Jena model for the correspondence between CPC Ver.1.1 and CPC Ver.2 has been written to " + OUTPUT_FOLDER + turtleFileName);
-		} catch (FileNotFoundException e) {
+		} catch (IOException e) {
 			logger.error("Error saving the CPC11-CPC2 correspondences to " + turtleFileName, e);
 		}
 		cpcModel.close();
@@ -281,35 +279,54 @@ public class CPCModelMaker {
 		table.addProperty(RDFS.comment, cpcModel.createLiteral("The correspondence does not yet include divisions 61 and 62 of the CPC", "en"));
 		try {
 			logger.debug("Preparing to read correspondence data from " + CPC2_TO_CPC21_FILE);
-			Reader reader = new FileReader(INPUT_FOLDER + CPC2_TO_CPC21_FILE);
-			CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT.withHeader());
-			for (CSVRecord record : parser) {
+			final Resource cpc2Table = table;
+			cpcModel.add(ParallelCSVReader.<Statement>read(INPUT_FOLDER + CPC2_TO_CPC21_FILE, CSVFormat.DEFAULT.withHeader(), (record, buffer) -> {
 				String cpc2Code = record.get("CPC2code");
 				String cpc21Code = record.get("CPC21code");
-				Resource association = cpcModel.createResource(Names.getAssociationURI(cpc2Code, "CPC",  "2", cpc21Code, "CPC", "2.1"), XKOS.ConceptAssociation);
-				association.addProperty(RDFS.label, "CPC Ver.2 " + cpc2Code + " - CPC Ver.2.1 " + cpc21Code);
-				association.addProperty(XKOS.sourceConcept, cpcModel.createResource(Names.getItemURI(cpc2Code, "CPC", "2")));
-				association.addProperty(XKOS.targetConcept, cpcModel.createResource(Names.getItemURI(cpc21Code, "CPC", "2.1")));
 				// There are no descriptions of the correspondences for CPC2-CPC2.1
-				table.addProperty(XKOS.madeOf, association);
-				// TODO Add 'partial' information
-			}
-			parser.close();
-			reader.close();
+				addAssociation(buffer, cpc2Table, cpc2Code, "2", cpc21Code, "2.1");
+			}));
 		} catch (Exception e) {
 			logger.error("Error reading correspondences from " + CPC2_TO_CPC21_FILE, e);
 		}
 		// Write the Turtle file and clear the model
 		turtleFileName = Names.getCorrespondenceContext("CPC", "2", "CPC", "2.1") + ".ttl";
 		try {
-			cpcModel.write(new FileOutputStream(OUTPUT_FOLDER + turtleFileName), "TTL");
+			ModelWriter.write(cpcModel, OUTPUT_FOLDER + turtleFileName);
 			logger.info("The Jena model for the correspondence between CPC Ver.2 and CPC Ver.2.1 has been written to " + OUTPUT_FOLDER + turtleFileName);
-		} catch (FileNotFoundException e) {
+		} catch (IOException e) {
 			logger.error("Error saving the CPC2-CPC21 correspondence to " + turtleFileName, e);
 		}
 		cpcModel.close();
 	}
 
+	/**
+	 * Creates the statements describing a concept association between two versions of the CPC.
+	 * Statements are created without model, so that the method can be called by the workers of a parallel CSV reader.
+	 *
+	 * @param statements The list where the statements are added.
+	 * @param table The resource representing the correspondence table.
+	 * @param sourceCode The code of the source item.
+	 * @param sourceVersion The version of the source classification.
+	 * @param targetCode The code of the target item.
+	 * @param targetVersion The version of the target classification.
+	 */
+	private static void addAssociation(List<Statement> statements, Resource table, String sourceCode, String sourceVersion, String targetCode, String targetVersion) {
+
+		// Rows with invalid codes are skipped, they would produce invalid item URIs
+		if (!CodeValidator.forFormats("CPC", sourceVersion).isValid(sourceCode) || !CodeValidator.forFormats("CPC", targetVersion).isValid(targetCode)) {
+			logger.warn("Invalid code in correspondence row " + sourceCode + " - " + targetCode + ", row skipped");
+			return;
+		}
+		Resource association = ResourceFactory.createResource(Names.getAssociationURI(sourceCode, "CPC", sourceVersion, targetCode, "CPC", targetVersion));
+		statements.add(ResourceFactory.createStatement(association, RDF.type, XKOS.ConceptAssociation));
+		statements.add(ResourceFactory.createStatement(association, RDFS.label, ResourceFactory.createPlainLiteral("CPC Ver." + sourceVersion + " " + sourceCode + " - CPC Ver." + targetVersion + " " + targetCode)));
+		statements.add(ResourceFactory.createStatement(association, XKOS.sourceConcept, ResourceFactory.createResource(Names.getItemURI(sourceCode, "CPC", sourceVersion))));
+		statements.add(ResourceFactory.createStatement(association, XKOS.targetConcept, ResourceFactory.createResource(Names.getItemURI(targetCode, "CPC", targetVersion))));
+		statements.add(ResourceFactory.createStatement(table, XKOS.madeOf, association));
+		// TODO Add 'partial' information
+	}
+
 	/**
 	 * Returns the code of the parent of the item whose code is provided.
 	 * 
@@ -1,24 +1,21 @@
 package fr.insee.stamina.unsd;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.vocabulary.RDF;
 import org.apache.jena.vocabulary.RDFS;
 import org.apache.jena.vocabulary.SKOS;
 import org.apache.logging.log4j.LogManager;
@@ -30,7 +27,18 @@ import com.healthmarketscience.jackcess.DatabaseBuilder;
 import com.healthmarketscience.jackcess.Row;
 import com.healthmarketscience.jackcess.Table;
 
+import fr.insee.stamina.index.ClassificationIndex;
+import fr.insee.stamina.index.CodeReferenceExtractor;
+import fr.insee.stamina.index.CodeValidator;
+import fr.insee.stamina.index.HierarchyClosure;
+import fr.insee.stamina.index.TextIndex;
+import fr.insee.stamina.utils.BuildManifest;
+import fr.insee.stamina.utils.LabelPack;
+import fr.insee.stamina.utils.ModelWriter;
 import fr.insee.stamina.utils.Names;
+import fr.insee.stamina.utils.NoteRenderer;
+import fr.insee.stamina.utils.ParallelCSVReader;
+import fr.insee.stamina.utils.RDFPatchMaker;
 import fr.insee.stamina.utils.XKOS;
 
 /**
@@ -55,12 +63,8 @@ public class ISICModelMaker {
 	private static final Map<String, String> ISIC_ACCESS_TABLE = new HashMap<>();
 	/** Name of the Access tables containing the names of the levels */
 	private static final Map<String, String> ISIC_STRUCTURE_ACCESS_TABLE = new HashMap<>();
-	/** CSV files containing the additional French labels */
-	private static final Map<String, String> ISIC_FRENCH_LABELS_FILE = new HashMap<>();
-	/** CSV files containing the additional Spanish labels */
-	private static final Map<String, String> ISIC_SPANISH_LABELS_FILE = new HashMap<>();
-	/** CSV format of the files containing additional labels */
-	private static final Map<String, CSVFormat> ISIC_LABELS_FILE_FORMAT = new HashMap<>();
+	/** Label packs containing the additional labels (French, Spanish, ...) */
+	private static final Map<String, List<LabelPack>> ISIC_LABEL_PACKS = new HashMap<>();
 	/** CSV files containing the correspondence tables */
 	private static final Map<String, String> CORRESPONDENCE_FILE = new HashMap<>();
 	// Initialization of the static properties
@@ -71,12 +75,12 @@ public class ISICModelMaker {
 		ISIC_ACCESS_TABLE.put("4", "tblTitles_English_ISICRev4");
 		ISIC_STRUCTURE_ACCESS_TABLE.put("3.1", "tblStructure_ISICRev31");
 		ISIC_STRUCTURE_ACCESS_TABLE.put("4", "tblStructure_ISICRev4");
-		ISIC_FRENCH_LABELS_FILE.put("3.1", null);
-		ISIC_FRENCH_LABELS_FILE.put("4", "ISIC_Rev_4_french_structure.txt");
-		ISIC_SPANISH_LABELS_FILE.put("3.1", "ISIC_Rev_3_1_spanish_structure.txt");
-		ISIC_SPANISH_LABELS_FILE.put("4", "ISIC_Rev_4_spanish_structure.txt");
-		ISIC_LABELS_FILE_FORMAT.put("3.1", CSVFormat.TDF.withQuote(null).withIgnoreEmptyLines());
-		ISIC_LABELS_FILE_FORMAT.put("4", CSVFormat.DEFAULT.withHeader());
+		// No French labels for ISIC Rev.3.1; other UNSD languages can be added with their character set and format
+		ISIC_LABEL_PACKS.put("3.1", Arrays.asList(
+				new LabelPack(INPUT_FOLDER + "ISIC_Rev_3_1_spanish_structure.txt", "es", Charset.forName("Cp1252"), CSVFormat.TDF.withQuote(null).withIgnoreEmptyLines())));
+		ISIC_LABEL_PACKS.put("4", Arrays.asList(
+				new LabelPack(INPUT_FOLDER + "ISIC_Rev_4_french_structure.txt", "fr", Charset.forName("Cp1252"), CSVFormat.DEFAULT.withHeader()),
+				new LabelPack(INPUT_FOLDER + "ISIC_Rev_4_spanish_structure.txt", "es", Charset.forName("Cp1252"), CSVFormat.DEFAULT.withHeader())));
 		// The concatenation of ISIC or CPC versions is used as a selector for tables
 		CORRESPONDENCE_FILE.put("3.14", "ISIC31_ISIC4.txt");
 		CORRESPONDENCE_FILE.put("3.11.1", "ISIC31-CPC11-correspondence.txt");
@@ -144,8 +148,10 @@ public class ISICModelMaker {
 		Table table = DatabaseBuilder.open(new File(INPUT_FOLDER + ISIC_ACCESS_FILE.get(version))).getTable(ISIC_ACCESS_TABLE.get(version));
 		Cursor cursor = CursorBuilder.createCursor(table);
 		logger.debug("Cursor defined on table " + ISIC_ACCESS_TABLE.get(version));
+		List<String> itemCodes = new ArrayList<>();
 		for (Row row : cursor.newIterable()) {
 			String itemCode = row.getString("Code");
+			itemCodes.add(itemCode);
 			Resource itemResource = isicModel.createResource(Names.getItemURI(itemCode, "ISIC", version), SKOS.Concept);
 			itemResource.addProperty(SKOS.notation, isicModel.createLiteral(itemCode));
 			itemResource.addProperty(SKOS.prefLabel, isicModel.createLiteral(row.getString("Description"), "en"));
@@ -172,16 +178,36 @@ public class ISICModelMaker {
 			level.addProperty(SKOS.member, itemResource);
 		}
 		logger.debug("Finished reading table " + ISIC_ACCESS_TABLE.get(version));
-		// Addition of French and Spanish labels
-		if (ISIC_FRENCH_LABELS_FILE.get(version) != null)
-			this.addLabels(INPUT_FOLDER + ISIC_FRENCH_LABELS_FILE.get(version), version, "fr");
-		if (ISIC_SPANISH_LABELS_FILE.get(version) != null)
-			this.addLabels(INPUT_FOLDER + ISIC_SPANISH_LABELS_FILE.get(version), version, "es");
+		// Addition of the labels in other languages, read in parallel
+		if (ISIC_LABEL_PACKS.get(version) != null)
+			LabelPack.addLabels(isicModel, ISIC_LABEL_PACKS.get(version), code -> Names.getItemURI(code, "ISIC", version));
+
+		// Explicit links for the codes referenced in the notes, and notes shared between items and versions
+		if (withNotes) {
+			CodeReferenceExtractor extractor = new CodeReferenceExtractor(itemCodes);
+			extractor.addLinks(isicModel, code -> Names.getItemURI(code, "ISIC", version));
+			new NoteRenderer(extractor).shareNotes(isicModel);
+		}
+
+		// Optional precomputed closure of the hierarchy, in the model and as a table
+		if (HierarchyClosure.isEnabled()) {
+			HierarchyClosure closure = new HierarchyClosure(itemCodes, ISICModelMaker::getParentCode);
+			closure.addTo(isicModel, code -> Names.getItemURI(code, "ISIC", version));
+			closure.writeTable(OUTPUT_FOLDER + Names.getCSContext("ISIC", version) + "-closure.csv");
+		}
+
+		// Optional text index of the labels and notes, for coding assistance
+		if (TextIndex.isEnabled())
+			TextIndex.build(ClassificationIndex.load("ISIC", version, isicModel)).write(OUTPUT_FOLDER + Names.getCSContext("ISIC", version) + "-text.idx");
 
 		// Write the Turtle file and clear the model
 		String turtleFileName = OUTPUT_FOLDER + Names.getCSContext("ISIC", version) + ".ttl";
-		isicModel.write(new FileOutputStream(turtleFileName), "TTL");
-		logger.info("The Jena model for ISIC Rev." + version + " has been written to " + turtleFileName);
+		// Optional publication as canonical N-Triples with the patch from the previous publication
+		if (RDFPatchMaker.isEnabled()) RDFPatchMaker.publish(isicModel, turtleFileName);
+		else ModelWriter.write(isicModel, turtleFileName);
+		logger.info("The Jena model for ISIC Rev." + version + " has been written to " + ModelWriter.getFileName(turtleFileName));
+		// Record the output in the build manifest, for the applications serving the classifications
+		BuildManifest.register("ISIC", version, ModelWriter.getFileName(turtleFileName));
 		isicModel.close();
 	}
 
@@ -201,7 +227,7 @@ public class ISICModelMaker {
 		scheme = isicModel.createResource(Names.getCSURI("ISIC", version), SKOS.ConceptScheme);
 		scheme.addProperty(SKOS.prefLabel, isicModel.createLiteral(Names.getCSLabel("ISIC", version), "en"));
 		scheme.addProperty(SKOS.notation, Names.getCSShortName("ISIC", version));
-		int numberOfLevels = Names.LEVEL_NAMES.get("ISIC").size();
+		int numberOfLevels = Names.getLevelNames("ISIC", version).size();
 		scheme.addProperty(XKOS.numberOfLevels, isicModel.createTypedLiteral(numberOfLevels));
 
 		levels = new ArrayList<>();
@@ -214,33 +240,6 @@ public class ISICModelMaker {
 		scheme.addProperty(XKOS.levels, isicModel.createList(levels.toArray(new Resource[0])));
 	}
 
-	/**
-	 * Adds labels read in a CSV file to the Jena model.
-	 * 
-	 * @param filePath The path of the CSV file.
-	 * @param version The version of the ISIC classification.
-	 * @param language The tag representing the language of the labels ("fr", "es", etc.). 
-	 */
-	private void addLabels(String filePath, String version, String language) {
-
-		if (filePath == null) return;
-
-		logger.debug("Preparing to create additional labels, language is " + language + ", source file is " + filePath);
-		try {
-			Reader reader = new InputStreamReader(new FileInputStream(filePath), "Cp1252");
-			CSVParser parser = new CSVParser(reader, ISIC_LABELS_FILE_FORMAT.get(version));
-			for (CSVRecord record : parser) {
-				String itemCode = record.get(0);
-				Resource itemResource = isicModel.createResource(Names.getItemURI(itemCode, "ISIC", version));
-				itemResource.addProperty(SKOS.prefLabel, isicModel.createLiteral(record.get(1), language));
-			}
-			parser.close();
-			reader.close();
-		} catch (Exception e) {
-			logger.error("Error adding labels from " + filePath, e);
-		}
-	}
-
 	private void createCorrespondenceModel(String sourceClassification, String sourceVersion, String targetClassification, String targetVersion) {
 
 		String sourceShortName = Names.getCSShortName(sourceClassification, sourceVersion);
@@ -269,41 +268,43 @@ public class ISICModelMaker {
 			table.addProperty(RDFS.comment, isicModel.createLiteral("The correspondence does not yet include divisions 45, 46 and 47 of ISIC", "en"));
 
 		try {
-			Reader reader = new FileReader(INPUT_FOLDER + CORRESPONDENCE_FILE.get(selector));
 			logger.debug("Reading concept associations from " + INPUT_FOLDER + CORRESPONDENCE_FILE.get(selector));
-			CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT.withHeader());
 			// The column names are coherent across the files, except for ISIC31-CPC11
-			String sourceColumnName = sourceClassification + sourceVersion.replace(".", "") + "code";
-			String targetColumnName = targetClassification + targetVersion.replace(".", "") + "code";
-			if (selector.equals("3.11.1")) {
-				sourceColumnName = "ISICcode";
-				targetColumnName = "CPCcode";
-			}
-			for (CSVRecord record : parser) {
+			final String sourceColumnName = selector.equals("3.11.1") ? "ISICcode" : sourceClassification + sourceVersion.replace(".", "") + "code";
+			final String targetColumnName = selector.equals("3.11.1") ? "CPCcode" : targetClassification + targetVersion.replace(".", "") + "code";
+			final CodeValidator sourceValidator = CodeValidator.forFormats(sourceClassification, sourceVersion);
+			final CodeValidator targetValidator = CodeValidator.forFormats(targetClassification, targetVersion);
+			// Records are parsed and turned into statements in parallel, the statements are added to the model at the end
+			List<Statement> statements = ParallelCSVReader.read(INPUT_FOLDER + CORRESPONDENCE_FILE.get(selector), CSVFormat.DEFAULT.withHeader(), (record, buffer) -> {
 				String sourceCode = record.get(sourceColumnName);
 				String targetCode = record.get(targetColumnName);
 				// The next line is to avoid the line "83960","0","n/a" in "ISIC4-CPC2.txt"
-				if (targetCode.equals("0")) continue;
-				Resource association = isicModel.createResource(Names.getAssociationURI(sourceCode, sourceClassification, sourceVersion, targetCode, targetClassification, targetVersion), XKOS.ConceptAssociation);
-				association.addProperty(RDFS.label, sourceShortName + " " + sourceCode + " - " + targetShortName + " " + targetCode);
-				association.addProperty(XKOS.sourceConcept, isicModel.createResource(Names.getItemURI(sourceCode, sourceClassification, sourceVersion)));
-				association.addProperty(XKOS.targetConcept, isicModel.createResource(Names.getItemURI(targetCode, targetClassification, targetVersion)));
+				if (targetCode.equals("0")) return;
+				// Rows with invalid codes are skipped, they would produce invalid item URIs
+				if (!sourceValidator.isValid(sourceCode) || !targetValidator.isValid(targetCode)) {
+					logger.warn("Invalid code in correspondence row " + sourceCode + " - " + targetCode + ", row skipped");
+					return;
+				}
+				Resource association = ResourceFactory.createResource(Names.getAssociationURI(sourceCode, sourceClassification, sourceVersion, targetCode, targetClassification, targetVersion));
+				buffer.add(ResourceFactory.createStatement(association, RDF.type, XKOS.ConceptAssociation));
+				buffer.add(ResourceFactory.createStatement(association, RDFS.label, ResourceFactory.createPlainLiteral(sourceShortName + " " + sourceCode + " - " + targetShortName + " " + targetCode)));
+				buffer.add(ResourceFactory.createStatement(association, XKOS.sourceConcept, ResourceFactory.createResource(Names.getItemURI(sourceCode, sourceClassification, sourceVersion))));
+				buffer.add(ResourceFactory.createStatement(association, XKOS.targetConcept, ResourceFactory.createResource(Names.getItemURI(targetCode, targetClassification, targetVersion))));
 				// Notes on associations only in ISIC31-ISIC4 correspondence
-				if ((selector.equals("3.14")) && (record.get("Detail").length() > 0)) association.addProperty(RDFS.comment, isicModel.createLiteral(record.get("Detail"), "en"));
-				table.addProperty(XKOS.madeOf, association);
+				if ((selector.equals("3.14")) && (record.get("Detail").length() > 0)) buffer.add(ResourceFactory.createStatement(association, RDFS.comment, ResourceFactory.createLangLiteral(record.get("Detail"), "en")));
+				buffer.add(ResourceFactory.createStatement(table, XKOS.madeOf, association));
 				// TODO Add 'partial' information
-			}
-			parser.close();
-			reader.close();
+			});
+			isicModel.add(statements);
 		} catch (Exception e) {
 			logger.error("Error reading correspondences from " + INPUT_FOLDER + CORRESPONDENCE_FILE.get(selector), e);
 		}
 		// Write the Turtle file and clear the model
 		String turtleFileName = Names.getCorrespondenceContext(sourceClassification, sourceVersion, targetClassification, targetVersion) + ".ttl";
 		try {
-			isicModel.write(new FileOutputStream(OUTPUT_FOLDER + turtleFileName), "TTL");
+			ModelWriter.write(isicModel, OUTPUT_FOLDER + turtleFileName);
 			logger.info("The Jena model for the correspondence between " + sourceShortName + " and " + targetShortName + " has been written to " + OUTPUT_FOLDER + turtleFileName);
-		} catch (FileNotFoundException e) {
+		} catch (IOException e) {
 			logger.error("Error saving the ISIC31-ISIC4 correspondence to " + turtleFileName, e);
 		}
 		isicModel.close();
@@ -0,0 +1,217 @@
+package fr.insee.stamina.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The <code>BuildManifest</code> class records the classification data produced by the model makers in an output folder.
+ *
+ * The manifest is a properties file (<code>manifest.properties</code>) listing, for each classification version, the output file with its
+ * SHA-256 checksum, and a generation number incremented at each registration. The file is replaced atomically, so that applications
+ * watching the manifest (see <code>ClassificationRegistry</code>) never read a partial manifest, and can reload only the outputs whose
+ * checksum changed. Registrations are serialized by a lock file (<code>manifest.properties.lock</code>), so that model makers running in
+ * different processes do not lose each other's entries.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class BuildManifest {
+
+	/** Name of the manifest file in the output folder */
+	public static final String MANIFEST_FILE_NAME = "manifest.properties";
+
+	/** Name of the file locked during the registrations, in the output folder */
+	public static final String LOCK_FILE_NAME = MANIFEST_FILE_NAME + ".lock";
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(BuildManifest.class);
+
+	/**
+	 * An output registered in the manifest.
+	 */
+	public static class Entry {
+
+		String classification;
+		String version;
+		String fileName;
+		String checksum;
+
+		public String getClassification() {
+			return classification;
+		}
+
+		public String getVersion() {
+			return version;
+		}
+
+		/**
+		 * @return The name of the output file (with the path of the output folder).
+		 */
+		public String getFileName() {
+			return fileName;
+		}
+
+		/**
+		 * @return The hexadecimal SHA-256 checksum of the output file.
+		 */
+		public String getChecksum() {
+			return checksum;
+		}
+	}
+
+	private long generation;
+	private List<Entry> entries;
+
+	private BuildManifest(long generation, List<Entry> entries) {
+		this.generation = generation;
+		this.entries = entries;
+	}
+
+	/**
+	 * @return The generation number of the manifest, incremented at each registration.
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * @return The outputs registered in the manifest, sorted by classification and version.
+	 */
+	public List<Entry> getEntries() {
+		return Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * Returns the path of the manifest of an output folder.
+	 *
+	 * @param folder The output folder.
+	 * @return The path of the manifest.
+	 */
+	public static Path getPath(String folder) {
+
+		return Paths.get(folder, MANIFEST_FILE_NAME);
+	}
+
+	/**
+	 * Reads the manifest of an output folder.
+	 *
+	 * @param folder The output folder.
+	 * @return The manifest (with generation 0 and no entries if there is no manifest).
+	 * @throws IOException In case of problem reading the manifest.
+	 */
+	public static BuildManifest read(String folder) throws IOException {
+
+		Properties properties = load(getPath(folder));
+		List<Entry> entries = new ArrayList<>();
+		for (String name : new TreeSet<>(properties.stringPropertyNames())) {
+			if (!name.endsWith(".file")) continue;
+			String key = name.substring(0, name.length() - ".file".length());
+			Entry entry = new Entry();
+			entry.classification = properties.getProperty(key + ".classification");
+			entry.version = properties.getProperty(key + ".version");
+			entry.fileName = Paths.get(folder, properties.getProperty(name)).toString();
+			entry.checksum = properties.getProperty(key + ".sha256");
+			entries.add(entry);
+		}
+		return new BuildManifest(Long.parseLong(properties.getProperty("generation", "0")), entries);
+	}
+
+	/**
+	 * Registers an output file in the manifest of its folder (the manifest is created if needed).
+	 *
+	 * @param classification Short name of the classification, e.g. "NACE", "ISIC", etc.
+	 * @param version Version of the classification.
+	 * @param fileName The name of the output file, in the output folder.
+	 * @throws IOException In case of problem reading the output file or writing the manifest.
+	 */
+	public static synchronized void register(String classification, String version, String fileName) throws IOException {
+
+		Path file = Paths.get(fileName).toAbsolutePath();
+		Path manifestPath = file.getParent().resolve(MANIFEST_FILE_NAME);
+		String key = Names.getCSContext(classification, version);
+		String checksum = checksum(file);
+		long generation;
+
+		// The read-modify-write of the manifest is protected against other processes by the lock file (and against other threads by synchronized)
+		try (FileChannel lockChannel = FileChannel.open(manifestPath.resolveSibling(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			FileLock lock = lockChannel.lock();
+			try {
+				Properties properties = load(manifestPath);
+				generation = Long.parseLong(properties.getProperty("generation", "0")) + 1;
+				properties.setProperty("generation", String.valueOf(generation));
+				properties.setProperty(key + ".classification", classification);
+				properties.setProperty(key + ".version", version);
+				properties.setProperty(key + ".file", file.getFileName().toString());
+				properties.setProperty(key + ".sha256", checksum);
+
+				// Write to a temporary file and move it, so that readers see either the old or the new manifest
+				Path temporaryPath = manifestPath.resolveSibling(MANIFEST_FILE_NAME + ".tmp");
+				try (Writer writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8)) {
+					properties.store(writer, "Stamina build manifest");
+				}
+				try {
+					Files.move(temporaryPath, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(temporaryPath, manifestPath, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				lock.release();
+			}
+		}
+		logger.debug(fileName + " registered in manifest " + manifestPath + " (generation " + generation + ")");
+	}
+
+	private static Properties load(Path manifestPath) throws IOException {
+
+		Properties properties = new Properties();
+		if (Files.exists(manifestPath)) {
+			try (Reader reader = Files.newBufferedReader(manifestPath, StandardCharsets.UTF_8)) {
+				properties.load(reader);
+			}
+		}
+		return properties;
+	}
+
+	/**
+	 * Computes the hexadecimal SHA-256 checksum of a file, as recorded in the manifest.
+	 *
+	 * @param file The path of the file.
+	 * @return The checksum.
+	 * @throws IOException In case of problem reading the file.
+	 */
+	public static String checksum(Path file) throws IOException {
+
+		try (InputStream input = new DigestInputStream(Files.newInputStream(file), MessageDigest.getInstance("SHA-256"))) {
+			byte[] buffer = new byte[64 * 1024];
+			while (input.read(buffer) >= 0);
+			StringBuilder checksum = new StringBuilder();
+			for (byte value : ((DigestInputStream) input).getMessageDigest().digest()) checksum.append(String.format("%02x", value));
+			return checksum.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-256 is available on all Java platforms
+			throw new IllegalStateException(e);
+		}
+	}
+}
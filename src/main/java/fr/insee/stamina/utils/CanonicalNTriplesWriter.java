@@ -0,0 +1,257 @@
+package fr.insee.stamina.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.riot.system.StreamRDFOps;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The <code>CanonicalNTriplesWriter</code> class writes RDF as canonical N-Triples: one triple per line, lines sorted and without
+ * duplicates, blank nodes labelled deterministically. The output is thus byte-identical for identical input graphs.
+ *
+ * The writer is a Jena <code>StreamRDF</code>: triples without blank nodes are formatted and sent to an <code>ExternalSorter</code> as
+ * they arrive, so memory is bounded. Triples with blank nodes are kept until the end of the stream, when the blank nodes are labelled
+ * with a hash of their neighbourhood refined iteratively (the same technique as colour refinement), which does not depend on the
+ * internal identifiers assigned by Jena. Blank nodes that refinement cannot distinguish are then told apart by individualization, so each
+ * blank node gets its own label.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class CanonicalNTriplesWriter extends StreamRDFBase {
+
+	/** Maximum number of refinement rounds for blank node labels */
+	public static int MAX_ROUNDS = 32;
+
+	/** Maximum number of labellings tried to distinguish blank nodes that refinement cannot tell apart */
+	public static int MAX_CANDIDATES = 4096;
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(CanonicalNTriplesWriter.class);
+
+	private OutputStream output;
+
+	private ExternalSorter sorter;
+
+	/** Triples containing blank nodes, labelled at the end of the stream */
+	private List<Triple> blankNodeTriples = new ArrayList<>();
+
+	/**
+	 * Constructs a writer with the default sorter chunk size.
+	 *
+	 * @param output The output stream (not closed by the writer).
+	 */
+	public CanonicalNTriplesWriter(OutputStream output) {
+		this(output, ExternalSorter.CHUNK_SIZE);
+	}
+
+	/**
+	 * Constructs a writer with a given sorter chunk size.
+	 *
+	 * @param output The output stream (not closed by the writer).
+	 * @param chunkSize The maximum number of lines kept in memory by the sorter.
+	 */
+	public CanonicalNTriplesWriter(OutputStream output, int chunkSize) {
+		this.output = output;
+		this.sorter = new ExternalSorter(chunkSize);
+	}
+
+	/**
+	 * Writes a graph as canonical N-Triples.
+	 *
+	 * @param graph The graph.
+	 * @param output The output stream (not closed).
+	 */
+	public static void write(Graph graph, OutputStream output) {
+
+		CanonicalNTriplesWriter writer = new CanonicalNTriplesWriter(output);
+		writer.start();
+		StreamRDFOps.sendTriplesToStream(graph, writer);
+		writer.finish();
+	}
+
+	@Override
+	public void triple(Triple triple) {
+
+		if (triple.getSubject().isBlank() || triple.getObject().isBlank()) blankNodeTriples.add(triple);
+		else sorter.add(format(triple, null));
+	}
+
+	@Override
+	public void finish() {
+
+		try {
+			Map<Node, String> labels = getBlankNodeLabels(blankNodeTriples);
+			for (Triple triple : blankNodeTriples) sorter.add(format(triple, labels));
+			Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+			sorter.writeSorted(writer);
+			writer.flush();
+			sorter.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Formats a triple as a N-Triples line (without end of line).
+	 */
+	private static String format(Triple triple, Map<Node, String> labels) {
+
+		return format(triple.getSubject(), labels) + " " + NodeFmtLib.strNT(triple.getPredicate()) + " " + format(triple.getObject(), labels) + " .";
+	}
+
+	private static String format(Node node, Map<Node, String> labels) {
+
+		return node.isBlank() ? "_:" + labels.get(node) : NodeFmtLib.strNT(node);
+	}
+
+	/**
+	 * Computes deterministic labels for the blank nodes of a set of triples.
+	 * At each round of refinement, the label of a blank node is the hash of its previous label and of its sorted incoming and outgoing
+	 * arcs, where neighbour blank nodes are represented by their previous labels. Rounds stop when the partition of the blank nodes is
+	 * stable. If some blank nodes still share a label, the first class of tied nodes is broken by individualizing each of its nodes in turn
+	 * and refining again, recursively, and the labelling giving the smallest serialization is kept (as in RDFC-1.0). Nodes having exactly
+	 * the same arcs are interchangeable, so only one of them is tried.
+	 *
+	 * @param triples The triples containing the blank nodes.
+	 * @return A map giving a distinct label to each blank node.
+	 * @throws IllegalStateException If the blank nodes cannot be labelled within <code>MAX_CANDIDATES</code> tries.
+	 */
+	public static Map<Node, String> getBlankNodeLabels(List<Triple> triples) {
+
+		Map<Node, List<Triple>> arcs = new HashMap<>();
+		for (Triple triple : triples) {
+			if (triple.getSubject().isBlank()) arcs.computeIfAbsent(triple.getSubject(), key -> new ArrayList<>()).add(triple);
+			if (triple.getObject().isBlank() && !triple.getObject().equals(triple.getSubject()))
+				arcs.computeIfAbsent(triple.getObject(), key -> new ArrayList<>()).add(triple);
+		}
+
+		Map<Node, String> labels = new HashMap<>();
+		for (Node blankNode : arcs.keySet()) labels.put(blankNode, "");
+		int[] candidates = {0};
+		Map<Node, String> canonicalLabels = individualize(triples, arcs, refine(arcs, labels), candidates);
+		if (candidates[0] > 1) logger.debug(candidates[0] + " labellings tried to distinguish the blank nodes");
+
+		return canonicalLabels;
+	}
+
+	/**
+	 * Refines the labels of the blank nodes until the partition is stable.
+	 */
+	private static Map<Node, String> refine(Map<Node, List<Triple>> arcs, Map<Node, String> labels) {
+
+		int distinctLabels = new HashSet<>(labels.values()).size();
+		for (int round = 0; round < MAX_ROUNDS; round++) {
+			Map<Node, String> newLabels = new HashMap<>();
+			for (Map.Entry<Node, List<Triple>> entry : arcs.entrySet()) {
+				Node blankNode = entry.getKey();
+				List<String> signature = getSignature(blankNode, entry.getValue(), labels);
+				newLabels.put(blankNode, hash(labels.get(blankNode) + "\n" + String.join("\n", signature)));
+			}
+			int newDistinctLabels = new HashSet<>(newLabels.values()).size();
+			labels = newLabels;
+			if ((round > 0) && (newDistinctLabels == distinctLabels)) break;
+			distinctLabels = newDistinctLabels;
+		}
+
+		return labels;
+	}
+
+	/**
+	 * Returns the sorted arcs of a blank node, neighbour blank nodes being represented by their labels (or by their identity if labels is
+	 * <code>null</code>).
+	 */
+	private static List<String> getSignature(Node blankNode, List<Triple> nodeArcs, Map<Node, String> labels) {
+
+		List<String> signature = new ArrayList<>();
+		for (Triple triple : nodeArcs) {
+			String predicate = NodeFmtLib.strNT(triple.getPredicate());
+			if (blankNode.equals(triple.getSubject())) signature.add("> " + predicate + " " + neighbour(triple.getObject(), blankNode, labels));
+			if (blankNode.equals(triple.getObject())) signature.add("< " + predicate + " " + neighbour(triple.getSubject(), blankNode, labels));
+		}
+		Collections.sort(signature);
+
+		return signature;
+	}
+
+	/**
+	 * Breaks the ties remaining after refinement: each node of the first class of tied nodes is individualized in turn, and the labelling
+	 * giving the smallest serialization of the triples is returned.
+	 */
+	private static Map<Node, String> individualize(List<Triple> triples, Map<Node, List<Triple>> arcs, Map<Node, String> labels, int[] candidates) {
+
+		Map<String, List<Node>> classes = new TreeMap<>();
+		for (Map.Entry<Node, String> entry : labels.entrySet()) classes.computeIfAbsent(entry.getValue(), key -> new ArrayList<>()).add(entry.getKey());
+		List<Node> tied = null;
+		for (List<Node> nodes : classes.values()) if (nodes.size() > 1) {
+			tied = nodes;
+			break;
+		}
+		if (tied == null) {
+			if (++candidates[0] > MAX_CANDIDATES) throw new IllegalStateException("Blank nodes could not be labelled canonically within " + MAX_CANDIDATES + " tries");
+			return labels;
+		}
+
+		// Nodes with exactly the same arcs can be exchanged without changing the graph, only one of them needs to be tried
+		Set<List<String>> tried = new HashSet<>();
+		Map<Node, String> best = null;
+		String bestSerialization = null;
+		for (Node candidate : tied) {
+			if (!tried.add(getSignature(candidate, arcs.get(candidate), null))) continue;
+			Map<Node, String> individualized = new HashMap<>(labels);
+			individualized.put(candidate, hash(labels.get(candidate) + "\nindividualized"));
+			Map<Node, String> result = individualize(triples, arcs, refine(arcs, individualized), candidates);
+			List<String> lines = new ArrayList<>();
+			for (Triple triple : triples) lines.add(format(triple, result));
+			lines.sort(ExternalSorter.CODE_POINT_ORDER);
+			String serialization = String.join("\n", lines);
+			if ((bestSerialization == null) || (ExternalSorter.CODE_POINT_ORDER.compare(serialization, bestSerialization) < 0)) {
+				best = result;
+				bestSerialization = serialization;
+			}
+		}
+
+		return best;
+	}
+
+	private static String neighbour(Node node, Node self, Map<Node, String> labels) {
+
+		if (node.equals(self)) return "_:self";
+		if (!node.isBlank()) return NodeFmtLib.strNT(node);
+		return (labels == null) ? "_:#" + node.getBlankNodeLabel() : "_:" + labels.get(node);
+	}
+
+	private static String hash(String text) {
+
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] bytes = digest.digest(text.getBytes(StandardCharsets.UTF_8));
+			return "c" + String.format("%064x", new BigInteger(1, bytes)).substring(0, 32);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // Cannot happen, SHA-256 is mandatory on all platforms
+		}
+	}
+}
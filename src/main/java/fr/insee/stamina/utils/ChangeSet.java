@@ -0,0 +1,51 @@
+package fr.insee.stamina.utils;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+
+/**
+ * Vocabulary definition for the <a href="https://vocab.org/changeset/">Changeset vocabulary</a>.
+ *
+ * @see <a href="https://vocab.org/changeset/schema.rdf">RDF specification</a>
+ */
+public class ChangeSet {
+	/**
+	 * The RDF model that holds the Changeset entities
+	 */
+	public static Model model = ModelFactory.createDefaultModel();
+	/**
+	 * The namespace of the Changeset vocabulary as a string
+	 */
+	public static final String uri = "http://purl.org/vocab/changeset/schema#";
+	/**
+	 * Returns the namespace of the Changeset vocabulary as a string
+	 * @return the namespace of the Changeset vocabulary
+	 */
+	public static String getURI() {
+		return uri;
+	}
+	/**
+	 * The namespace of the Changeset vocabulary
+	 */
+	public static final Resource NAMESPACE = model.createResource(uri);
+	/* ##########################################################
+	 * Defines Changeset Classes
+	   ########################################################## */
+
+	public static final Resource ChangeSet = model.createResource(uri + "ChangeSet");
+	/* ##########################################################
+	 * Defines Changeset Properties
+	   ########################################################## */
+	// Changeset object properties
+	public static final Property addition = model.createProperty(uri + "addition");
+	public static final Property precedingChangeSet = model.createProperty(uri + "precedingChangeSet");
+	public static final Property removal = model.createProperty(uri + "removal");
+	public static final Property statement = model.createProperty(uri + "statement");
+	public static final Property subjectOfChange = model.createProperty(uri + "subjectOfChange");
+	// Changeset datatype properties
+	public static final Property changeReason = model.createProperty(uri + "changeReason");
+	public static final Property createdDate = model.createProperty(uri + "createdDate");
+	public static final Property creatorName = model.createProperty(uri + "creatorName");
+}
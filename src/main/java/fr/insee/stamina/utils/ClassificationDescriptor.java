@@ -0,0 +1,253 @@
+package fr.insee.stamina.utils;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The <code>ClassificationDescriptor</code> class holds the naming rules of a classification: version qualifier, labels, level names
+ * and rules giving the depth of an item from its code.
+ *
+ * Descriptors are read from a JSON descriptor file (see <code>classifications.json</code> in the resources) and are immutable, so that
+ * they can be shared by model makers running concurrently. Rules that apply only to some versions of a classification (e.g. the
+ * subsections of NACE Rev. 1) are described by variants selected by a regular expression on the version.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public final class ClassificationDescriptor {
+
+	/** System property giving the path of a descriptor file replacing the default one */
+	public static final String DESCRIPTOR_FILE_PROPERTY = "stamina.classifications";
+
+	/** Default descriptor file, in the resources */
+	public static final String DEFAULT_DESCRIPTOR_RESOURCE = "/classifications.json";
+
+	/**
+	 * Rules of a classification for the versions matching a pattern.
+	 */
+	private static final class Variant {
+
+		final Pattern versions;
+		final List<String> levels;
+		/** Formats of the codes of each level: '9' stands for a digit, 'A' for an upper case letter, other characters for themselves */
+		final List<String> codeFormats;
+		final int numericDepthOffset;
+
+		Variant(Pattern versions, List<String> levels, List<String> codeFormats, int numericDepthOffset) {
+			this.versions = versions;
+			this.levels = levels;
+			this.codeFormats = codeFormats;
+			this.numericDepthOffset = numericDepthOffset;
+		}
+	}
+
+	private final String name;
+	private final String qualifier;
+	private final String label;
+	private final String alternativeLabel;
+	private final String shortName;
+	private final List<Variant> variants;
+
+	private ClassificationDescriptor(String name, String qualifier, String label, String alternativeLabel, String shortName, List<Variant> variants) {
+		this.name = name;
+		this.qualifier = qualifier;
+		this.label = label;
+		this.alternativeLabel = alternativeLabel;
+		this.shortName = shortName;
+		this.variants = variants;
+	}
+
+	/**
+	 * The content of a descriptor file: the base URI of the resources and the descriptors of the classifications.
+	 */
+	public static final class Catalog {
+
+		private final String baseURI;
+		private final Map<String, ClassificationDescriptor> descriptors;
+
+		private Catalog(String baseURI, Map<String, ClassificationDescriptor> descriptors) {
+			this.baseURI = baseURI;
+			this.descriptors = descriptors;
+		}
+
+		/**
+		 * Reads the descriptor file given by the <code>stamina.classifications</code> system property, or else the default descriptor file
+		 * of the resources.
+		 *
+		 * @return The catalog of the descriptor file.
+		 * @throws IllegalStateException If the descriptor file cannot be read or is invalid.
+		 */
+		public static Catalog load() {
+
+			String fileName = System.getProperty(DESCRIPTOR_FILE_PROPERTY);
+			try (InputStream input = (fileName == null) ? ClassificationDescriptor.class.getResourceAsStream(DEFAULT_DESCRIPTOR_RESOURCE) : new FileInputStream(fileName)) {
+				if (input == null) throw new IOException("Resource " + DEFAULT_DESCRIPTOR_RESOURCE + " not found");
+				return read(input);
+			} catch (IOException | IllegalArgumentException e) {
+				throw new IllegalStateException("Error reading classification descriptors from " + ((fileName == null) ? DEFAULT_DESCRIPTOR_RESOURCE : fileName), e);
+			}
+		}
+
+		/**
+		 * Reads a descriptor file.
+		 *
+		 * @param input The descriptor file as a stream.
+		 * @return The catalog of the descriptor file.
+		 * @throws IOException In case of problem reading the stream.
+		 * @throws IllegalArgumentException If the descriptor file is invalid.
+		 */
+		public static Catalog read(InputStream input) throws IOException {
+
+			JsonNode root = new ObjectMapper().readTree(input);
+			Map<String, ClassificationDescriptor> descriptors = new LinkedHashMap<>();
+			for (JsonNode classification : root.path("classifications")) {
+				String name = getText(classification, "name", true).toUpperCase();
+				List<Variant> variants = new ArrayList<>();
+				// Variants are tried in order, the rules of the classification itself come last and apply to all versions
+				for (JsonNode variant : classification.path("variants")) variants.add(getVariant(variant, name));
+				variants.add(getVariant(classification, name));
+				descriptors.put(name, new ClassificationDescriptor(name, getText(classification, "qualifier", true), getText(classification, "label", true),
+						getText(classification, "alternativeLabel", false), getText(classification, "shortName", true), Collections.unmodifiableList(variants)));
+			}
+
+			return new Catalog(getText(root, "baseURI", true), Collections.unmodifiableMap(descriptors));
+		}
+
+		/**
+		 * @return The base URI for all resources in the classification models.
+		 */
+		public String getBaseURI() {
+			return baseURI;
+		}
+
+		/**
+		 * Returns the descriptor of a classification.
+		 *
+		 * @param classification Short name of the classification, e.g. "NACE", "ISIC", etc. (case insensitive).
+		 * @return The descriptor, or <code>null</code> if the classification is not described.
+		 */
+		public ClassificationDescriptor get(String classification) {
+			return descriptors.get(classification.toUpperCase());
+		}
+
+		/**
+		 * @return The descriptors by classification short name, as an unmodifiable map.
+		 */
+		public Map<String, ClassificationDescriptor> getDescriptors() {
+			return descriptors;
+		}
+	}
+
+	private static Variant getVariant(JsonNode node, String name) {
+
+		List<String> levels = new ArrayList<>();
+		for (JsonNode level : node.path("levels")) levels.add(level.asText());
+		if (levels.isEmpty()) throw new IllegalArgumentException("No levels defined for classification " + name);
+		List<String> codeFormats = new ArrayList<>();
+		for (JsonNode codeFormat : node.path("codeFormats")) codeFormats.add(codeFormat.asText());
+		if (!codeFormats.isEmpty() && (codeFormats.size() != levels.size()))
+			throw new IllegalArgumentException("The code formats of classification " + name + " do not match its levels");
+		Pattern versions = node.has("versions") ? Pattern.compile(node.get("versions").asText()) : null;
+
+		return new Variant(versions, Collections.unmodifiableList(levels), Collections.unmodifiableList(codeFormats), node.path("numericDepthOffset").asInt(0));
+	}
+
+	private static String getText(JsonNode node, String field, boolean required) {
+
+		if (node.hasNonNull(field)) return node.get(field).asText();
+		if (required) throw new IllegalArgumentException("Missing field '" + field + "' in classification descriptor " + node);
+		return null;
+	}
+
+	/**
+	 * Returns the rules applying to a version.
+	 */
+	private Variant getVariant(String version) {
+
+		for (Variant variant : variants) if ((variant.versions == null) || variant.versions.matcher(version).matches()) return variant;
+		return variants.get(variants.size() - 1);
+	}
+
+	/**
+	 * @return The short name of the classification in upper case, e.g. "NACE", "ISIC", etc.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return The qualifier inserted before the version in the naming context: 'r' for revisions, 'v' for versions.
+	 */
+	public String getQualifier() {
+		return qualifier;
+	}
+
+	/**
+	 * Returns the long name of a version of the classification.
+	 *
+	 * @param version Version of the classification ("4", "2.1", "2008", etc.).
+	 * @param alternative <code>true</code> for the alternative label, if there is one.
+	 * @return The long name of the version.
+	 */
+	public String getLabel(String version, boolean alternative) {
+		return String.format(((alternative && (alternativeLabel != null)) ? alternativeLabel : label), version);
+	}
+
+	/**
+	 * Returns the short name of a version of the classification, e.g. ISIC Rev.3.1, CPC Ver.2.1, etc.
+	 *
+	 * @param version Version of the classification.
+	 * @return The short name of the version.
+	 */
+	public String getShortName(String version) {
+		return String.format(shortName, version);
+	}
+
+	/**
+	 * Returns the names of the levels of a version of the classification.
+	 *
+	 * @param version Version of the classification.
+	 * @return The names of the levels, from the most aggregated one, as an unmodifiable list.
+	 */
+	public List<String> getLevelNames(String version) {
+		return getVariant(version).levels;
+	}
+
+	/**
+	 * Returns the formats of the codes of a version of the classification (see <code>CodeValidator</code>).
+	 * In a format, '9' stands for a digit, 'A' for an upper case letter, and other characters stand for themselves.
+	 *
+	 * @param version Version of the classification.
+	 * @return The formats of the codes of each level, from the most aggregated one, or an empty list if they are not described.
+	 */
+	public List<String> getCodeFormats(String version) {
+		return getVariant(version).codeFormats;
+	}
+
+	/**
+	 * Returns the depth of the level to which an item belongs.
+	 * The depth is the number of characters of the code (except dots), plus an offset for numeric codes in the versions where they are
+	 * preceded by a level of non-numeric codes of two characters (e.g. subsections of NACE Rev. 1).
+	 *
+	 * @param code The item code.
+	 * @param version Version of the classification.
+	 * @return The depth of the level (the most aggregated level has depth 1).
+	 */
+	public int getItemLevelDepth(String code, String version) {
+
+		int depth = code.replace(".", "").length();
+		if (Character.isDigit(code.charAt(0))) depth += getVariant(version).numericDepthOffset;
+
+		return depth;
+	}
+}
@@ -0,0 +1,285 @@
+package fr.insee.stamina.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The <code>DocumentSegmenter</code> class splits a sequence of document elements (text lines, paragraphs...) into entries.
+ *
+ * An entry starts with an element recognized by the entry start matcher, which returns the header of the entry (for example its code and
+ * label), and continues with all the following elements until the next entry start. Elements before the first entry start and elements
+ * selected by the skip predicate are ignored. An element selected by the terminator predicate (for example a malformed entry start)
+ * ends the document: the current entry is kept, and the following elements are ignored. Each entry is handed to the consumer as soon as
+ * it is complete, so documents are processed in one pass without building the full list of entries.
+ *
+ * @param <E> The type of the document elements.
+ * @param <H> The type of the entry headers.
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class DocumentSegmenter<E, H> {
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(DocumentSegmenter.class);
+
+	/** Returns the header of the entry started by an element, or <code>null</code> if the element does not start an entry */
+	private Function<E, H> entryStart;
+
+	/** Selects the elements to ignore */
+	private Predicate<E> skip;
+
+	/** Selects the elements ending the document */
+	private Predicate<E> terminator;
+
+	/** <code>true</code> once an element ending the document was met */
+	private boolean terminated = false;
+
+	/** Receives the entries as they are completed */
+	private Consumer<Segment<E, H>> consumer;
+
+	/** The entry being read */
+	private Segment<E, H> currentSegment = null;
+
+	/** Number of entries emitted */
+	private int count = 0;
+
+	/**
+	 * Constructs a segmenter with an entry start matcher, a skip predicate, a terminator predicate and an entry consumer.
+	 *
+	 * @param entryStart The entry start matcher: returns the header of the entry for elements that start an entry, <code>null</code> otherwise.
+	 * @param skip The predicate selecting the elements to ignore.
+	 * @param terminator The predicate selecting the elements that end the document (tested after the skip predicate).
+	 * @param consumer The consumer of the entries.
+	 */
+	public DocumentSegmenter(Function<E, H> entryStart, Predicate<E> skip, Predicate<E> terminator, Consumer<Segment<E, H>> consumer) {
+		this.entryStart = entryStart;
+		this.skip = skip;
+		this.terminator = terminator;
+		this.consumer = consumer;
+	}
+
+	/**
+	 * Constructs a segmenter with an entry start matcher, a skip predicate and an entry consumer.
+	 *
+	 * @param entryStart The entry start matcher: returns the header of the entry for elements that start an entry, <code>null</code> otherwise.
+	 * @param skip The predicate selecting the elements to ignore.
+	 * @param consumer The consumer of the entries.
+	 */
+	public DocumentSegmenter(Function<E, H> entryStart, Predicate<E> skip, Consumer<Segment<E, H>> consumer) {
+		this(entryStart, skip, element -> false, consumer);
+	}
+
+	/**
+	 * Constructs a segmenter that does not ignore any element.
+	 *
+	 * @param entryStart The entry start matcher: returns the header of the entry for elements that start an entry, <code>null</code> otherwise.
+	 * @param consumer The consumer of the entries.
+	 */
+	public DocumentSegmenter(Function<E, H> entryStart, Consumer<Segment<E, H>> consumer) {
+		this(entryStart, element -> false, consumer);
+	}
+
+	/**
+	 * Feeds an element to the segmenter: if the element starts a new entry, the current entry is emitted.
+	 * Elements are ignored once the document was terminated.
+	 *
+	 * @param element The document element.
+	 */
+	public void accept(E element) {
+
+		if (terminated || skip.test(element)) return;
+		if (terminator.test(element)) {
+			terminated = true;
+			return;
+		}
+		H header = entryStart.apply(element);
+		if (header != null) {
+			emit();
+			currentSegment = new Segment<>(header);
+		}
+		else if (currentSegment != null) currentSegment.body.add(element);
+	}
+
+	/**
+	 * @return <code>true</code> if an element ending the document was met, the following elements being ignored.
+	 */
+	public boolean isTerminated() {
+		return terminated;
+	}
+
+	/**
+	 * Signals the end of the document: the last entry is emitted.
+	 *
+	 * @return The number of entries emitted since the segmenter was created.
+	 */
+	public int finish() {
+
+		emit();
+		logger.debug("End of document, " + count + " entries emitted");
+		return count;
+	}
+
+	/**
+	 * Segments a sequence of elements.
+	 *
+	 * @param elements The document elements.
+	 * @return The number of entries emitted.
+	 */
+	public int segment(Iterable<E> elements) {
+
+		for (E element : elements) {
+			accept(element);
+			if (terminated) break;
+		}
+		return finish();
+	}
+
+	private void emit() {
+
+		if (currentSegment == null) return;
+		consumer.accept(currentSegment);
+		currentSegment = null;
+		count++;
+	}
+
+	/**
+	 * Segments the lines read from a reader.
+	 *
+	 * @param reader The reader, which is read until the end but not closed.
+	 * @param entryStart The entry start matcher.
+	 * @param skip The predicate selecting the lines to ignore.
+	 * @param consumer The consumer of the entries.
+	 * @return The number of entries emitted.
+	 * @throws IOException In case of problem reading the lines.
+	 */
+	public static <H> int segmentLines(BufferedReader reader, Function<String, H> entryStart, Predicate<String> skip, Consumer<Segment<String, H>> consumer) throws IOException {
+
+		return segmentLines(reader, entryStart, skip, line -> false, consumer);
+	}
+
+	/**
+	 * Segments the lines read from a reader, until the end of the reader or a line ending the document.
+	 *
+	 * @param reader The reader, which is not closed.
+	 * @param entryStart The entry start matcher.
+	 * @param skip The predicate selecting the lines to ignore.
+	 * @param terminator The predicate selecting the lines that end the document.
+	 * @param consumer The consumer of the entries.
+	 * @return The number of entries emitted.
+	 * @throws IOException In case of problem reading the lines.
+	 */
+	public static <H> int segmentLines(BufferedReader reader, Function<String, H> entryStart, Predicate<String> skip, Predicate<String> terminator,
+			Consumer<Segment<String, H>> consumer) throws IOException {
+
+		DocumentSegmenter<String, H> segmenter = new DocumentSegmenter<>(entryStart, skip, terminator, consumer);
+		String line;
+		while (!segmenter.isTerminated() && ((line = reader.readLine()) != null)) segmenter.accept(line);
+		return segmenter.finish();
+	}
+
+	/**
+	 * An entry of the document: its header and the elements that follow it.
+	 *
+	 * @param <E> The type of the document elements.
+	 * @param <H> The type of the entry header.
+	 */
+	public static class Segment<E, H> {
+
+		private H header;
+
+		private List<E> body = new ArrayList<>();
+
+		Segment(H header) {
+			this.header = header;
+		}
+
+		/**
+		 * @return The header of the entry.
+		 */
+		public H getHeader() {
+			return header;
+		}
+
+		/**
+		 * @return The elements following the entry start, in document order.
+		 */
+		public List<E> getBody() {
+			return body;
+		}
+
+		/**
+		 * Joins the string values of the elements of the body.
+		 *
+		 * @param delimiter The delimiter inserted between elements.
+		 * @return The body as a string.
+		 */
+		public String join(String delimiter) {
+			return body.stream().map(String::valueOf).collect(Collectors.joining(delimiter));
+		}
+	}
+
+	/**
+	 * A consumer that processes the entries on a dedicated thread, in the order they are received.
+	 *
+	 * The document can thus be read while the entries are added to a model, and the model is only modified by one thread.
+	 * The entries are all processed when the <code>close</code> method returns.
+	 *
+	 * @param <T> The type of the entries.
+	 */
+	public static class AsynchronousConsumer<T> implements Consumer<T>, AutoCloseable {
+
+		private Consumer<T> delegate;
+
+		private ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		private List<Future<?>> results = new ArrayList<>();
+
+		/**
+		 * Constructs an asynchronous consumer.
+		 *
+		 * @param delegate The consumer actually processing the entries.
+		 */
+		public AsynchronousConsumer(Consumer<T> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void accept(T entry) {
+			results.add(executor.submit(() -> delegate.accept(entry)));
+		}
+
+		/**
+		 * Waits for all the entries to be processed.
+		 *
+		 * @throws IOException If the processing of an entry failed or was interrupted.
+		 */
+		@Override
+		public void close() throws IOException {
+
+			executor.shutdown();
+			try {
+				for (Future<?> result : results) result.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while processing entries", e);
+			} catch (ExecutionException e) {
+				throw new IOException("Error processing entry", e.getCause());
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+	}
+}
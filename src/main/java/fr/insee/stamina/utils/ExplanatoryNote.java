@@ -69,20 +69,15 @@ public class ExplanatoryNote {
 	/**
 	 * Returns the explanatory note as an XHTML block.
 	 * 
-	 * In this basic implementation, the formatted text is a XHTML div wrapping the concatenation of paragraph elements containing the source lines.
+	 * The source lines are parsed into paragraphs and list items according to the note type, and rendered with escaped text by the default
+	 * <code>NoteRenderer</code>, which caches the fragments of identical notes.
 	 * 
 	 * @return A <code>String</code> containing the note text formatted as specified above.
+	 * @see NoteRenderer
 	 */
 	public String getFormattedText() {
 
-		StringBuilder xhtml = new StringBuilder("<div xmlns=\"http://www.w3.org/1999/xhtml\">");
-
-		for (String line : sourceText) {
-			xhtml.append("<p>").append(line).append("</p>");
-		}
-		xhtml.append("</div>");
-
-		return xhtml.toString();
+		return NoteRenderer.getDefault().render(this);
 	}
 
 	/**
@@ -0,0 +1,194 @@
+package fr.insee.stamina.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The <code>ExternalSorter</code> class sorts a sequence of lines with a bounded amount of memory, and removes duplicates.
+ *
+ * Lines are accumulated in memory up to a given number, then sorted and spilled to a temporary file. The sorted output is produced by
+ * merging the temporary files (k-way merge). Lines are sorted by Unicode code point (see <code>CODE_POINT_ORDER</code>), which is also the
+ * byte order of their UTF-8 encoding, so the order does not depend on the locale or on the platform.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class ExternalSorter implements AutoCloseable {
+
+	/** Default maximum number of lines kept in memory */
+	public static int CHUNK_SIZE = 500000;
+
+	/**
+	 * Order of the strings by Unicode code point. It differs from <code>String.compareTo</code> (UTF-16 code unit order) only for the
+	 * characters above U+FFFF, whose surrogates must sort after the characters U+E000 to U+FFFF.
+	 */
+	public static final Comparator<String> CODE_POINT_ORDER = (first, second) -> {
+		int length = Math.min(first.length(), second.length());
+		for (int index = 0; index < length; index++) {
+			char firstChar = first.charAt(index);
+			char secondChar = second.charAt(index);
+			if (firstChar == secondChar) continue;
+			if (Character.isSurrogate(firstChar) != Character.isSurrogate(secondChar)) return Character.isSurrogate(firstChar) ? 1 : -1;
+			return firstChar - secondChar;
+		}
+		return first.length() - second.length();
+	};
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(ExternalSorter.class);
+
+	/** Maximum number of lines kept in memory */
+	private int chunkSize;
+
+	/** Lines not yet spilled */
+	private List<String> buffer = new ArrayList<>();
+
+	/** Temporary files containing the sorted chunks */
+	private List<Path> chunks = new ArrayList<>();
+
+	/**
+	 * Constructs a sorter with the default chunk size.
+	 */
+	public ExternalSorter() {
+		this(CHUNK_SIZE);
+	}
+
+	/**
+	 * Constructs a sorter with a given chunk size.
+	 *
+	 * @param chunkSize The maximum number of lines kept in memory.
+	 */
+	public ExternalSorter(int chunkSize) {
+		this.chunkSize = Math.max(1, chunkSize);
+	}
+
+	/**
+	 * Adds a line to sort.
+	 *
+	 * @param line The line (must not contain line breaks).
+	 */
+	public void add(String line) {
+
+		buffer.add(line);
+		if (buffer.size() >= chunkSize) {
+			try {
+				spill();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Sorts the lines in the buffer and writes them to a temporary file.
+	 */
+	private void spill() throws IOException {
+
+		buffer.sort(CODE_POINT_ORDER);
+		Path chunk = Files.createTempFile("stamina-sort-", ".txt");
+		chunk.toFile().deleteOnExit();
+		try (BufferedWriter writer = Files.newBufferedWriter(chunk, StandardCharsets.UTF_8)) {
+			writeDistinct(buffer, writer);
+		}
+		chunks.add(chunk);
+		logger.debug("Chunk of " + buffer.size() + " lines spilled to " + chunk);
+		buffer.clear();
+	}
+
+	private static void writeDistinct(List<String> lines, Writer writer) throws IOException {
+
+		String previous = null;
+		for (String line : lines) {
+			if (line.equals(previous)) continue;
+			writer.write(line);
+			writer.write('\n');
+			previous = line;
+		}
+	}
+
+	/**
+	 * Writes all the lines added, sorted and without duplicates, each followed by a line feed.
+	 *
+	 * @param writer The writer where the lines are written (not closed).
+	 * @throws IOException In case of problem reading the temporary files or writing the lines.
+	 */
+	public void writeSorted(Writer writer) throws IOException {
+
+		if (chunks.isEmpty()) {
+			// Everything fits in memory
+			buffer.sort(CODE_POINT_ORDER);
+			writeDistinct(buffer, writer);
+			return;
+		}
+		if (!buffer.isEmpty()) spill();
+
+		// Merge the sorted chunks
+		List<BufferedReader> readers = new ArrayList<>();
+		try {
+			PriorityQueue<ChunkHead> heads = new PriorityQueue<>();
+			for (Path chunk : chunks) {
+				BufferedReader reader = Files.newBufferedReader(chunk, StandardCharsets.UTF_8);
+				readers.add(reader);
+				String line = reader.readLine();
+				if (line != null) heads.add(new ChunkHead(line, reader));
+			}
+			String previous = null;
+			while (!heads.isEmpty()) {
+				ChunkHead head = heads.poll();
+				if (!head.line.equals(previous)) {
+					writer.write(head.line);
+					writer.write('\n');
+					previous = head.line;
+				}
+				String next = head.reader.readLine();
+				if (next != null) heads.add(new ChunkHead(next, head.reader));
+			}
+		} finally {
+			for (BufferedReader reader : readers) reader.close();
+		}
+		logger.debug(chunks.size() + " sorted chunks merged");
+	}
+
+	/**
+	 * Deletes the temporary files.
+	 */
+	@Override
+	public void close() throws IOException {
+
+		for (Path chunk : chunks) Files.deleteIfExists(chunk);
+		chunks.clear();
+		buffer.clear();
+	}
+
+	/**
+	 * Current line of a chunk during the merge.
+	 */
+	private static class ChunkHead implements Comparable<ChunkHead> {
+
+		String line;
+		BufferedReader reader;
+
+		ChunkHead(String line, BufferedReader reader) {
+			this.line = line;
+			this.reader = reader;
+		}
+
+		@Override
+		public int compareTo(ChunkHead other) {
+			return CODE_POINT_ORDER.compare(line, other.line);
+		}
+	}
+}
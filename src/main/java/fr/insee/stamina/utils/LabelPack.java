@@ -0,0 +1,159 @@
+package fr.insee.stamina.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.vocabulary.SKOS;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The <code>LabelPack</code> class describes a file containing the labels of a classification in one language.
+ *
+ * Each pack has its own character set and CSV format, the code and the label being read in the first two columns. Packs are parsed
+ * concurrently into code to label maps, and the labels are then added to the model in one step, so that adding languages does not
+ * multiply the processing time.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class LabelPack {
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(LabelPack.class);
+
+	private String filePath;
+	private String language;
+	private Charset charset;
+	private CSVFormat format;
+
+	/**
+	 * Constructs a label pack.
+	 *
+	 * @param filePath The path of the CSV file.
+	 * @param language The tag representing the language of the labels ("fr", "es", etc.).
+	 * @param charset The character set of the file.
+	 * @param format The CSV format of the file.
+	 */
+	public LabelPack(String filePath, String language, Charset charset, CSVFormat format) {
+		this.filePath = filePath;
+		this.language = language;
+		this.charset = charset;
+		this.format = format;
+	}
+
+	/**
+	 * Reads the labels of the pack.
+	 *
+	 * @return A map between the codes and the labels, in the order of the file.
+	 * @throws IOException In case of problem reading the file.
+	 */
+	public Map<String, String> read() throws IOException {
+
+		Map<String, String> labels = new LinkedHashMap<>();
+		try (Reader reader = TextSource.newReader(filePath, charset);
+				CSVParser parser = new CSVParser(reader, format)) {
+			for (CSVRecord record : parser) {
+				if (record.size() < 2) continue;
+				labels.put(record.get(0), record.get(1));
+			}
+		}
+		logger.debug(labels.size() + " labels read in language '" + language + "' from " + filePath);
+
+		return labels;
+	}
+
+	/**
+	 * Reads several label packs concurrently. Packs which cannot be read are logged and ignored.
+	 *
+	 * @param packs The label packs to read.
+	 * @return A map between the packs successfully read and their labels, in the order of the list of packs.
+	 */
+	public static Map<LabelPack, Map<String, String>> readAll(List<LabelPack> packs) {
+
+		Map<LabelPack, Map<String, String>> allLabels = new LinkedHashMap<>();
+		if ((packs == null) || packs.isEmpty()) return allLabels;
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(packs.size(), Runtime.getRuntime().availableProcessors()));
+		try {
+			Map<LabelPack, Future<Map<String, String>>> futures = new LinkedHashMap<>();
+			for (LabelPack pack : packs) futures.put(pack, executor.submit(pack::read));
+			for (Map.Entry<LabelPack, Future<Map<String, String>>> entry : futures.entrySet()) {
+				try {
+					allLabels.put(entry.getKey(), entry.getValue().get());
+				} catch (ExecutionException e) {
+					logger.error("Error reading labels from " + entry.getKey().filePath, e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.error("Interrupted while reading label packs", e);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return allLabels;
+	}
+
+	/**
+	 * Reads several label packs concurrently and adds the labels to a model as <code>skos:prefLabel</code> in a single step.
+	 *
+	 * @param model The model where the labels are added.
+	 * @param packs The label packs.
+	 * @param itemURI Function returning the URI of a classification item given its code.
+	 * @return The number of labels added.
+	 */
+	public static int addLabels(Model model, List<LabelPack> packs, Function<String, String> itemURI) {
+
+		List<Statement> statements = new ArrayList<>();
+		Map<String, String> uris = new HashMap<>();
+		for (Map.Entry<LabelPack, Map<String, String>> entry : readAll(packs).entrySet()) {
+			String language = entry.getKey().language;
+			for (Map.Entry<String, String> label : entry.getValue().entrySet()) {
+				String uri = uris.computeIfAbsent(label.getKey(), itemURI);
+				statements.add(model.createStatement(model.createResource(uri), SKOS.prefLabel, model.createLiteral(label.getValue(), language)));
+			}
+		}
+		model.add(statements);
+		logger.debug(statements.size() + " labels added from " + packs.size() + " label packs");
+
+		return statements.size();
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	public String getLanguage() {
+		return language;
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	public CSVFormat getFormat() {
+		return format;
+	}
+
+	@Override
+	public String toString() {
+		return "LabelPack [filePath=" + filePath + ", language=" + language + ", charset=" + charset + "]";
+	}
+}
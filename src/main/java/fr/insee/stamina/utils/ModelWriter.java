@@ -0,0 +1,97 @@
+package fr.insee.stamina.utils;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The <code>ModelWriter</code> class writes the models produced by the model makers according to the output mode.
+ *
+ * The output mode is selected with the <code>stamina.output</code> system property: 'turtle' (default) writes Turtle files as before,
+ * 'canonical' writes canonical sorted N-Triples (see <code>CanonicalNTriplesWriter</code>) with the '.nt' extension instead of '.ttl',
+ * so that identical inputs give byte-identical outputs.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class ModelWriter {
+
+	/** Name of the system property selecting the output mode */
+	public static final String OUTPUT_MODE_PROPERTY = "stamina.output";
+
+	/** Value of the output mode property for canonical N-Triples */
+	public static final String CANONICAL_MODE = "canonical";
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(ModelWriter.class);
+
+	/**
+	 * @return <code>true</code> if the output mode is canonical N-Triples.
+	 */
+	public static boolean isCanonical() {
+
+		return CANONICAL_MODE.equalsIgnoreCase(System.getProperty(OUTPUT_MODE_PROPERTY));
+	}
+
+	/**
+	 * Returns the name of the output file corresponding to a Turtle file name in the current output mode.
+	 *
+	 * @param turtleFileName The name of the Turtle file.
+	 * @return The same name in Turtle mode, the name with the '.nt' extension in canonical mode.
+	 */
+	public static String getFileName(String turtleFileName) {
+
+		if (!isCanonical()) return turtleFileName;
+		return (turtleFileName.endsWith(".ttl") ? turtleFileName.substring(0, turtleFileName.length() - 4) : turtleFileName) + ".nt";
+	}
+
+	/**
+	 * Writes a model in Turtle or in canonical N-Triples depending on the output mode.
+	 *
+	 * @param model The model to write.
+	 * @param turtleFileName The name of the Turtle file (the extension is changed in canonical mode).
+	 * @throws IOException In case of problem writing the file.
+	 */
+	public static void write(Model model, String turtleFileName) throws IOException {
+
+		write(model, turtleFileName, RDFFormat.TURTLE);
+	}
+
+	/**
+	 * Writes a model in a given format or in canonical N-Triples depending on the output mode.
+	 *
+	 * @param model The model to write.
+	 * @param fileName The name of the file (the extension is changed in canonical mode).
+	 * @param format The format used when the output mode is not canonical.
+	 * @throws IOException In case of problem writing the file.
+	 */
+	public static void write(Model model, String fileName, RDFFormat format) throws IOException {
+
+		String outputFileName = getFileName(fileName);
+		try (OutputStream output = new FileOutputStream(outputFileName)) {
+			if (isCanonical()) CanonicalNTriplesWriter.write(model.getGraph(), output);
+			else RDFDataMgr.write(output, model, format);
+		}
+		logger.debug("Model written to " + outputFileName);
+	}
+
+	/**
+	 * Returns a RDF stream writing in Turtle blocks or in canonical N-Triples depending on the output mode.
+	 *
+	 * @param output The output stream.
+	 * @return The RDF stream.
+	 */
+	public static StreamRDF getStream(OutputStream output) {
+
+		if (isCanonical()) return new CanonicalNTriplesWriter(output);
+		return StreamRDFWriter.getWriterStream(output, RDFFormat.TURTLE_BLOCKS);
+	}
+}
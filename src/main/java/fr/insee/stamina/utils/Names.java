@@ -1,37 +1,50 @@
 package fr.insee.stamina.utils;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+
+import fr.insee.stamina.index.CodeValidator;
 
 /**
  * Implementation of the URI and naming policy for the project.
+ * The naming rules specific to each classification are read from a descriptor file (see <code>ClassificationDescriptor</code>), so that
+ * classifications can be added without code changes.
  * 
  * @author Franck Cotton
  * @version 0.2, 2 Jun 2016
  */
 public class Names {
 
+	/** Naming rules of the classifications, read once from the descriptor file (see <code>ClassificationDescriptor</code>) */
+	private static final ClassificationDescriptor.Catalog CATALOG = ClassificationDescriptor.Catalog.load();
+
 	/** Base URI for all resources in the classification models */
-	public static String CLASSIFICATION_BASE_URI = "http://stamina-project.org/codes/";
-
-	/** Classifications for which major versions are named 'revisions' instead of 'versions' */
-	public static Set<String> REVISION_CLASSIFICATIONS = new HashSet<>(Arrays.asList("ISIC", "NACE", "NAF", "CPF"));
-
-	public static Map<String, List<String>> LEVEL_NAMES = new HashMap<>();
-	static {
-		LEVEL_NAMES.put("ISIC", Arrays.asList("section", "division", "group", "class"));
-		LEVEL_NAMES.put("CPC", Arrays.asList("section", "division", "group", "class", "subclass"));
-		LEVEL_NAMES.put("NACE", Arrays.asList("section", "division", "group", "class"));
-		// NACE revisions 1 and 1.1 had subsections
-		LEVEL_NAMES.put("NACEX", Arrays.asList("section", "subsection", "division", "group", "class"));
-		LEVEL_NAMES.put("CPA", Arrays.asList("section", "division", "group", "class", "category", "subcategory"));
-		// CPA 2002 and before had subsections
-		LEVEL_NAMES.put("CPAX", Arrays.asList("section", "subsection", "division", "group", "class", "category", "subcategory"));
-		// TODO Add other cases
+	public static final String CLASSIFICATION_BASE_URI = CATALOG.getBaseURI();
+
+	/**
+	 * Returns the descriptor of a classification.
+	 * 
+	 * @param classification Short name of the classification, e.g. "NACE", "ISIC", etc.
+	 * @return The descriptor of the classification.
+	 * @throws IllegalArgumentException If the classification is not described in the descriptor file.
+	 */
+	public static ClassificationDescriptor getDescriptor(String classification) {
+
+		ClassificationDescriptor descriptor = CATALOG.get(classification);
+		if (descriptor == null) throw new IllegalArgumentException("Classification " + classification + " is not described in the descriptor file");
+
+		return descriptor;
+	}
+
+	/**
+	 * Returns the names of the levels of a classification version.
+	 * 
+	 * @param classification Short name of the classification, e.g. "NACE", "ISIC", etc.
+	 * @param version Version of the classification ("4", "2.1", "2008", etc.).
+	 * @return The names of the levels, from the most aggregated one.
+	 */
+	public static List<String> getLevelNames(String classification, String version) {
+
+		return getDescriptor(classification).getLevelNames(version);
 	}
 
 	/**
@@ -70,9 +83,9 @@ public class Names {
 	 */
 	public static String getCSContext(String classification, String version) {
 
-		String versionQualifier;
-		if (REVISION_CLASSIFICATIONS.contains(classification.toUpperCase())) versionQualifier = "r";
-		else versionQualifier = "v";
+		// Classifications without descriptor are considered to have versions
+		ClassificationDescriptor descriptor = CATALOG.get(classification);
+		String versionQualifier = (descriptor == null) ? "v" : descriptor.getQualifier();
 
 		return classification.toLowerCase() + versionQualifier + version.replaceAll("\\.", "");
 	}
@@ -86,15 +99,9 @@ public class Names {
 	 */
 	public static String getCSLabel(String classification, String version) {
 
-		String shortName = classification.toUpperCase();
-		if ("ISIC".equals(shortName)) return String.format("International Standard Industrial Classification of All Economic Activities, Rev.%s", version);
-		if ("CPC".equals(shortName)) return String.format("Central Product Classification, Ver.%s", version);
-		if ("NACE".equals(shortName)) return String.format("Statistical Classification of Economic Activities in the European Community, Rev. %s", version);
-		if ("CPA".equals(shortName)) return String.format("Statistical Classification of Products by Activity, Version %s", version);
-		if ("NAF".equals(shortName)) return String.format("Nomenclature d'activités française - NAF rév. %s", version);
-		if ("CPF".equals(shortName)) return String.format("Classification des produits française - CPF rév. %s", version);
+		ClassificationDescriptor descriptor = CATALOG.get(classification);
 
-		return null;
+		return (descriptor == null) ? null : descriptor.getLabel(version, false);
 	}
 
 	/**
@@ -107,16 +114,9 @@ public class Names {
 	 */
 	public static String getCSShortName(String classification, String version) {
 
-		// A rather dumb implementation, not sure a smarter one is possible
-		String shortName = classification.toUpperCase();
-		if ("ISIC".equals(shortName)) return String.format("ISIC Rev.%s", version);
-		if ("CPC".equals(shortName)) return String.format("CPC Ver.%s", version);
-		if ("NACE".equals(shortName)) return String.format("NACE Rev. %s", version);
-		if ("CPA".equals(shortName)) return String.format("CPA %s", version);
-		if ("NAF".equals(shortName)) return String.format("NAF rév. %s", version);
-		if ("CPF".equals(shortName)) return String.format("CPF rév. %s", version);
+		ClassificationDescriptor descriptor = CATALOG.get(classification);
 
-		return null;
+		return (descriptor == null) ? null : descriptor.getShortName(version);
 	}
 
 	/**
@@ -129,12 +129,21 @@ public class Names {
 	 */
 	public static String getClassificationLevelURI(String classification, String version, int depth) {
 
-		String levelName = LEVEL_NAMES.get(classification).get(depth - 1);
-		if (levelName.endsWith("ss")) levelName += "es"; // Case of class and subclass
-		else if (levelName.endsWith("y")) levelName = levelName.substring(0, levelName.length() - 1) + "ies"; // Case of category and subcategory
-		else levelName += "s";
+		return getCSBaseURI(classification, version) + getLevelPluralName(getLevelNames(classification, version).get(depth - 1));
+	}
+
+	/**
+	 * Returns the plural of a level name, e.g. "classes" for "class".
+	 * 
+	 * @param levelName The name of the level.
+	 * @return The plural of the name.
+	 */
+	public static String getLevelPluralName(String levelName) {
+
+		if (levelName.endsWith("ss")) return levelName + "es"; // Case of class and subclass
+		if (levelName.endsWith("y")) return levelName.substring(0, levelName.length() - 1) + "ies"; // Case of category and subcategory
 
-		return getCSBaseURI(classification, version) + levelName;
+		return levelName + "s";
 	}
 
 	/**
@@ -147,7 +156,7 @@ public class Names {
 	 */
 	public static String getClassificationLevelLabel(String classification, String version, int depth) {
 
-		String levelName = LEVEL_NAMES.get(classification).get(depth - 1);
+		String levelName = getLevelNames(classification, version).get(depth - 1);
 
 		return getCSLabel(classification, version) + " - " + levelName.substring(0, 1).toUpperCase() + levelName.substring(1) + " level";
 	}
@@ -252,35 +261,28 @@ public class Names {
 	 */
 	public static String getItemPathInContext(String code, String classification, String version) {
 
-		String selector = classification.toUpperCase();
-		if (selector.equals("NACE") && (version.startsWith("1"))) selector = "NACEX";
-		if (selector.equals("CPA") && (version.length() >= 4) && (Integer.parseInt(version) <= 2002)) selector = "CPAX";
-
-		return LEVEL_NAMES.get(selector).get(getItemLevelDepth(code, classification, version) - 1) + "/" + code;
-		
+		return getLevelNames(classification, version).get(getItemLevelDepth(code, classification, version) - 1) + "/" + code;
 	}
 
 	/**
 	 * Returns the depth of the level to which an item belongs.
-	 * <i>Note<i>: levels are numbered from the top (base 1): the most aggregated level has depth 1.
+	 * <i>Note<i>: levels are numbered from the top (base 1): the most aggregated level has depth 1. The rules giving the depth from the
+	 * code are defined in the descriptor file (e.g. for the subsections of the oldest NACE and CPA versions). When the code formats of the
+	 * classification are described, the code is checked against them (see <code>CodeValidator</code>) and the level is the one of the
+	 * matching format.
 	 * 
 	 * @param code The item code.
 	 * @param classification The classification to which the item belongs, e.g. "NACE", "ISIC", etc.
 	 * @param version The version of the classification to which the item belongs ("4", "2.1", "2008", etc.).
 	 * @return The depth of the level.
+	 * @throws IllegalArgumentException If the code does not match the code formats of the classification version.
 	 */
 	public static int getItemLevelDepth(String code, String classification, String version) {
 
-		// Except for old versions of the NACE and CPA, the level is the number of characters (except dots) of the code
-		int depth = code.replace(".", "").length();
-		// For oldest CPA and NACE versions, the subsections (two letters) are level 2, then the codes are digits
-		if (("CPA".equals(classification.toUpperCase())) && (version.length() >= 4) && (Integer.parseInt(version) <= 2002)) {
-			if (Character.isDigit(code.charAt(0))) depth++;
-		}
-		if (("NACE".equals(classification.toUpperCase())) && (version.startsWith("1"))) {
-			if (Character.isDigit(code.charAt(0))) depth++;
-		}
-		// TODO Check that
+		CodeValidator validator = CodeValidator.forFormats(classification, version);
+		if (validator == null) return getDescriptor(classification).getItemLevelDepth(code, version);
+		int depth = validator.getLevel(code);
+		if (depth == 0) throw new IllegalArgumentException("Invalid code '" + code + "' for " + getCSShortName(classification, version));
 
 		return depth;
 	}
@@ -313,4 +315,16 @@ public class Names {
 		return "association/" + sourceCode + "-" + targetCode;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Computes the URI of an explanatory note shared by the classification versions.
+	 * Notes are identified by the hash of their content, so that identical notes of different items or versions have the same URI.
+	 * 
+	 * @param contentHash The hash of the note content (see <code>NoteRenderer.getKey</code>).
+	 * @return The note URI.
+	 */
+	public static String getNoteURI(String contentHash) {
+
+		return CLASSIFICATION_BASE_URI + "notes/" + contentHash;
+	}
+
+}
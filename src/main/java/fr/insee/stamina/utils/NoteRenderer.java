@@ -0,0 +1,331 @@
+package fr.insee.stamina.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jena.rdf.model.Literal;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.SKOS;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import fr.insee.stamina.index.CodeReferenceExtractor;
+
+/**
+ * The <code>NoteRenderer</code> class renders explanatory notes as XHTML fragments.
+ *
+ * The text of a note is first parsed into blocks: paragraphs, and list items for bulleted lines, for the lines following an introduction
+ * ending with a colon (e.g. "This class excludes:") and for all the lines of inclusion and exclusion notes. Code references are located
+ * in the blocks if a <code>CodeReferenceExtractor</code> is given. The blocks are then rendered with escaped text, references being
+ * marked as <code>span</code> elements of class <code>code</code>.
+ *
+ * Rendered fragments are cached by a hash of the parsed note (note type, language, blocks and references), shared by all the renderers,
+ * so that a note appearing in several items or versions is rendered once. The same hash identifies the note resources created by
+ * <code>shareNotes</code>, so that identical notes are also stored once in the models.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class NoteRenderer {
+
+	/** Namespace of the XHTML fragments */
+	public static final String XHTML_NAMESPACE = "http://www.w3.org/1999/xhtml";
+
+	/** Note type of the notes given by each property */
+	public static final Map<Property, NoteType> NOTE_TYPES = new LinkedHashMap<>();
+	static {
+		NOTE_TYPES.put(SKOS.definition, NoteType.GENERAL);
+		NOTE_TYPES.put(XKOS.coreContentNote, NoteType.CENTRAL_CONTENT);
+		NOTE_TYPES.put(XKOS.inclusionNote, NoteType.CENTRAL_CONTENT);
+		NOTE_TYPES.put(XKOS.additionalContentNote, NoteType.LIMIT_CONTENT);
+		NOTE_TYPES.put(XKOS.exclusionNote, NoteType.EXCLUSIONS);
+		NOTE_TYPES.put(SKOS.scopeNote, NoteType.REMARK);
+	}
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(NoteRenderer.class);
+
+	/** Rendered fragments by note key */
+	private static final Map<String, String> cache = new ConcurrentHashMap<>();
+
+	/** Renderer without recognition of code references */
+	private static final NoteRenderer DEFAULT = new NoteRenderer(null);
+
+	/** Markers of bulleted lines */
+	private static final List<String> BULLETS = Arrays.asList("-", "*", "\u2022", "\u00b7", "\u2013");
+
+	/** Types of the blocks of a note */
+	public enum BlockType {
+		PARAGRAPH, LIST_ITEM
+	}
+
+	/**
+	 * A block of a note, with the positions of the code references in its text.
+	 */
+	public static class Block {
+
+		BlockType type;
+		String text;
+		List<int[]> references;
+
+		Block(BlockType type, String text, List<int[]> references) {
+			this.type = type;
+			this.text = text;
+			this.references = references;
+		}
+
+		public BlockType getType() {
+			return type;
+		}
+
+		public String getText() {
+			return text;
+		}
+
+		/**
+		 * @return The start (inclusive) and end (exclusive) positions of the code references in the text.
+		 */
+		public List<int[]> getReferences() {
+			return Collections.unmodifiableList(references);
+		}
+	}
+
+	private CodeReferenceExtractor extractor;
+
+	/**
+	 * Creates a renderer.
+	 *
+	 * @param extractor The extractor recognizing the code references of the classification version, or <code>null</code> if references
+	 * are not marked.
+	 */
+	public NoteRenderer(CodeReferenceExtractor extractor) {
+		this.extractor = extractor;
+	}
+
+	/**
+	 * @return The renderer which does not recognize code references.
+	 */
+	public static NoteRenderer getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Parses the lines of a note into blocks.
+	 *
+	 * @param lines The lines of the note.
+	 * @param type The type of the note (<code>null</code> is considered as unknown).
+	 * @return The blocks of the note.
+	 */
+	public List<Block> parse(List<String> lines, NoteType type) {
+
+		boolean listNote = (type == NoteType.CENTRAL_CONTENT) || (type == NoteType.LIMIT_CONTENT) || (type == NoteType.EXCLUSIONS);
+		boolean inList = false;
+		List<Block> blocks = new ArrayList<>();
+		for (String line : lines) {
+			String text = (line == null) ? "" : line.trim();
+			if (text.isEmpty()) {
+				inList = false;
+				continue;
+			}
+			BlockType blockType = (listNote || inList) ? BlockType.LIST_ITEM : BlockType.PARAGRAPH;
+			for (String bullet : BULLETS) {
+				if (text.startsWith(bullet + " ") || text.startsWith(bullet + "\t")) {
+					text = text.substring(bullet.length()).trim();
+					blockType = BlockType.LIST_ITEM;
+					break;
+				}
+			}
+			// An introduction to a list, e.g. 'This class includes:'
+			if (text.endsWith(":")) {
+				blockType = BlockType.PARAGRAPH;
+				inList = true;
+			}
+			blocks.add(new Block(blockType, text, (extractor == null) ? Collections.emptyList() : extractor.find(text)));
+		}
+		return blocks;
+	}
+
+	/**
+	 * Renders an explanatory note.
+	 *
+	 * @param note The explanatory note.
+	 * @return The XHTML fragment.
+	 */
+	public String render(ExplanatoryNote note) {
+
+		String language = (note.getLanguage() == null) ? "" : note.getLanguage().getLanguage();
+		return render(note.getSourceText(), note.getNoteType(), language);
+	}
+
+	/**
+	 * Renders a note given as a text where lines are separated by line breaks.
+	 *
+	 * @param text The text of the note.
+	 * @param type The type of the note.
+	 * @param language The language tag of the note (may be empty).
+	 * @return The XHTML fragment.
+	 */
+	public String render(String text, NoteType type, String language) {
+
+		return render(Arrays.asList(text.split("\\r?\\n")), type, language);
+	}
+
+	/**
+	 * Renders a note given as a list of lines.
+	 *
+	 * @param lines The lines of the note.
+	 * @param type The type of the note.
+	 * @param language The language tag of the note (may be empty).
+	 * @return The XHTML fragment.
+	 */
+	public String render(List<String> lines, NoteType type, String language) {
+
+		List<Block> blocks = parse(lines, type);
+		return cache.computeIfAbsent(getKey(blocks, type, language), key -> toXHTML(blocks, type, language));
+	}
+
+	/**
+	 * Computes the key of a parsed note: the hexadecimal SHA-256 hash of its type, language, blocks and references, truncated to 128 bits.
+	 *
+	 * @param blocks The blocks of the note.
+	 * @param type The type of the note.
+	 * @param language The language tag of the note.
+	 * @return The key of the note.
+	 */
+	public static String getKey(List<Block> blocks, NoteType type, String language) {
+
+		StringBuilder content = new StringBuilder();
+		content.append((type == null) ? "" : type.toString()).append('\n').append((language == null) ? "" : language).append('\n');
+		for (Block block : blocks) {
+			content.append(block.type.ordinal()).append(':').append(block.text);
+			for (int[] reference : block.references) content.append('|').append(reference[0]).append('-').append(reference[1]);
+			content.append('\n');
+		}
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+			StringBuilder key = new StringBuilder();
+			for (int index = 0; index < 16; index++) key.append(String.format("%02x", hash[index]));
+			return key.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-256 is available on all Java platforms
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toXHTML(List<Block> blocks, NoteType type, String language) {
+
+		StringBuilder xhtml = new StringBuilder("<div xmlns=\"").append(XHTML_NAMESPACE).append("\"");
+		if ((language != null) && !language.isEmpty()) xhtml.append(" xml:lang=\"").append(escape(language)).append("\"");
+		if ((type != null) && (type.pathComponent() != null)) xhtml.append(" class=\"").append(type.pathComponent()).append("\"");
+		xhtml.append(">");
+		boolean inList = false;
+		for (Block block : blocks) {
+			if ((block.type == BlockType.LIST_ITEM) && !inList) xhtml.append("<ul>");
+			if ((block.type != BlockType.LIST_ITEM) && inList) xhtml.append("</ul>");
+			inList = (block.type == BlockType.LIST_ITEM);
+			xhtml.append(inList ? "<li>" : "<p>");
+			int position = 0;
+			for (int[] reference : block.references) {
+				xhtml.append(escape(block.text.substring(position, reference[0])));
+				xhtml.append("<span class=\"code\">").append(escape(block.text.substring(reference[0], reference[1]))).append("</span>");
+				position = reference[1];
+			}
+			xhtml.append(escape(block.text.substring(position)));
+			xhtml.append(inList ? "</li>" : "</p>");
+		}
+		if (inList) xhtml.append("</ul>");
+		xhtml.append("</div>");
+
+		return xhtml.toString();
+	}
+
+	/**
+	 * Escapes a text for inclusion in XHTML content or attribute values.
+	 *
+	 * @param text The text.
+	 * @return The escaped text.
+	 */
+	public static String escape(String text) {
+
+		StringBuilder escaped = new StringBuilder(text.length() + 16);
+		for (int index = 0; index < text.length(); index++) {
+			char character = text.charAt(index);
+			switch (character) {
+				case '&': escaped.append("&amp;"); break;
+				case '<': escaped.append("&lt;"); break;
+				case '>': escaped.append("&gt;"); break;
+				case '"': escaped.append("&quot;"); break;
+				default: escaped.append(character);
+			}
+		}
+		return escaped.toString();
+	}
+
+	/**
+	 * Replaces the literal notes of a model (see <code>NOTE_TYPES</code>) by note resources shared by all the items having the same note.
+	 * Each note resource is identified by the key of the note (see <code>Names.getNoteURI</code>) and has the plain text and the rendered
+	 * XHTML of the note.
+	 *
+	 * @param model The model containing the items and their literal notes.
+	 * @return The number of distinct note resources in the model after the operation.
+	 */
+	public int shareNotes(Model model) {
+
+		List<Statement> removed = new ArrayList<>();
+		List<Statement> added = new ArrayList<>();
+		Map<String, Resource> notes = new LinkedHashMap<>();
+		for (Map.Entry<Property, NoteType> noteType : NOTE_TYPES.entrySet()) {
+			for (Statement statement : model.listStatements(null, noteType.getKey(), (RDFNode) null).toList()) {
+				if (!statement.getObject().isLiteral()) continue;
+				Literal text = statement.getLiteral();
+				List<Block> blocks = parse(Arrays.asList(text.getLexicalForm().split("\\r?\\n")), noteType.getValue());
+				String key = getKey(blocks, noteType.getValue(), text.getLanguage());
+				Resource note = notes.get(key);
+				if (note == null) {
+					note = model.createResource(Names.getNoteURI(key));
+					notes.put(key, note);
+					if (!model.contains(note, RDF.type, XKOS.ExplanatoryNote)) {
+						added.add(model.createStatement(note, RDF.type, XKOS.ExplanatoryNote));
+						added.add(model.createStatement(note, XKOS.plainText, text));
+						String xhtml = cache.computeIfAbsent(key, k -> toXHTML(blocks, noteType.getValue(), text.getLanguage()));
+						added.add(model.createStatement(note, RDF.value, model.createTypedLiteral(xhtml, RDF.dtXMLLiteral)));
+					}
+				}
+				removed.add(statement);
+				added.add(model.createStatement(statement.getSubject(), statement.getPredicate(), note));
+			}
+		}
+		model.remove(removed);
+		model.add(added);
+		logger.debug(removed.size() + " literal notes replaced by " + notes.size() + " shared note resources (" + cache.size() + " fragments cached)");
+
+		return notes.size();
+	}
+
+	/**
+	 * @return The number of rendered fragments in the cache.
+	 */
+	public static int getCacheSize() {
+		return cache.size();
+	}
+
+	/**
+	 * Empties the cache of rendered fragments.
+	 */
+	public static void clearCache() {
+		cache.clear();
+	}
+}
@@ -0,0 +1,173 @@
+package fr.insee.stamina.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+/**
+ * The <code>PDFTextExtractor</code> class extracts text from page ranges of PDF files.
+ *
+ * The page range is split in chunks which are stripped in parallel, each with its own document handle and stripper, and the texts
+ * are reassembled in page order. Extracted texts are cached on disk under a key made of the hash of the PDF file and the page range,
+ * so a PDF that did not change is never stripped twice.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class PDFTextExtractor {
+
+	/** Default folder for the cache of extracted texts (in the build directory, which is not versioned) */
+	public static String CACHE_FOLDER = "target/cache/pdf/";
+
+	/** Default number of pages in a chunk */
+	public static int CHUNK_SIZE = 16;
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(PDFTextExtractor.class);
+
+	/** Folder for the cache of extracted texts (the cache is disabled if <code>null</code>) */
+	private Path cacheFolder;
+
+	/** Number of pages in a chunk */
+	private int chunkSize;
+
+	/** Number of threads used for extraction */
+	private int threads;
+
+	/**
+	 * Constructs an extractor with the default cache folder, chunk size, and as many threads as available processors.
+	 */
+	public PDFTextExtractor() {
+		this(Paths.get(CACHE_FOLDER), CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs an extractor with specified parameters.
+	 *
+	 * @param cacheFolder The folder for the cache of extracted texts, or <code>null</code> for no cache.
+	 * @param chunkSize The number of pages in a chunk.
+	 * @param threads The number of threads used for extraction.
+	 */
+	public PDFTextExtractor(Path cacheFolder, int chunkSize, int threads) {
+		this.cacheFolder = cacheFolder;
+		this.chunkSize = Math.max(1, chunkSize);
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Returns the text of a page range of a PDF file.
+	 *
+	 * @param pdfFile The PDF file.
+	 * @param startPage The first page of the range (base 1).
+	 * @param endPage The last page of the range, or a negative number for the last page of the document.
+	 * @return The text of the pages in the range.
+	 * @throws IOException In case of problem reading the PDF file.
+	 */
+	public String getText(File pdfFile, int startPage, int endPage) throws IOException {
+
+		String cacheKey = getHash(pdfFile) + "-" + startPage + "-" + endPage + ".txt";
+		Path cachePath = (cacheFolder == null) ? null : cacheFolder.resolve(cacheKey);
+		if ((cachePath != null) && Files.exists(cachePath)) {
+			logger.debug("Text of " + pdfFile + " (pages " + startPage + " to " + endPage + ") read from cache " + cachePath);
+			return new String(Files.readAllBytes(cachePath), StandardCharsets.UTF_8);
+		}
+
+		int numberOfPages;
+		try (PDDocument document = Loader.loadPDF(pdfFile)) {
+			numberOfPages = document.getNumberOfPages();
+		}
+		int lastPage = ((endPage < 0) || (endPage > numberOfPages)) ? numberOfPages : endPage;
+		logger.debug("Extracting text of " + pdfFile + " from page " + startPage + " to page " + lastPage);
+
+		String text = extract(pdfFile, Math.max(1, startPage), lastPage);
+
+		if (cachePath != null) {
+			Files.createDirectories(cacheFolder);
+			Files.write(cachePath, text.getBytes(StandardCharsets.UTF_8));
+			logger.debug("Extracted text saved in cache " + cachePath);
+		}
+		return text;
+	}
+
+	/**
+	 * Strips a page range by chunks in parallel and concatenates the results in page order.
+	 */
+	private String extract(File pdfFile, int startPage, int endPage) throws IOException {
+
+		List<int[]> chunks = new ArrayList<>();
+		for (int chunkStart = startPage; chunkStart <= endPage; chunkStart += chunkSize)
+			chunks.add(new int[] {chunkStart, Math.min(chunkStart + chunkSize - 1, endPage)});
+		if (chunks.size() == 1) return extractChunk(pdfFile, startPage, endPage);
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, chunks.size()));
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int[] chunk : chunks) results.add(executor.submit(() -> extractChunk(pdfFile, chunk[0], chunk[1])));
+			StringBuilder text = new StringBuilder();
+			for (Future<String> result : results) text.append(result.get());
+			return text.toString();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while extracting text from " + pdfFile, e);
+		} catch (ExecutionException e) {
+			throw new IOException("Error extracting text from " + pdfFile, e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Strips a chunk of pages with a dedicated document handle and stripper.
+	 */
+	private static String extractChunk(File pdfFile, int startPage, int endPage) throws IOException {
+
+		try (PDDocument document = Loader.loadPDF(pdfFile)) {
+			PDFTextStripper stripper = new PDFTextStripper();
+			stripper.setStartPage(startPage);
+			stripper.setEndPage(endPage);
+			return stripper.getText(document);
+		}
+	}
+
+	/**
+	 * Computes the SHA-256 hash of a file.
+	 *
+	 * @param file The file.
+	 * @return The hash of the file as an hexadecimal string.
+	 * @throws IOException In case of problem reading the file.
+	 */
+	public static String getHash(File file) throws IOException {
+
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e); // Cannot happen, SHA-256 is mandatory on all platforms
+		}
+		try (InputStream input = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+			byte[] buffer = new byte[1 << 16];
+			while (input.read(buffer) >= 0);
+		}
+		return String.format("%064x", new BigInteger(1, digest.digest()));
+	}
+}
@@ -0,0 +1,247 @@
+package fr.insee.stamina.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The <code>ParallelCSVReader</code> class parses a CSV file in chunks processed concurrently.
+ *
+ * The file is split in byte ranges of equal size, which are read through the file channel by the worker threads, so that the file is never
+ * loaded in memory as a whole. The quote characters of each range are first counted in parallel, which gives the quote state at the start
+ * of each range; each worker then moves the limits of its range to the following record boundaries (line breaks outside quoted values)
+ * and parses its records, passing them to a handler. The handler produces results (typically statements or compact association records)
+ * in a buffer belonging to the chunk. The buffers are concatenated at the end in the order of the chunks, so that the result is the same
+ * as with a sequential read. When the format expects a header, the header is read once and given to all chunks.
+ *
+ * Records are located on the bytes, which requires line breaks and quotes to be single ASCII bytes: files in UTF-16 or with a non-ASCII
+ * quote character are read sequentially.
+ *
+ * Record numbers (<code>CSVRecord.getRecordNumber()</code>) are relative to the chunk and should not be used by the handlers.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class ParallelCSVReader {
+
+	/** Approximate size of the chunks, in bytes */
+	public static int CHUNK_SIZE = 1024 * 1024;
+
+	/** Size of the buffer used to look for record boundaries */
+	private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(ParallelCSVReader.class);
+
+	/**
+	 * Handler of the records of a chunk, called by the worker threads: implementations must not modify shared state.
+	 *
+	 * @param <T> Type of the results produced.
+	 */
+	@FunctionalInterface
+	public interface RecordHandler<T> {
+
+		/**
+		 * Handles a record.
+		 *
+		 * @param record The CSV record.
+		 * @param buffer The buffer of the current chunk where results are added.
+		 */
+		void handle(CSVRecord record, List<T> buffer);
+	}
+
+	/**
+	 * Reads a CSV file (with a detected character set) and handles its records in parallel.
+	 *
+	 * @param fileName The name of the CSV file.
+	 * @param format The CSV format of the file.
+	 * @param handler The record handler.
+	 * @return The results produced by the handler, in the order of the records.
+	 * @throws IOException In case of problem reading or parsing the file.
+	 */
+	public static <T> List<T> read(String fileName, CSVFormat format, RecordHandler<T> handler) throws IOException {
+
+		Path path = Paths.get(fileName);
+		Charset charset = TextSource.detectCharset(path);
+		Character quoteCharacter = format.getQuoteCharacter();
+		if (charset.name().startsWith("UTF-16") || ((quoteCharacter != null) && (quoteCharacter > 127))) {
+			logger.debug("Record boundaries cannot be located on the bytes of " + fileName + ", reading sequentially");
+			List<T> results = new ArrayList<>();
+			try (CSVParser parser = TextSource.newParser(fileName, charset, format)) {
+				for (CSVRecord record : parser) handler.handle(record, results);
+			}
+			return results;
+		}
+		final int quote = (quoteCharacter == null) ? -1 : quoteCharacter;
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long start = TextSource.getBOMLength(path, charset);
+			long size = channel.size();
+
+			// With an automatic header, the first record gives the column names used for all the chunks
+			CSVFormat chunkFormat = format;
+			if ((format.getHeader() != null) && (format.getHeader().length == 0)) {
+				long headerEnd = nextRecordEnd(channel, start, false, quote);
+				String[] header = null;
+				try (CSVParser headerParser = new CSVParser(newReader(channel, start, headerEnd, charset), format.builder().setHeader((String[]) null).build())) {
+					Iterator<CSVRecord> iterator = headerParser.iterator();
+					if (iterator.hasNext()) {
+						List<String> names = new ArrayList<>();
+						iterator.next().forEach(names::add);
+						header = names.toArray(new String[0]);
+					}
+				}
+				if (header == null) return new ArrayList<>();
+				chunkFormat = format.builder().setHeader(header).setSkipHeaderRecord(false).build();
+				start = headerEnd;
+			}
+
+			// Nominal limits of the chunks, moved by the workers to the following record boundaries
+			List<Long> limits = new ArrayList<>();
+			for (long limit = start; limit < size; limit += CHUNK_SIZE) limits.add(limit);
+			limits.add(size);
+			int chunkCount = limits.size() - 1;
+			logger.debug(fileName + " (" + size + " bytes, " + charset + ") split in " + chunkCount + " chunks");
+			if (chunkCount == 0) return new ArrayList<>();
+
+			final CSVFormat workerFormat = chunkFormat;
+			ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(chunkCount, Runtime.getRuntime().availableProcessors())));
+			try {
+				// Quote state at the nominal start of each chunk, from the parity of the number of quotes in the preceding chunks
+				boolean[] quoted = new boolean[chunkCount + 1];
+				if (quote >= 0) {
+					List<Future<Boolean>> parities = new ArrayList<>();
+					for (int chunk = 0; chunk < chunkCount; chunk++) {
+						long from = limits.get(chunk), to = limits.get(chunk + 1);
+						parities.add(executor.submit(() -> isOddQuoteCount(channel, from, to, quote)));
+					}
+					List<Boolean> oddCounts = getAll(parities);
+					for (int chunk = 0; chunk < chunkCount; chunk++) quoted[chunk + 1] = quoted[chunk] ^ oddCounts.get(chunk);
+				}
+
+				List<Future<List<T>>> futures = new ArrayList<>();
+				for (int chunk = 0; chunk < chunkCount; chunk++) {
+					long nominalStart = limits.get(chunk), nominalEnd = limits.get(chunk + 1);
+					boolean quotedAtStart = quoted[chunk], quotedAtEnd = quoted[chunk + 1];
+					boolean first = (chunk == 0), last = (chunk == chunkCount - 1);
+					futures.add(executor.submit(() -> {
+						// A chunk holds the records starting after the first record end of its nominal range, up to the first record end of the next one
+						long chunkStart = first ? nominalStart : nextRecordEnd(channel, nominalStart, quotedAtStart, quote);
+						long chunkEnd = last ? nominalEnd : nextRecordEnd(channel, nominalEnd, quotedAtEnd, quote);
+						List<T> buffer = new ArrayList<>();
+						if (chunkStart >= chunkEnd) return buffer;
+						try (CSVParser parser = new CSVParser(newReader(channel, chunkStart, chunkEnd, charset), workerFormat)) {
+							for (CSVRecord record : parser) handler.handle(record, buffer);
+						}
+						return buffer;
+					}));
+				}
+				List<T> results = new ArrayList<>();
+				for (List<T> buffer : getAll(futures)) results.addAll(buffer);
+
+				return results;
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Waits for the results of tasks, in the order of the tasks.
+	 */
+	private static <R> List<R> getAll(List<Future<R>> futures) throws IOException {
+
+		try {
+			List<R> results = new ArrayList<>();
+			for (Future<R> future : futures) results.add(future.get());
+			return results;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new IOException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while parsing CSV chunks", e);
+		}
+	}
+
+	/**
+	 * Returns a reader on a range of bytes of the file, read with a positional read (the position of the channel is not used, so that
+	 * several threads can read the channel concurrently).
+	 */
+	private static InputStreamReader newReader(FileChannel channel, long from, long to, Charset charset) throws IOException {
+
+		if (to - from > Integer.MAX_VALUE) throw new IOException("CSV record too large at byte " + from);
+		ByteBuffer bytes = ByteBuffer.allocate((int) (to - from));
+		while (bytes.hasRemaining() && (channel.read(bytes, from + bytes.position()) >= 0));
+
+		return new InputStreamReader(new ByteArrayInputStream(bytes.array(), 0, bytes.position()),
+				charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE));
+	}
+
+	/**
+	 * Checks if a range of bytes contains an odd number of quote characters.
+	 */
+	private static boolean isOddQuoteCount(FileChannel channel, long from, long to, int quote) throws IOException {
+
+		boolean odd = false;
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		for (long position = from; position < to; ) {
+			buffer.clear();
+			buffer.limit((int) Math.min(SCAN_BUFFER_SIZE, to - position));
+			int count = channel.read(buffer, position);
+			if (count < 0) break;
+			for (int index = 0; index < count; index++) if (buffer.get(index) == quote) odd = !odd;
+			position += count;
+		}
+		return odd;
+	}
+
+	/**
+	 * Returns the position following the first record end (line break outside quoted values) located at or after a given position.
+	 *
+	 * @param channel The channel on the CSV file.
+	 * @param from The position from which record ends are looked for.
+	 * @param quoted The quote state at this position.
+	 * @param quote The quote character, or -1 if values are not quoted.
+	 * @return The position following the line break, or the size of the file if there is none.
+	 * @throws IOException In case of problem reading the file.
+	 */
+	private static long nextRecordEnd(FileChannel channel, long from, boolean quoted, int quote) throws IOException {
+
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		long position = from;
+		int count;
+		while (true) {
+			buffer.clear();
+			if ((count = channel.read(buffer, position)) <= 0) break;
+			for (int index = 0; index < count; index++) {
+				byte character = buffer.get(index);
+				if (character == quote) quoted = !quoted;
+				else if ((character == '\n') && !quoted) return position + index + 1;
+			}
+			position += count;
+		}
+		return channel.size();
+	}
+}
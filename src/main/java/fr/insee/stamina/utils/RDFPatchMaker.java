@@ -0,0 +1,131 @@
+package fr.insee.stamina.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The <code>RDFPatchMaker</code> class computes the RDF Patch between a newly generated model and its previously published version.
+ *
+ * Models are published as canonical N-Triples files next to the usual Turtle files. When a model is regenerated, its sorted N-Triples lines
+ * are merged with the lines of the previous publication: lines only present in the previous version are deletions, lines only present
+ * in the new version are additions. The result is written in the RDF Patch text format, which can be applied to a triple store instead
+ * of reloading the whole file.
+ *
+ * Publication is an optional stage of the model makers, enabled with the <code>stamina.patches</code> system property. In canonical output
+ * mode (see <code>ModelWriter</code>), the N-Triples file written by the model writer is the publication, so the model is sorted only once.
+ *
+ * @see <a href="https://afs.github.io/rdf-patch/">RDF Patch</a>
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class RDFPatchMaker {
+
+	/** Name of the system property enabling the publication of the patches in the model makers */
+	public static final String PATCH_PROPERTY = "stamina.patches";
+
+	/** Extension of the published N-Triples files */
+	public static String NTRIPLES_EXTENSION = ".nt";
+
+	/** Extension of the RDF Patch files */
+	public static String PATCH_EXTENSION = ".rdfp";
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(RDFPatchMaker.class);
+
+	/**
+	 * @return <code>true</code> if the publication of the patches is enabled by the system property.
+	 */
+	public static boolean isEnabled() {
+
+		return Boolean.getBoolean(PATCH_PROPERTY);
+	}
+
+	/**
+	 * Writes a model with the <code>ModelWriter</code>, publishes it as canonical N-Triples and writes the patch from the previous publication,
+	 * if there is one.
+	 *
+	 * @param model The newly generated model.
+	 * @param turtleFileName The name of the Turtle file (e.g. 'src/main/resources/data/isicr4.ttl'), the published files have the same name
+	 *        with the '.nt' and '.rdfp' extensions.
+	 * @return The number of changes (additions and deletions) in the patch, or -1 if there was no previous publication.
+	 * @throws IOException In case of problem reading or writing the files.
+	 */
+	public static int publish(Model model, String turtleFileName) throws IOException {
+
+		String baseName = turtleFileName.endsWith(".ttl") ? turtleFileName.substring(0, turtleFileName.length() - 4) : turtleFileName;
+		Path publishedPath = Paths.get(baseName + NTRIPLES_EXTENSION);
+		Path previousPath = Paths.get(baseName + NTRIPLES_EXTENSION + ".previous");
+
+		// The previous publication is set aside, then the new one is written in its place
+		boolean republished = Files.exists(publishedPath);
+		if (republished) Files.move(publishedPath, previousPath, StandardCopyOption.REPLACE_EXISTING);
+		ModelWriter.write(model, turtleFileName);
+		if (!ModelWriter.isCanonical()) {
+			try (OutputStream publishedStream = Files.newOutputStream(publishedPath)) {
+				CanonicalNTriplesWriter.write(model.getGraph(), publishedStream);
+			}
+		}
+		logger.debug("Model published as canonical N-Triples in " + publishedPath);
+		if (!republished) return -1;
+
+		// Both files are canonical, hence sorted: they are merged line by line
+		int changes;
+		try (BufferedReader previousReader = Files.newBufferedReader(previousPath, StandardCharsets.UTF_8);
+				BufferedReader currentReader = Files.newBufferedReader(publishedPath, StandardCharsets.UTF_8);
+				OutputStream patchStream = Files.newOutputStream(Paths.get(baseName + PATCH_EXTENSION))) {
+			changes = writePatch(previousReader.lines().iterator(), currentReader.lines().iterator(), patchStream);
+		}
+		Files.delete(previousPath);
+		logger.info("Patch with " + changes + " changes written to " + baseName + PATCH_EXTENSION);
+
+		return changes;
+	}
+
+	/**
+	 * Writes the RDF Patch between two sorted sequences of N-Triples lines, in a single transaction.
+	 *
+	 * @param previousLines The lines of the previous version, sorted.
+	 * @param currentLines The lines of the current version, sorted.
+	 * @param output The output stream where the patch is written (not closed).
+	 * @return The number of changes written.
+	 * @throws IOException In case of problem writing the patch.
+	 */
+	public static int writePatch(Iterator<String> previousLines, Iterator<String> currentLines, OutputStream output) throws IOException {
+
+		Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+		int changes = 0;
+		writer.write("TX .\n");
+		String previous = previousLines.hasNext() ? previousLines.next() : null;
+		String current = currentLines.hasNext() ? currentLines.next() : null;
+		while ((previous != null) || (current != null)) {
+			int comparison = (previous == null) ? 1 : (current == null) ? -1 : ExternalSorter.CODE_POINT_ORDER.compare(previous, current);
+			if (comparison < 0) {
+				writer.write("D " + previous + "\n");
+				changes++;
+			} else if (comparison > 0) {
+				writer.write("A " + current + "\n");
+				changes++;
+			}
+			if (comparison <= 0) previous = previousLines.hasNext() ? previousLines.next() : null;
+			if (comparison >= 0) current = currentLines.hasNext() ? currentLines.next() : null;
+		}
+		writer.write("TC .\n");
+		writer.flush();
+
+		return changes;
+	}
+}
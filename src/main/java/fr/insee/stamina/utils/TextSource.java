@@ -0,0 +1,219 @@
+package fr.insee.stamina.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The <code>TextSource</code> class opens the text and CSV input files with a detected character set.
+ *
+ * When the caller declares the character set of the file, it is used as is (a UTF-8 byte order mark being skipped). Otherwise the character
+ * set is detected once when the file is opened: a byte order mark gives the encoding directly (and is skipped), else the beginning of the
+ * file is checked for valid UTF-8, and Windows-1252 (the encoding of most UNSD files) is used if the check fails. Detection only looks at a
+ * sample, so files whose encoding is known should always be opened with a declared character set. The file is then read through a file
+ * channel with a large buffer and decoded directly into the reader given to the CSV parser, instead of going through the platform default
+ * character set of <code>FileReader</code>.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class TextSource {
+
+	/** Character set detected when the file is neither marked nor valid UTF-8 */
+	public static final Charset DEFAULT_FALLBACK = Charset.forName("windows-1252");
+
+	/** Size of the byte sample used to detect the character set */
+	public static int SAMPLE_SIZE = 64 * 1024;
+
+	/** Size of the read buffer */
+	public static int BUFFER_SIZE = 1024 * 1024;
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(TextSource.class);
+
+	private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+	private static final byte[] UTF16BE_BOM = {(byte) 0xFE, (byte) 0xFF};
+	private static final byte[] UTF16LE_BOM = {(byte) 0xFF, (byte) 0xFE};
+
+	/**
+	 * Opens a text file with a detected character set.
+	 *
+	 * @param fileName The name of the file.
+	 * @return A buffered reader on the file.
+	 * @throws IOException In case of problem opening the file.
+	 */
+	public static BufferedReader newReader(String fileName) throws IOException {
+
+		return newReader(Paths.get(fileName), null);
+	}
+
+	/**
+	 * Opens a text file with a declared character set.
+	 *
+	 * @param fileName The name of the file.
+	 * @param charset The character set of the file, or <code>null</code> to detect it.
+	 * @return A buffered reader on the file.
+	 * @throws IOException In case of problem opening the file.
+	 */
+	public static BufferedReader newReader(String fileName, Charset charset) throws IOException {
+
+		return newReader(Paths.get(fileName), charset);
+	}
+
+	/**
+	 * Opens a text file with a declared character set.
+	 *
+	 * @param path The path of the file.
+	 * @param declared The character set of the file, or <code>null</code> to detect it.
+	 * @return A buffered reader on the file.
+	 * @throws IOException In case of problem opening the file.
+	 */
+	public static BufferedReader newReader(Path path, Charset declared) throws IOException {
+
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			ByteBuffer sample = readSample(channel);
+			Charset charset = (declared != null) ? declared : detect(sample, sample.limit() == channel.size());
+			int bomLength = getBOMLength(sample, charset);
+			logger.debug("Reading " + path + " with " + ((declared != null) ? "declared" : "detected") + " character set " + charset + ((bomLength > 0) ? " (byte order mark)" : ""));
+
+			channel.position(bomLength);
+			CharsetDecoder decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+			return new BufferedReader(Channels.newReader(channel, decoder, BUFFER_SIZE), BUFFER_SIZE);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens a CSV file with a detected character set.
+	 *
+	 * @param fileName The name of the file.
+	 * @param format The CSV format of the file.
+	 * @return A CSV parser on the file.
+	 * @throws IOException In case of problem opening the file.
+	 */
+	public static CSVParser newParser(String fileName, CSVFormat format) throws IOException {
+
+		return newParser(fileName, null, format);
+	}
+
+	/**
+	 * Opens a CSV file with a declared character set.
+	 *
+	 * @param fileName The name of the file.
+	 * @param charset The character set of the file, or <code>null</code> to detect it.
+	 * @param format The CSV format of the file.
+	 * @return A CSV parser on the file.
+	 * @throws IOException In case of problem opening the file.
+	 */
+	public static CSVParser newParser(String fileName, Charset charset, CSVFormat format) throws IOException {
+
+		Reader reader = newReader(fileName, charset);
+		try {
+			return new CSVParser(reader, format);
+		} catch (IOException | RuntimeException e) {
+			reader.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Detects the character set of a text file, as done when the file is opened without a declared character set.
+	 *
+	 * @param path The path of the file.
+	 * @return The detected character set.
+	 * @throws IOException In case of problem reading the file.
+	 */
+	public static Charset detectCharset(Path path) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer sample = readSample(channel);
+			return detect(sample, sample.limit() == channel.size());
+		}
+	}
+
+	/**
+	 * Returns the length of the byte order mark of a text file, i.e. the position of the first byte of the text.
+	 *
+	 * @param path The path of the file.
+	 * @param charset The character set of the file.
+	 * @return The length of the byte order mark, 0 if there is none.
+	 * @throws IOException In case of problem reading the file.
+	 */
+	public static int getBOMLength(Path path, Charset charset) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return getBOMLength(readSample(channel), charset);
+		}
+	}
+
+	private static ByteBuffer readSample(FileChannel channel) throws IOException {
+
+		ByteBuffer sample = ByteBuffer.allocate((int) Math.min(SAMPLE_SIZE, channel.size()));
+		while (sample.hasRemaining() && (channel.read(sample) >= 0));
+		sample.flip();
+		return sample;
+	}
+
+	/**
+	 * Detects the character set from a byte order mark, or else from the validity of the sample as UTF-8.
+	 */
+	private static Charset detect(ByteBuffer sample, boolean wholeFile) {
+
+		if (startsWith(sample, UTF8_BOM)) return StandardCharsets.UTF_8;
+		if (startsWith(sample, UTF16BE_BOM)) return StandardCharsets.UTF_16BE;
+		if (startsWith(sample, UTF16LE_BOM)) return StandardCharsets.UTF_16LE;
+		return isUTF8(sample, wholeFile) ? StandardCharsets.UTF_8 : DEFAULT_FALLBACK;
+	}
+
+	/**
+	 * Returns the length of the byte order mark of the character set found at the beginning of a sample, 0 if there is none.
+	 */
+	private static int getBOMLength(ByteBuffer sample, Charset charset) {
+
+		if (charset.equals(StandardCharsets.UTF_8) && startsWith(sample, UTF8_BOM)) return UTF8_BOM.length;
+		if (charset.equals(StandardCharsets.UTF_16BE) && startsWith(sample, UTF16BE_BOM)) return UTF16BE_BOM.length;
+		if (charset.equals(StandardCharsets.UTF_16LE) && startsWith(sample, UTF16LE_BOM)) return UTF16LE_BOM.length;
+		return 0;
+	}
+
+	private static boolean startsWith(ByteBuffer buffer, byte[] prefix) {
+
+		if (buffer.remaining() < prefix.length) return false;
+		for (int index = 0; index < prefix.length; index++) if (buffer.get(buffer.position() + index) != prefix[index]) return false;
+		return true;
+	}
+
+	/**
+	 * Checks if a byte sample is valid UTF-8. A multi-byte sequence truncated at the end of the sample is accepted if the sample is not
+	 * the whole file.
+	 */
+	private static boolean isUTF8(ByteBuffer sample, boolean wholeFile) {
+
+		CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(CodingErrorAction.REPORT);
+		ByteBuffer bytes = sample.duplicate();
+		CharBuffer chars = CharBuffer.allocate(bytes.remaining());
+		CoderResult result = decoder.decode(bytes, chars, wholeFile);
+
+		return !result.isError();
+	}
+}
@@ -0,0 +1,286 @@
+package fr.insee.stamina.utils;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The <code>VocabularyGenerator</code> class generates the vocabulary classes of the <code>utils</code> package from the ontology files.
+ *
+ * Each generated class holds the classes and properties of the ontology as static constants, so that the model makers never have to
+ * create vocabulary terms at runtime. The generator runs in the <code>generate-sources</code> phase of the Maven build (it is compiled
+ * alone just before), reads the ontologies from the files of the <code>doc</code> folder in a plain model (no reasoner), and writes the
+ * Java sources in <code>target/generated-sources/vocabularies</code>, which is added to the source folders of the build. The generated
+ * classes are not committed: to add a term, add it to the ontology file.
+ *
+ * @author Franck Cotton
+ * @version 0.1, 19 Oct 2026
+ */
+public class VocabularyGenerator {
+
+	/** Default output directory for the generated classes */
+	public static String OUTPUT_FOLDER = "target/generated-sources/vocabularies/";
+
+	/** Default directory of the ontology files */
+	public static String ONTOLOGY_FOLDER = "doc/";
+
+	/** Package of the generated classes */
+	public static String PACKAGE_NAME = "fr.insee.stamina.utils";
+
+	/** Specifications of the vocabularies to generate, by class name */
+	public static Map<String, VocabularySpecification> VOCABULARIES = new LinkedHashMap<>();
+	static {
+		VOCABULARIES.put("XKOS", new VocabularySpecification("XKOS", "xkos/xkos.ttl",
+				"http://rdf-vocabulary.ddialliance.org/xkos#", "http://www.ddialliance.org/Specification/RDF/XKOS"));
+		VOCABULARIES.put("DCAT", new VocabularySpecification("DCAT", "dcat/dcat.ttl",
+				"http://www.w3.org/ns/dcat#", "https://www.w3.org/TR/vocab-dcat"));
+		VocabularySpecification admsSpecification = new VocabularySpecification("ADMS", "adms/adms.ttl",
+				"http://www.w3.org/ns/adms#", "https://www.w3.org/TR/vocab-adms");
+		// Selection of terms from the controlled vocabularies (see https://joinup.ec.europa.eu/svn/adms/ADMS_v1.00/ADMS_SKOS_v1.00.html)
+		admsSpecification.addExternalResource("CompletedStatus", "http://purl.org/adms/status/Completed");
+		admsSpecification.addExternalResource("UnderDevelopmentStatus", "http://purl.org/adms/status/UnderDevelopment");
+		admsSpecification.addExternalResource("TaxonomyAssetType", "http://purl.org/adms/assettype/Taxonomy");
+		admsSpecification.addExternalResource("SKOSRepresentationTechnique", "http://purl.org/adms/representationtechnique/SKOS");
+		admsSpecification.addExternalResource("SPARQLRepresentationTechnique", "http://purl.org/adms/representationtechnique/SPARQL");
+		VOCABULARIES.put("ADMS", admsSpecification);
+		VOCABULARIES.put("DQV", new VocabularySpecification("DQV", "dqv/dqv.ttl",
+				"http://www.w3.org/ns/dqv#", "https://www.w3.org/TR/vocab-dqv/"));
+		VOCABULARIES.put("CSPAOnto", new VocabularySpecification("CSPAOnto", "cspa/hlg-ontology.ttl",
+				"http://rdf.unece.org/ontologies/hlg#", null));
+		VOCABULARIES.put("GSBPM", new VocabularySpecification("GSBPM", "gsbpm/gsbpm-ontology.ttl",
+				"http://rdf.unece.org/models/gsbpm#", null));
+	}
+
+	/** Types identifying the classes of an ontology */
+	private static final List<Resource> CLASS_TYPES = Arrays.asList(RDFS.Class, OWL.Class);
+
+	/** Types identifying the properties of an ontology, with the comment used for each group in the generated class */
+	private static final Map<Resource, String> PROPERTY_TYPES = new LinkedHashMap<>();
+	static {
+		PROPERTY_TYPES.put(OWL.AnnotationProperty, "annotation properties");
+		PROPERTY_TYPES.put(OWL.DatatypeProperty, "datatype properties");
+		PROPERTY_TYPES.put(OWL.ObjectProperty, "object properties");
+		PROPERTY_TYPES.put(RDF.Property, "other properties");
+	}
+
+	/** Log4J2 logger */
+	private static final Logger logger = LogManager.getLogger(VocabularyGenerator.class);
+
+	/**
+	 * Main method: generates the classes for the vocabularies given as arguments, or for all vocabularies.
+	 *
+	 * @param args Output directory and ontology directory (optional), followed by the names of the classes to generate (all if none).
+	 * @throws IOException In case of problem writing the generated files.
+	 */
+	public static void main(String[] args) throws IOException {
+
+		String outputFolder = (args.length > 0) ? args[0] : OUTPUT_FOLDER;
+		String ontologyFolder = (args.length > 1) ? args[1] : ONTOLOGY_FOLDER;
+		List<String> classNames = (args.length > 2) ? Arrays.asList(args).subList(2, args.length) : new ArrayList<>(VOCABULARIES.keySet());
+
+		for (String className : classNames) {
+			VocabularySpecification specification = VOCABULARIES.get(className);
+			if (specification == null) throw new IllegalArgumentException("No specification for vocabulary " + className);
+			Path outputPath = Paths.get(outputFolder, PACKAGE_NAME.replace('.', '/'), className + ".java");
+			generate(specification, Paths.get(ontologyFolder, specification.source), outputPath);
+		}
+	}
+
+	/**
+	 * Generates the vocabulary class corresponding to a specification.
+	 *
+	 * @param specification The specification of the vocabulary.
+	 * @param ontologyPath The path of the ontology file.
+	 * @param outputPath The path of the Java source file to write.
+	 * @throws IOException In case of problem reading the ontology or writing the file.
+	 */
+	public static void generate(VocabularySpecification specification, Path ontologyPath, Path outputPath) throws IOException {
+
+		if (!Files.exists(ontologyPath)) throw new IOException("Ontology file " + ontologyPath + " not found for vocabulary " + specification.className);
+		logger.info("Reading ontology for " + specification.className + " from " + ontologyPath);
+		Model ontology = RDFDataMgr.loadModel(ontologyPath.toString());
+
+		SortedMap<String, String> classes = selectTerms(ontology, specification.namespace, CLASS_TYPES);
+		Map<Resource, SortedMap<String, String>> properties = new LinkedHashMap<>();
+		for (Resource propertyType : PROPERTY_TYPES.keySet()) {
+			SortedMap<String, String> typed = selectTerms(ontology, specification.namespace, Collections.singletonList(propertyType));
+			// A property typed both as rdf:Property and as an OWL property is recorded in the OWL group only
+			for (SortedMap<String, String> previous : properties.values()) typed.keySet().removeAll(previous.keySet());
+			properties.put(propertyType, typed);
+		}
+		ontology.close();
+
+		Files.createDirectories(outputPath.getParent());
+		try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8))) {
+			writeClass(writer, specification, classes, properties);
+		}
+		logger.info("Vocabulary class " + specification.className + " written to " + outputPath + " (" + classes.size() + " classes)");
+	}
+
+	/**
+	 * Returns the terms of a namespace which have one of the specified types in an ontology.
+	 *
+	 * @param ontology The model containing the ontology.
+	 * @param namespace The namespace of the terms to select.
+	 * @param types The types of the terms to select.
+	 * @return A sorted map of the Java field names and local names of the terms.
+	 */
+	private static SortedMap<String, String> selectTerms(Model ontology, String namespace, List<Resource> types) {
+
+		SortedMap<String, String> terms = new TreeMap<>();
+		for (Resource type : types) {
+			StmtIterator iterator = ontology.listStatements(null, RDF.type, type);
+			while (iterator.hasNext()) {
+				Statement statement = iterator.next();
+				Resource term = statement.getSubject();
+				if (!term.isURIResource() || !term.getURI().startsWith(namespace)) continue;
+				String localName = term.getURI().substring(namespace.length());
+				if (localName.length() == 0) continue;
+				terms.put(getFieldName(localName), localName);
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * Writes the source of a vocabulary class.
+	 */
+	private static void writeClass(PrintWriter writer, VocabularySpecification specification, SortedMap<String, String> classes, Map<Resource, SortedMap<String, String>> properties) {
+
+		String name = specification.className;
+		boolean hasProperties = false;
+		for (SortedMap<String, String> group : properties.values()) hasProperties |= !group.isEmpty();
+
+		writer.println("package " + PACKAGE_NAME + ";");
+		writer.println();
+		writer.println("import org.apache.jena.rdf.model.Model;");
+		writer.println("import org.apache.jena.rdf.model.ModelFactory;");
+		if (hasProperties) writer.println("import org.apache.jena.rdf.model.Property;");
+		writer.println("import org.apache.jena.rdf.model.Resource;");
+		writer.println();
+		writer.println("/**");
+		if (specification.documentation != null) writer.println(" * Vocabulary definition for the <a href=\"" + specification.documentation + "\">" + name + " vocabulary</a>.");
+		else writer.println(" * Vocabulary definition for the " + name + " vocabulary.");
+		writer.println(" * ");
+		writer.println(" * <i>Note</i>: this class is generated by <code>VocabularyGenerator</code> from doc/" + specification.source + ", do not edit.");
+		writer.println(" */");
+		writer.println("public class " + name + " {");
+		writer.println("\t/**");
+		writer.println("\t * The RDF model that holds the " + name + " entities");
+		writer.println("\t */");
+		writer.println("\tpublic static Model model = ModelFactory.createDefaultModel();");
+		writer.println("\t/**");
+		writer.println("\t * The namespace of the " + name + " vocabulary as a string");
+		writer.println("\t */");
+		writer.println("\tpublic static final String uri = \"" + specification.namespace + "\";");
+		writer.println("\t/**");
+		writer.println("\t * Returns the namespace of the " + name + " vocabulary as a string");
+		writer.println("\t * @return the namespace of the " + name + " vocabulary");
+		writer.println("\t */");
+		writer.println("\tpublic static String getURI() {");
+		writer.println("\t\treturn uri;");
+		writer.println("\t}");
+		writer.println("\t/**");
+		writer.println("\t * The namespace of the " + name + " vocabulary");
+		writer.println("\t */");
+		writer.println("\tpublic static final Resource NAMESPACE = model.createResource(uri);");
+		writer.println("\t/* ##########################################################");
+		writer.println("\t * Defines " + name + " Classes");
+		writer.println("\t   ########################################################## */");
+		for (Map.Entry<String, String> term : classes.entrySet())
+			writer.println("\tpublic static final Resource " + term.getKey() + " = model.createResource(uri + \"" + term.getValue() + "\");");
+		if (hasProperties) {
+			writer.println("\t/* ##########################################################");
+			writer.println("\t * Defines " + name + " Properties");
+			writer.println("\t   ########################################################## */");
+			for (Map.Entry<Resource, SortedMap<String, String>> group : properties.entrySet()) {
+				if (group.getValue().isEmpty()) continue;
+				writer.println("\t// " + name + " " + PROPERTY_TYPES.get(group.getKey()));
+				for (Map.Entry<String, String> term : group.getValue().entrySet())
+					writer.println("\tpublic static final Property " + term.getKey() + " = model.createProperty(uri + \"" + term.getValue() + "\");");
+			}
+		}
+		if (!specification.externalResources.isEmpty()) {
+			writer.println();
+			writer.println("\t// Terms from associated vocabularies");
+			for (Map.Entry<String, String> term : specification.externalResources.entrySet())
+				writer.println("\tpublic static final Resource " + term.getKey() + " = model.createResource(\"" + term.getValue() + "\");");
+		}
+		writer.println("}");
+	}
+
+	/**
+	 * Transforms the local name of a term into a valid Java field name.
+	 *
+	 * @param localName The local name of the term (e.g. "street-address").
+	 * @return A valid field name (e.g. "street_address").
+	 */
+	static String getFieldName(String localName) {
+
+		StringBuilder fieldName = new StringBuilder();
+		for (char character : localName.toCharArray()) {
+			fieldName.append(Character.isJavaIdentifierPart(character) ? character : '_');
+		}
+		if (!Character.isJavaIdentifierStart(fieldName.charAt(0))) fieldName.insert(0, '_');
+		// Avoid collisions with the fixed members of the generated classes
+		String name = fieldName.toString();
+		if (Arrays.asList("model", "uri", "NAMESPACE").contains(name)) name += "_";
+
+		return name;
+	}
+
+	/**
+	 * The <code>VocabularySpecification</code> utility class specifies a vocabulary class to generate.
+	 */
+	public static class VocabularySpecification {
+
+		/** Name of the generated class */
+		String className;
+		/** Path of the ontology file, relative to the ontology directory */
+		String source;
+		/** Namespace of the vocabulary terms */
+		String namespace;
+		/** URL of the vocabulary documentation (can be null) */
+		String documentation;
+		/** Resources outside the namespace that are added to the class, by field name */
+		Map<String, String> externalResources = new LinkedHashMap<>();
+
+		public VocabularySpecification(String className, String source, String namespace, String documentation) {
+			this.className = className;
+			this.source = source;
+			this.namespace = namespace;
+			this.documentation = documentation;
+		}
+
+		public void addExternalResource(String fieldName, String uri) {
+			externalResources.put(fieldName, uri);
+		}
+
+		@Override
+		public String toString() {
+			return this.className + " <- " + this.source + " (" + this.namespace + ")";
+		}
+	}
+}